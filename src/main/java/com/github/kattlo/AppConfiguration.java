@@ -1,6 +1,7 @@
 package com.github.kattlo;
 
 import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Disposes;
 import javax.enterprise.inject.Produces;
 
 import com.github.kattlo.core.backend.Backend;
@@ -19,6 +20,10 @@ public class AppConfiguration {
         return new KafkaBackend();
     }
 
+    void close(@Disposes Backend backend) {
+        backend.close();
+    }
+
     @Produces
     @ApplicationScoped
     Kafka kafka(){
@@ -7,6 +7,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 
+import com.github.kattlo.core.backend.kafka.KafkaBackendConfig;
 import com.github.kattlo.topic.TopicCommand;
 import com.github.kattlo.util.VersionUtil;
 
@@ -47,6 +48,8 @@ public class EntryCommand {
 
     private String bootstrapServers;
 
+    private File snapshotDirectory;
+
     @Spec
     private CommandSpec spec;
 
@@ -129,6 +132,46 @@ public class EntryCommand {
         return bootstrapServers;
     }
 
+    @Option(
+        names = {
+            "--snapshot-directory"
+        },
+        description = "Directory to cache the backend state between executions",
+        required = false
+    )
+    public void setSnapshotDirectory(File snapshotDirectory) {
+        this.snapshotDirectory = snapshotDirectory;
+    }
+    public File getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
+
+    /**
+     * @return The Apache Kafka® configurations plus the backend ones
+     */
+    public Properties getBackendConfiguration() {
+        var configs = new Properties();
+        configs.putAll(getKafkaConfiguration());
+
+        if(Objects.nonNull(getSnapshotDirectory())){
+            configs.put(KafkaBackendConfig.SNAPSHOT_DIRECTORY_CONFIG,
+                getSnapshotDirectory().getAbsolutePath());
+        }
+
+        return configs;
+    }
+
+    /**
+     * @return The backend configurations for a backend that must not write
+     * anything to the cluster
+     */
+    public Properties getReadOnlyBackendConfiguration() {
+        var configs = getBackendConfiguration();
+        configs.put(KafkaBackendConfig.READ_ONLY_CONFIG, Boolean.TRUE.toString());
+
+        return configs;
+    }
+
     public void validateOptions() {
         // .kattlo.yaml now is optional
 
@@ -103,7 +103,7 @@ public class InfoCommand implements Runnable {
         try(var admin = kafka.adminFor(parent
                 .getKafkaConfiguration())){
 
-            backend.init(parent.getKafkaConfiguration());
+            backend.init(parent.getBackendConfiguration());
 
             if(!history){
                 var current = backend.current(resource, name);
@@ -1,5 +1,8 @@
 package com.github.kattlo.core.backend;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.stream.Stream;
@@ -7,7 +10,7 @@ import java.util.stream.Stream;
 /**
  * @author fabiojose
  */
-public interface Backend {
+public interface Backend extends AutoCloseable {
 
     /**
      * To perform initializations before backend usage
@@ -19,13 +22,47 @@ public interface Backend {
      */
     Resource commit(Migration applied);
 
+    /**
+     * Confirms many applied migrations at once, in the given order
+     *
+     * @return The new state after each one of the migrations
+     */
+    List<Resource> commitAll(List<Migration> applied);
+
     /**
      * Fetches the current state of resource
      */
     Optional<Resource> current(ResourceType type, String name);
 
+    /**
+     * Fetches the current state of many resources at once, keyed by name.
+     * Resources without state are absent from the result.
+     */
+    Map<String, Resource> current(ResourceType type, Collection<String> names);
+
+    /**
+     * Fetches the current state of every resource of the type, keyed by name
+     */
+    Map<String, Resource> currentAll(ResourceType type);
+
+    /**
+     * Fetches a position, for each resource, that moves whenever the state
+     * of the resource may have changed, keyed by name. Resources without a
+     * known position are absent from the result.
+     */
+    default Map<String, Long> watermarks(ResourceType type, Collection<String> names) {
+        return Map.of();
+    }
+
     /**
      * Fetches the resource migration history
      */
     Stream<Migration> history(ResourceType type, String name);
+
+    /**
+     * Releases the resources held by the backend
+     */
+    @Override
+    default void close() {
+    }
 }
@@ -64,6 +64,14 @@ public class Migration {
         );
     }
 
+    /**
+     * @return A copy of this migration with another original
+     */
+    public Migration withOriginal(Original original) {
+        return new Migration(version, operation, notes, resourceType,
+            resourceName, timestamp, attributes, original, kattlo);
+    }
+
     public String key() {
         return keyFor(getResourceType(), getResourceName());
     }
@@ -1,5 +1,8 @@
 package com.github.kattlo.core.backend;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
 import java.util.Map;
 
 import io.quarkus.runtime.annotations.RegisterForReflection;
@@ -16,18 +19,49 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class Original {
 
+    private static final String HASH_ALGORITHM = "SHA-256";
+
     private String path;
     private String contentType;
 
-    //base64
+    //base64, absent when the content is stored apart
     private String content;
 
+    //sha-256 of the content, in hex
+    private String hash;
+
     public Map<String, Object> asMap() {
-        return Map.of(
-            "path", path,
-            "contentType", contentType,
-            "content", content
-        );
+        var map = new HashMap<String, Object>();
+        map.put("path", path);
+        map.put("contentType", contentType);
+        map.put("content", content);
+        map.put("hash", hash);
+
+        return map;
+    }
+
+    /**
+     * @return A copy without the content, referencing it by the hash
+     */
+    public Original withoutContent() {
+        return new Original(path, contentType, null, hash);
+    }
+
+    public static String hashOf(byte[] content) {
+        try{
+            var digest = MessageDigest.getInstance(HASH_ALGORITHM)
+                .digest(content);
+
+            var hex = new StringBuilder(digest.length * 2);
+            for(var b : digest){
+                hex.append(String.format("%02x", b));
+            }
+
+            return hex.toString();
+
+        }catch(NoSuchAlgorithmException e){
+            throw new IllegalStateException(e.getMessage(), e);
+        }
     }
 
     public static Original from(Map<String, Object> map) {
@@ -37,6 +71,7 @@ public class Original {
         result.setPath((String)map.get("path"));
         result.setContentType((String)map.get("contentType"));
         result.setContent((String)map.get("content"));
+        result.setHash((String)map.get("hash"));
 
         return result;
     }
@@ -0,0 +1,27 @@
+package com.github.kattlo.core.backend.kafka;
+
+import java.util.Objects;
+
+import io.quarkus.kafka.client.serialization.JsonbSerializer;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Serializes both {@link ResourceCommit} and
+ * {@link com.github.kattlo.core.backend.Migration}, so a single producer
+ * writes the state and the history topics.
+ *
+ * @author fabiojose
+ * @see RecordCodec
+ */
+@RegisterForReflection
+public class BackendRecordSerializer extends JsonbSerializer<Object> {
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if(Objects.isNull(data)){
+            return null;
+        }
+
+        return RecordCodec.encode(data);
+    }
+}
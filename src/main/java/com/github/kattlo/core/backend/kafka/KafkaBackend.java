@@ -1,22 +1,33 @@
 package com.github.kattlo.core.backend.kafka;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
-import java.util.stream.StreamSupport;
 
 import com.github.kattlo.core.backend.Backend;
 import com.github.kattlo.core.backend.BackendException;
 import com.github.kattlo.core.backend.Migration;
 import com.github.kattlo.core.backend.OperationType;
+import com.github.kattlo.core.backend.Original;
 import com.github.kattlo.core.backend.Resource;
 import com.github.kattlo.core.backend.ResourceStatus;
 import com.github.kattlo.core.backend.ResourceType;
@@ -31,11 +42,17 @@ import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.AuthorizationException;
+import org.apache.kafka.common.errors.OutOfOrderSequenceException;
+import org.apache.kafka.common.errors.ProducerFencedException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 
-import io.quarkus.kafka.client.serialization.JsonbDeserializer;
 import io.quarkus.kafka.client.serialization.JsonbSerializer;
 import lombok.extern.slf4j.Slf4j;
 
@@ -47,6 +64,7 @@ public class KafkaBackend implements Backend {
 
     private static final String CLIENT_ID = "kattlo-cli";
     private static final String GROUP_ID = "kattlo-cli";
+    private static final String TRANSACTIONAL_ID = "kattlo-cli";
 
     private static final int MAX_ATTEMP_FOR_EMPTY = 3;
     private static final int MAX_POLL_TIME_MS = 800;
@@ -57,9 +75,28 @@ public class KafkaBackend implements Backend {
     private final TopicResourceJoinner topicJoinner =
         new TopicResourceJoinner();
 
+    // values are read as bytes and deserialized only when the key matches
+    private final ResourceCommitDeserializer commitDeserializer =
+        new ResourceCommitDeserializer();
+
+    private final MigrationDeserializer migrationDeserializer =
+        new MigrationDeserializer();
+
     private KafkaBackendConfig backendConfig;
     private boolean initialized = false;
     private Properties configs;
+    private final Properties options = new Properties();
+
+    private StateSnapshot snapshot;
+
+    private Producer<String, Object> producer;
+
+    // unique per run, so concurrent runs do not fence each other
+    private final String runTransactionalId =
+        TRANSACTIONAL_ID + "-" + UUID.randomUUID();
+
+    // hashes of the originals already stored by this instance
+    private final Set<String> storedOriginals = new HashSet<>();
 
     public KafkaBackend() {
         backendConfig = new KafkaBackendConfig();
@@ -88,14 +125,14 @@ public class KafkaBackend implements Backend {
         producerConfigs.setProperty(ProducerConfig.ACKS_CONFIG, "all");
         producerConfigs.setProperty(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION,
             "1");
-        producerConfigs.setProperty(ProducerConfig.COMPRESSION_TYPE_CONFIG, "gzip");
+        producerConfigs.setProperty(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
 
         producerConfigs.setProperty(ProducerConfig.CLIENT_ID_CONFIG, CLIENT_ID);
 
         return new KafkaProducer<>(producerConfigs);
     }
 
-    static <T, D extends JsonbDeserializer<T>> Consumer<String, T>
+    static <T, D extends Deserializer<T>> Consumer<String, T>
         consumer(Properties configs, Class<D> valueDeserializer) {
 
         log.debug("Will create Kafka Consumer with base configs {}", configs);
@@ -144,17 +181,56 @@ public class KafkaBackend implements Backend {
         }
     }
 
-    @Override
-    @SuppressWarnings("unchecked")
-    public Resource commit(Migration applied) {
-        check();
-        Objects.requireNonNull(applied);
+    private boolean readOnly() {
+        return Boolean.parseBoolean(
+            options.getProperty(KafkaBackendConfig.READ_ONLY_CONFIG));
+    }
+
+    /**
+     * A read-only backend does not create the missing topics, so there is
+     * nothing to read from them
+     */
+    private boolean readable(String topic) {
+        return !readOnly() || backendConfig.exists(topic, configs);
+    }
 
-        var current = current(applied.getResourceType(),
-            applied.getResourceName())
-            .map(Resource::asMap)
-            .orElse(Map.of());
-        log.debug("Current resource state {}", current);
+    /**
+     * @return The configured transactional id or, by default, one of this
+     * run
+     */
+    String transactionalId() {
+        return options.getProperty(KafkaBackendConfig.TRANSACTIONAL_ID_CONFIG,
+            runTransactionalId);
+    }
+
+    /**
+     * The transactional producer, initialized once per backend instance
+     */
+    private Producer<String, Object> producer() {
+        if(Objects.isNull(producer)){
+            var producerConfigs = new Properties();
+            producerConfigs.putAll(configs);
+            producerConfigs.setProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG,
+                transactionalId());
+
+            producer = producer(producerConfigs, BackendRecordSerializer.class);
+            producer.initTransactions();
+        }
+        return producer;
+    }
+
+    private void abort(Producer<String, Object> producer) {
+        try{
+            producer.abortTransaction();
+        }catch(KafkaException e){
+            log.warn("Failing to abort the transaction: {}", e.getMessage());
+            close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResourceCommit commitFor(Map<String, Object> current,
+            Migration applied) {
 
         var stateToCommit = topicJoinner.join(current, applied);
 
@@ -169,104 +245,609 @@ public class KafkaBackend implements Backend {
             stateToCommit.get("attributes"));
         commit.setKattlo(VersionUtil.appVersion());
 
-        var resourceRecord = new ProducerRecord<>(
-            backendConfig.topicsStateTopicName(configs), applied.key(), commit);
+        return commit;
+    }
+
+    /**
+     * @return <code>null</code> when the previous commit has no index, what
+     * happens to resources committed before the index was introduced
+     */
+    private List<Long> historyOf(ResourceCommit previous, long offset) {
+        if(Objects.isNull(previous)){
+            return new ArrayList<>(List.of(offset));
+        }
+
+        if(Objects.isNull(previous.getHistory())){
+            return null;
+        }
+
+        var history = new ArrayList<>(previous.getHistory());
+        history.add(offset);
+
+        return history;
+    }
+
+    private Resource stateOf(Migration applied, ResourceCommit commit) {
+
+        var newState = new Resource();
+        newState.setVersion(applied.getVersion());
+        newState.setStatus(statusFor(applied));
+
+        newState.setResourceType(applied.getResourceType());
+        newState.setResourceName(applied.getResourceName());
+        newState.setTimestamp(applied.getTimestamp());
+        newState.setAttributes(Map.copyOf(commit.getAttributes()));
+
+        return newState;
+    }
+
+    @Override
+    public Resource commit(Migration applied) {
+        Objects.requireNonNull(applied);
+
+        return commitAll(List.of(applied)).get(0);
+    }
+
+    @Override
+    public synchronized List<Resource> commitAll(List<Migration> applied) {
+        check();
+        Objects.requireNonNull(applied);
+
+        if(readOnly()){
+            throw new BackendException("The backend is read-only");
+        }
+
+        // the current commit of every resource, fetched once per type
+        final var latest = new HashMap<String, ResourceCommit>();
+        applied.stream()
+            .collect(Collectors.groupingBy(Migration::getResourceType,
+                Collectors.mapping(Migration::getResourceName,
+                    Collectors.toSet())))
+            .forEach((type, names) -> latest.putAll(commitsOf(type, names)));
+        log.debug("Current resources commits {}", latest);
+
+        final var stateTopic = backendConfig.topicsStateTopicName(configs);
+        final var historyTopic = backendConfig.topicsHistoryTopicName(configs);
+
+        final var commits = new ArrayList<ResourceCommit>();
+        final var producer = producer();
+
+        // state and history of all the migrations within one transaction
+        producer.beginTransaction();
+        try{
+            // history goes first, its offsets are indexed by the state
+            final var historyFutures = new ArrayList<Future<RecordMetadata>>();
+            final var originals = new HashMap<String, Original>();
+            for(var migration : applied){
+                var entry = migration;
+
+                // the content is stored once, the history references it
+                var original = migration.getOriginal();
+                if(Objects.nonNull(original)
+                        && Objects.nonNull(original.getContent())){
+
+                    // computed by the migration, but for the older callers
+                    var hash = Optional.ofNullable(original.getHash())
+                        .orElseGet(() -> Original.hashOf(
+                            Base64.getDecoder().decode(original.getContent())));
+
+                    // a copy, the migration of the caller is left as is
+                    var stored = new Original(original.getPath(),
+                        original.getContentType(), original.getContent(), hash);
+
+                    if(!storedOriginals.contains(hash)){
+                        originals.putIfAbsent(hash, stored);
+                    }
+
+                    entry = migration.withOriginal(stored.withoutContent());
+                }
+
+                historyFutures.add(producer.send(
+                    new ProducerRecord<>(historyTopic, migration.key(), entry)));
+            }
+
+            final var futures = new ArrayList<Future<RecordMetadata>>();
+            for(int i = 0; i < applied.size(); i++){
+                var migration = applied.get(i);
+                var key = migration.key();
 
-        var historyRecord = new ProducerRecord<>(
-            backendConfig.topicsHistoryTopicName(configs), applied.key(), applied);
+                var historyMetadata = historyFutures.get(i).get();
+                log.debug("History entry produced at {}", historyMetadata);
 
-        try(var resourceProducer = producer(configs, ResourceCommitSerializer.class);
-            var historyProducer = producer(configs, MigrationSerializer.class)){
+                // a later migration of the same resource joins the earlier one
+                var previous = latest.get(key);
+                var commit = commitFor(Optional.ofNullable(previous)
+                        .map(Resource::from)
+                        .map(Resource::asMap)
+                        .orElse(Map.of()), migration);
+                commit.setHistory(historyOf(previous, historyMetadata.offset()));
 
-            var resourceFuture = resourceProducer.send(resourceRecord);
-            var resourceMetadada = resourceFuture.get();
-            log.debug("Resource state produced at {}", resourceMetadada);
+                latest.put(key, commit);
+                commits.add(commit);
 
-            var historyFuture = historyProducer.send(historyRecord);
-            var historyMetadata = historyFuture.get();
-            log.debug("History entry produced at {}", historyMetadata);
+                futures.add(producer.send(
+                    new ProducerRecord<>(stateTopic, key, commit)));
+            }
+
+            if(!originals.isEmpty()){
+                final var originalsTopic =
+                    backendConfig.originalsTopicName(configs);
 
-            var newState = new Resource();
-            newState.setVersion(applied.getVersion());
-            newState.setStatus(statusFor(applied));
+                originals.forEach((hash, original) ->
+                    futures.add(producer.send(
+                        new ProducerRecord<>(originalsTopic, hash, original))));
+            }
 
-            newState.setResourceType(applied.getResourceType());
-            newState.setResourceName(applied.getResourceName());
-            newState.setTimestamp(applied.getTimestamp());
-            newState.setAttributes(Map.copyOf(commit.getAttributes()));
+            for(var future : futures){
+                var metadata = future.get();
+                log.debug("Record produced at {}", metadata);
+            }
+
+            producer.commitTransaction();
+            storedOriginals.addAll(originals.keySet());
+            log.debug("Transaction committed with {} migrations", applied.size());
+
+        }catch(ProducerFencedException | OutOfOrderSequenceException
+                | AuthorizationException e){
+            // the producer can not be used anymore
+            close();
+            throw new BackendException(e.getMessage(), e);
 
-            return newState;
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            abort(producer);
+            throw new BackendException(e.getMessage(), e);
 
-        }catch(InterruptedException | ExecutionException e){
+        }catch(ExecutionException | KafkaException e){
+            abort(producer);
             throw new BackendException(e.getMessage(), e);
         }
+
+        final var result = new ArrayList<Resource>();
+        for(int i = 0; i < applied.size(); i++){
+            var migration = applied.get(i);
+            var commit = commits.get(i);
+
+            if(Objects.nonNull(snapshot)){
+                snapshot.apply(migration.key(), commit);
+            }
+
+            result.add(stateOf(migration, commit));
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized void close() {
+        if(Objects.nonNull(producer)){
+            producer.close();
+            producer = null;
+        }
+        backendConfig.close();
     }
 
-    private Optional<ResourceCommit> commitOf(ResourceType type, String name) {
+    /**
+     * Reads the assigned partitions until the consumer position reaches the
+     * end offsets fetched before the first poll. The empty polls are just a
+     * guard against a partition that never reaches its end offset.
+     */
+    private <T> void readToEnd(Consumer<String, T> consumer,
+            Collection<TopicPartition> partitions,
+            java.util.function.Consumer<ConsumerRecord<String, T>> action) {
+
+        readToEnd(consumer, partitions, consumer.endOffsets(partitions), action);
+    }
+
+    private <T> void readToEnd(Consumer<String, T> consumer,
+            Collection<TopicPartition> partitions,
+            Map<TopicPartition, Long> endOffsets,
+            java.util.function.Consumer<ConsumerRecord<String, T>> action) {
+
+        log.debug("End offsets to reach {}", endOffsets);
+
+        var pending = new HashSet<>(partitions);
+        int attempsForEmpty = 0;
+        while(Boolean.TRUE){
+
+            pending.removeIf(tp ->
+                consumer.position(tp) >= endOffsets.getOrDefault(tp, 0L));
+
+            if(pending.isEmpty()){
+                log.debug("End offsets reached {}", endOffsets);
+                break;
+            }
+
+            var records = consumer.poll(Duration.ofMillis(MAX_POLL_TIME_MS));
+            if(!records.isEmpty()){
+                attempsForEmpty = 0;
+                records.forEach(action);
+
+            } else {
+                if(attempsForEmpty < MAX_ATTEMP_FOR_EMPTY){
+                    attempsForEmpty++;
+                    log.debug("Attemp for empty # {}", attempsForEmpty);
+
+                } else {
+                    log.warn("Giving up before reach the end offsets of {}", pending);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Seeks straight to each one of the offsets, in ascending order. The
+     * records fetched together with a wanted one are used when they are
+     * wanted too.
+     */
+    private <T> void readAt(Consumer<String, T> consumer, TopicPartition tp,
+            Collection<Long> offsets,
+            java.util.function.Consumer<ConsumerRecord<String, T>> action) {
+
+        var pending = new TreeSet<>(offsets);
+        long position = -1;
+        int attempsForEmpty = 0;
+        while(!pending.isEmpty()){
+
+            var next = pending.first();
+            if(position != next){
+                consumer.seek(tp, next);
+                position = next;
+            }
+
+            var records = consumer.poll(Duration.ofMillis(MAX_POLL_TIME_MS))
+                .records(tp);
+
+            if(!records.isEmpty()){
+                attempsForEmpty = 0;
+                for(var record : records){
+                    position = record.offset() + 1;
+                    if(pending.remove(record.offset())){
+                        action.accept(record);
+                    }
+                }
+
+                // offsets skipped by the fetch do not exist anymore
+                pending.headSet(position).clear();
+
+            } else {
+                if(attempsForEmpty < MAX_ATTEMP_FOR_EMPTY){
+                    attempsForEmpty++;
+                    log.debug("Attemp for empty # {}", attempsForEmpty);
+
+                } else {
+                    log.warn("Giving up before reach the offsets {} of {}",
+                        pending, tp);
+                    break;
+                }
+            }
+        }
+    }
+
+    private Optional<Path> snapshotDirectory() {
+        return Optional.ofNullable(
+            options.getProperty(KafkaBackendConfig.SNAPSHOT_DIRECTORY_CONFIG))
+                .map(Path::of);
+    }
+
+    /**
+     * A record compacted away since the snapshot was taken can not be
+     * compared, so it invalidates the snapshot too
+     *
+     * @return <code>false</code> when the record before the offset of any
+     * partition is not the one consumed when the snapshot was taken
+     */
+    private <T> boolean sameLog(Consumer<String, T> consumer,
+            StateSnapshot snapshot) {
+
+        return snapshot.getOffsets().entrySet().stream()
+            .filter(kv -> kv.getValue() > 0)
+            .allMatch(kv -> {
+                var partition = Integer.parseInt(kv.getKey());
+                var expected = snapshot.fingerprintOf(partition);
+
+                var actual = new ArrayList<StateSnapshot.Fingerprint>();
+                expected.ifPresent(fingerprint ->
+                    readAt(consumer, new TopicPartition(snapshot.getTopic(), partition),
+                        List.of(kv.getValue() - 1),
+                        record -> actual.add(StateSnapshot.Fingerprint.of(record))));
+
+                return expected.isPresent() && actual.contains(expected.get());
+            });
+    }
+
+    /**
+     * Resumes the snapshot from its offsets, applying only the new records
+     *
+     * @return <code>true</code> when the snapshot changed
+     */
+    private boolean catchUp(StateSnapshot snapshot) {
+
+        try(var consumer = consumer(configs, ByteArrayDeserializer.class)){
+            var tps = IntStream.range(0, PARTITIONER.partitions())
+                .mapToObj(partition ->
+                    new TopicPartition(snapshot.getTopic(), partition))
+                .collect(Collectors.toList());
+
+            consumer.assign(tps);
+
+            var beginningOffsets = consumer.beginningOffsets(tps);
+            var endOffsets = consumer.endOffsets(tps);
+
+            var changed = false;
+            if(!snapshot.validFor(beginningOffsets, endOffsets)
+                    || !sameLog(consumer, snapshot)){
+                log.info("The snapshot was invalidated because {} was recreated or truncated",
+                    snapshot.getTopic());
+                snapshot.reset();
+                changed = true;
+            }
+
+            tps.forEach(tp ->
+                snapshot.offsetOf(tp.partition())
+                    .ifPresentOrElse(offset -> consumer.seek(tp, offset),
+                        () -> consumer.seekToBeginning(List.of(tp))));
+
+            // the latest record of each key, null for tombstones
+            final var latest = new HashMap<String, byte[]>();
+            final var last = new HashMap<Integer, StateSnapshot.Fingerprint>();
+            readToEnd(consumer, tps, endOffsets, record -> {
+                if(Objects.nonNull(record.key())){
+                    latest.put(record.key(), record.value());
+                }
+                last.put(record.partition(), StateSnapshot.Fingerprint.of(record));
+            });
+
+            latest.forEach((key, value) ->
+                snapshot.apply(key, commitOf(snapshot.getTopic(), value)));
+
+            last.forEach(snapshot::fingerprint);
+            tps.forEach(tp ->
+                snapshot.position(tp.partition(), consumer.position(tp)));
+
+            return changed || !last.isEmpty();
+        }
+    }
+
+    /**
+     * Loaded once per backend instance and, after that, caught up to the
+     * current end offsets each time it is read, because other runs, like
+     * the ones of a reconcile loop, keep committing
+     */
+    private synchronized StateSnapshot snapshot(Path directory) {
+
+        if(Objects.nonNull(snapshot)){
+            if(catchUp(snapshot)){
+                snapshot.save(StateSnapshot.fileFor(directory,
+                    snapshot.getClusterId()));
+            }
+
+        } else {
+            var topic = backendConfig.topicsStateTopicName(configs);
+            var clusterId = backendConfig.clusterId(configs);
+            var file = StateSnapshot.fileFor(directory, clusterId);
+
+            var loaded = StateSnapshot.load(file)
+                .filter(s -> topic.equals(s.getTopic()))
+                .orElseGet(() -> new StateSnapshot(clusterId, topic));
+            log.debug("Snapshot loaded from {} with offsets {}", file,
+                loaded.getOffsets());
+
+            catchUp(loaded);
+            loaded.save(file);
+
+            snapshot = loaded;
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Reads each one of the state partitions once, keeping the latest commit
+     * of every wanted key
+     */
+    private Map<String, ResourceCommit> commitsOf(Collection<Integer> partitions,
+            Predicate<String> wanted) {
         check();
+
+        final var result = new HashMap<String, ResourceCommit>();
+        if(partitions.isEmpty()){
+            return result;
+        }
+
+        if(!readable(KafkaBackendConfig.TOPIC_T_STATE)){
+            log.debug("There is no state to read yet");
+            return result;
+        }
+
+        var snapshotDirectory = snapshotDirectory();
+        if(snapshotDirectory.isPresent()){
+            snapshot(snapshotDirectory.get()).getCommits().entrySet().stream()
+                .filter(kv -> wanted.test(kv.getKey()))
+                .forEach(kv -> result.put(kv.getKey(), kv.getValue()));
+
+            return result;
+        }
+
+        try(var consumer = consumer(configs, ByteArrayDeserializer.class)){
+            var topic = backendConfig.topicsStateTopicName(configs);
+            var tps = partitions.stream()
+                .distinct()
+                .map(partition -> new TopicPartition(topic, partition))
+                .collect(Collectors.toList());
+
+            consumer.assign(tps);
+            log.debug("Consumer assigned to {}", consumer.assignment());
+
+            consumer.seekToBeginning(tps);
+
+            // the latest record wins, a tombstone means no state at all
+            final var latest = new HashMap<String, byte[]>();
+            readToEnd(consumer, tps, record -> {
+                if(Objects.nonNull(record.key()) && wanted.test(record.key())){
+                    log.debug("Found record {}", record);
+
+                    if(Objects.nonNull(record.value())){
+                        latest.put(record.key(), record.value());
+                    } else {
+                        latest.remove(record.key());
+                    }
+                }
+            });
+
+            latest.forEach((key, value) ->
+                result.put(key, commitOf(topic, value)));
+        }
+
+        return result;
+    }
+
+    private ResourceCommit commitOf(String topic, byte[] value) {
+        return Objects.isNull(value)
+            ? null
+            : commitDeserializer.deserialize(topic, value);
+    }
+
+    private Optional<ResourceCommit> commitOf(ResourceType type, String name) {
         Objects.requireNonNull(type);
         Objects.requireNonNull(name);
 
-        Optional<ResourceCommit> result = Optional.empty();
         log.debug("Searching the state for {}, named as {}", type, name);
 
         var partition = PARTITIONER.partition(type, name);
         log.debug("Partition to seek for the current state of {}-{}: {}",
             type, name, partition);
 
-        try(var consumer = consumer(configs, ResourceCommitDeserializer.class)){
-            var tp = Collections.singletonList(
-                new TopicPartition(
-                    backendConfig.topicsStateTopicName(configs), partition));
+        final var key = Migration.keyFor(type, name);
+        var result = Optional.ofNullable(
+            commitsOf(List.of(partition), key::equals).get(key));
 
-            consumer.assign(tp);
-            log.debug("Consumer assigned to {}", consumer.assignment());
+        log.debug("Current state {}", result);
+        return result;
+    }
 
-            consumer.seekToBeginning(tp);
+    private Map<String, Resource> byName(Map<String, ResourceCommit> commits) {
+        return commits.values().stream()
+            .collect(Collectors.toMap(ResourceCommit::getResourceName,
+                Resource::from));
+    }
 
-            final var key = Migration.keyFor(type, name);
+    @Override
+    public Optional<Resource> current(ResourceType type, String name) {
+
+        return commitOf(type, name)
+                    .map(Resource::from);
 
-            int attempsForEmpty = 0;
-            while(Boolean.TRUE){
+    }
 
-                var records = consumer.poll(Duration.ofMillis(MAX_POLL_TIME_MS));
-                if(!records.isEmpty()){
+    private Map<String, ResourceCommit> commitsOf(ResourceType type,
+            Collection<String> names) {
 
-                    result = StreamSupport.stream(records.spliterator(), false)
-                        .filter(r -> key.equals(r.key()))
-                        .peek(r -> log.debug("Found record {}", r))
-                        .map(ConsumerRecord::value)
-                        .filter(Objects::nonNull)
-                        .peek(r -> log.debug("Current resource commit {}", r))
-                        .findFirst();
+        var keys = names.stream()
+            .map(name -> Migration.keyFor(type, name))
+            .collect(Collectors.toSet());
 
-                    log.trace("Try do commit the higher offsets ...");
-                    consumer.commitSync(Duration.ofSeconds(10));
-                    log.trace("Offsets committed.");
+        var partitions = names.stream()
+            .map(name -> PARTITIONER.partition(type, name))
+            .collect(Collectors.toSet());
 
-                } else {
-                    if(attempsForEmpty < MAX_ATTEMP_FOR_EMPTY){
-                        attempsForEmpty++;
-                        log.debug("Attemp for empty # {}", attempsForEmpty);
+        log.debug("Partitions to seek for the current state of {} {}: {}",
+            names.size(), type, partitions);
 
-                    } else {
-                        log.debug("Current state {}", result);
+        return commitsOf(partitions, keys::contains);
+    }
 
-                        break;
-                    }
-                }
-            }
+    @Override
+    public Map<String, Resource> current(ResourceType type, Collection<String> names) {
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(names);
+
+        return byName(commitsOf(type, names));
+    }
+
+    /**
+     * The end offset of the state partition of each resource, all of them
+     * fetched in one request
+     */
+    @Override
+    public Map<String, Long> watermarks(ResourceType type, Collection<String> names) {
+        check();
+        Objects.requireNonNull(type);
+        Objects.requireNonNull(names);
+
+        final var result = new HashMap<String, Long>();
+        if(names.isEmpty() || !readable(KafkaBackendConfig.TOPIC_T_STATE)){
+            return result;
+        }
+
+        try(var consumer = consumer(configs, ByteArrayDeserializer.class)){
+            var topic = backendConfig.topicsStateTopicName(configs);
+
+            var partitions = names.stream()
+                .collect(Collectors.toMap(name -> name,
+                    name -> new TopicPartition(topic,
+                        PARTITIONER.partition(type, name))));
+
+            var endOffsets = consumer.endOffsets(Set.copyOf(partitions.values()));
+            log.debug("Watermarks of the state {}", endOffsets);
+
+            partitions.forEach((name, tp) ->
+                Optional.ofNullable(endOffsets.get(tp))
+                    .ifPresent(offset -> result.put(name, offset)));
         }
 
         return result;
     }
 
     @Override
-    public Optional<Resource> current(ResourceType type, String name) {
+    public Map<String, Resource> currentAll(ResourceType type) {
+        Objects.requireNonNull(type);
 
-        return commitOf(type, name)
-                    .map(Resource::from);
+        final var prefix = Migration.keyFor(type, "");
+        var partitions = IntStream.range(0, PARTITIONER.partitions())
+            .boxed()
+            .collect(Collectors.toList());
 
+        return byName(commitsOf(partitions, key -> key.startsWith(prefix)));
+    }
+
+    /**
+     * Reads the partitions of the originals once, keeping the stored
+     * original of every wanted hash
+     */
+    private Map<String, Original> originalsOf(Set<String> hashes) {
+
+        final var result = new HashMap<String, Original>();
+        if(hashes.isEmpty()){
+            return result;
+        }
+
+        if(!readable(KafkaBackendConfig.TOPIC_T_ORIGINALS)){
+            log.debug("There are no originals to read yet");
+            return result;
+        }
+
+        try(var consumer = consumer(configs, ByteArrayDeserializer.class)){
+            var topic = backendConfig.originalsTopicName(configs);
+            var tps = hashes.stream()
+                .map(PARTITIONER::partition)
+                .distinct()
+                .map(partition -> new TopicPartition(topic, partition))
+                .collect(Collectors.toList());
+
+            consumer.assign(tps);
+            consumer.seekToBeginning(tps);
+
+            readToEnd(consumer, tps, record -> {
+                if(hashes.contains(record.key()) && Objects.nonNull(record.value())){
+                    result.put(record.key(), RecordCodec.decodeOriginal(record.value()));
+                }
+            });
+        }
+
+        log.debug("Originals found for {} of {} hashes", result.size(), hashes.size());
+        return result;
     }
 
     @Override
@@ -278,66 +859,87 @@ public class KafkaBackend implements Backend {
         List<Migration> result = new ArrayList<>();
         log.debug("Searching the state for {}, named as {}", type, name);
 
+        if(!readable(KafkaBackendConfig.TOPIC_T_HISTORY)){
+            log.debug("There is no history to read yet");
+            return result.stream();
+        }
+
         var partition = PARTITIONER.partition(type, name);
         log.debug("Partition to seek for the history of {}-{}: {}",
             type, name, partition);
 
-        try(var consumer = consumer(configs, MigrationDeserializer.class)){
+        // offsets of the history entries, indexed by the state
+        var index = commitOf(type, name)
+            .map(ResourceCommit::getHistory);
+        log.debug("History index of {}-{}: {}", type, name, index);
+
+        try(var consumer = consumer(configs, ByteArrayDeserializer.class)){
+            var topic = backendConfig.topicsHistoryTopicName(configs);
             var tp = Collections.singletonList(
-                new TopicPartition(backendConfig
-                    .topicsHistoryTopicName(configs), partition));
+                new TopicPartition(topic, partition));
 
             consumer.assign(tp);
             log.debug("Consumer assigned to {}", consumer.assignment());
 
-            consumer.seekToBeginning(tp);
-
             final var key = Migration.keyFor(type, name);
+            java.util.function.Consumer<ConsumerRecord<String, byte[]>> action =
+                record -> {
+                    if(key.equals(record.key()) && Objects.nonNull(record.value())){
+                        var entry = migrationDeserializer.deserialize(topic,
+                            record.value());
+
+                        log.debug("History entry {}", entry);
+                        result.add(entry);
+                    }
+                };
 
-            int attempsForEmpty = 0;
-            while(Boolean.TRUE){
-
-                var records = consumer.poll(Duration.ofMillis(MAX_POLL_TIME_MS));
-                if(!records.isEmpty()){
-
-                    result.addAll(
-                      StreamSupport.stream(records.spliterator(), false)
-                        .filter(r -> key.equals(r.key()))
-                        .peek(r -> log.debug("Found history record {}", r))
-                        .map(ConsumerRecord::value)
-                        .filter(Objects::nonNull)
-                        .peek(r -> log.debug("History entry {}", r))
-                        .collect(Collectors.toList())
-                    );
-
-                    log.trace("Try do commit the higher processed offsets ...");
-                    consumer.commitSync(Duration.ofSeconds(10));
-                    log.trace("Offsets committed.");
-
-                } else {
-                    if(attempsForEmpty < MAX_ATTEMP_FOR_EMPTY){
-                        attempsForEmpty++;
-                        log.debug("Attemp for empty # {}", attempsForEmpty);
-                    } else {
+            if(index.isPresent()){
+                readAt(consumer, tp.get(0), index.get(), action);
 
-                        if(result.isEmpty()){
-                            log.debug("History does not exists for {}-{}", type, name);
-                        }
+            } else {
+                // not indexed, the whole partition must be scanned
+                consumer.seekToBeginning(tp);
+                readToEnd(consumer, tp, action);
+            }
 
-                        break;
-                    }
-                }
+            if(result.isEmpty()){
+                log.debug("History does not exists for {}-{}", type, name);
             }
         }
 
-        return result.stream();
+        // the content stored apart is fetched once per hash
+        final var originals = originalsOf(result.stream()
+            .map(Migration::getOriginal)
+            .filter(Objects::nonNull)
+            .filter(original -> Objects.isNull(original.getContent()))
+            .map(Original::getHash)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toSet()));
+
+        return result.stream()
+            .map(entry -> Optional.ofNullable(entry.getOriginal())
+                .filter(original -> Objects.isNull(original.getContent()))
+                .filter(original -> Objects.nonNull(original.getHash()))
+                .flatMap(original -> Optional.ofNullable(originals.get(original.getHash()))
+                    .map(stored -> entry.withOriginal(new Original(
+                        original.getPath(), original.getContentType(),
+                        stored.getContent(), original.getHash()))))
+                .orElse(entry));
 
     }
 
     @Override
     public void init(Properties properties) {
         Objects.requireNonNull(properties);
-        this.configs.putAll(properties);
+
+        properties.forEach((key, value) -> {
+            if(key.toString().startsWith(KafkaBackendConfig.BACKEND_CONFIG_PREFIX)){
+                this.options.put(key, value);
+            } else {
+                this.configs.put(key, value);
+            }
+        });
+
         this.initialized = true;
         log.debug("Backend initialized with configs {}", this.configs);
     }
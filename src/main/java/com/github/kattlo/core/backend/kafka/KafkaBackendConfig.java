@@ -1,11 +1,13 @@
 package com.github.kattlo.core.backend.kafka;
 
 import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.ExecutionException;
 
+import com.github.kattlo.core.backend.BackendException;
 import com.github.kattlo.core.backend.OperationType;
 import com.github.kattlo.core.exception.TopicDescriptionException;
 import com.github.kattlo.core.kafka.Kafka;
@@ -27,6 +29,33 @@ public class KafkaBackendConfig {
     private static final String INITIAL_NOTES = "Kattlo topic to manage topics migrations";
     private static final String NO_FILE = ".";
 
+    /**
+     * Prefix of the configurations that belong to the backend itself and
+     * must not reach the Kafka clients
+     */
+    public static final String BACKEND_CONFIG_PREFIX = "kattlo.backend.";
+
+    /**
+     * Directory to keep the local snapshot of the topics state. When absent
+     * the snapshot is disabled.
+     */
+    public static final String SNAPSHOT_DIRECTORY_CONFIG =
+        BACKEND_CONFIG_PREFIX + "snapshot.directory";
+
+    /**
+     * Transactional id of the backend producer. When absent each run gets
+     * its own, <code>kattlo-cli-&lt;uuid&gt;</code>
+     */
+    public static final String TRANSACTIONAL_ID_CONFIG =
+        BACKEND_CONFIG_PREFIX + "transactional.id";
+
+    /**
+     * When <code>true</code> the backend never creates its topics nor
+     * commits migrations
+     */
+    public static final String READ_ONLY_CONFIG =
+        BACKEND_CONFIG_PREFIX + "read.only";
+
     static final Integer TOPIC_T_DEFAULT_REPLICATION_FACTOR = 1;
     static final Integer TOPIC_T_DESIRED_REPLICATION_FACTOR = 2;
     static final Integer TOPIC_T_PARTITIONS = 50;
@@ -55,12 +84,41 @@ public class KafkaBackendConfig {
         "segment.bytes", "104857600"
     );
 
+    static final String TOPIC_T_ORIGINALS = "__kattlo-originals";
+    static final Map<String, Object> TOPIC_T_ORIGINALS_CONFIG = Map.of(
+        "cleanup.policy", "compact",
+        "max.message.bytes", "1048588",
+        "message.timestamp.type", "CreateTime",
+        "min.compaction.lag.ms", "0",
+        "retention.bytes", "-1",
+        "segment.bytes", "104857600"
+    );
+
     private Kafka kafka;
 
+    /**
+     * Shared by every lookup, closed by {@link #close()}
+     */
+    private AdminClient admin;
+
+    /**
+     * Resolved topic names, keyed by the wanted name
+     */
+    private final Map<String, String> topics = new HashMap<>();
+
+    private String clusterId;
+
     public KafkaBackendConfig(){
         kafka = new Kafka();
     }
 
+    private synchronized AdminClient adminFor(Properties adminConfigs) {
+        if(Objects.isNull(admin)){
+            admin = kafka.adminFor(adminConfigs);
+        }
+        return admin;
+    }
+
     Integer replicationFactor(AdminClient admin)
             throws InterruptedException, ExecutionException {
 
@@ -76,7 +134,10 @@ public class KafkaBackendConfig {
         return TOPIC_T_DEFAULT_REPLICATION_FACTOR;
     }
 
-    String topicFor(final String name, Integer partitions,
+    /**
+     * Resolves, or creates when not found, the topic just once per instance
+     */
+    synchronized String topicFor(final String name, Integer partitions,
             Map<String, Object> config, Properties adminConfigs) {
 
         Objects.requireNonNull(name, "Provide a not null topic name");
@@ -84,7 +145,45 @@ public class KafkaBackendConfig {
         Objects.requireNonNull(config, "Provide a not null config map");
         Objects.requireNonNull(adminConfigs, "Provider a not null configs for AdminClient");
 
-        var admin = kafka.adminFor(adminConfigs);
+        var resolved = topics.get(name);
+        if(Objects.isNull(resolved)){
+            resolved = resolve(name, partitions, config, adminConfigs);
+            topics.put(name, resolved);
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Resolves the topic without creating it
+     *
+     * @throws TopicDescriptionException When the topic can not be described
+     */
+    synchronized boolean exists(final String name, Properties adminConfigs) {
+        Objects.requireNonNull(name, "Provide a not null topic name");
+        Objects.requireNonNull(adminConfigs, "Provider a not null configs for AdminClient");
+
+        if(topics.containsKey(name)){
+            return true;
+        }
+
+        try {
+            var found = TopicUtils.describe(name, adminFor(adminConfigs));
+            found.ifPresent(description ->
+                topics.put(name, description.name()));
+
+            log.debug("Topic {} exists? {}", name, found.isPresent());
+            return found.isPresent();
+
+        }catch(InterruptedException | ExecutionException e){
+            throw new TopicDescriptionException(e.getMessage(), e);
+        }
+    }
+
+    private String resolve(final String name, Integer partitions,
+            Map<String, Object> config, Properties adminConfigs) {
+
+        var admin = adminFor(adminConfigs);
 
         try {
             var found = TopicUtils.describe(name, admin);
@@ -121,6 +220,26 @@ public class KafkaBackendConfig {
         return name;
     }
 
+    /**
+     * @throws BackendException When the cluster can not be described
+     */
+    public synchronized String clusterId(Properties adminConfigs) {
+        Objects.requireNonNull(adminConfigs, "Provider a not null configs for AdminClient");
+
+        if(Objects.isNull(clusterId)){
+            try{
+                clusterId = adminFor(adminConfigs).describeCluster()
+                    .clusterId().get();
+                log.debug("Cluster id {}", clusterId);
+
+            }catch(InterruptedException | ExecutionException e){
+                throw new BackendException(e.getMessage(), e);
+            }
+        }
+
+        return clusterId;
+    }
+
     public String topicsStateTopicName(Properties adminConfigs) {
         return topicFor(TOPIC_T_STATE, TOPIC_T_PARTITIONS,
             TOPIC_T_STATE_CONFIG, adminConfigs);
@@ -130,4 +249,20 @@ public class KafkaBackendConfig {
         return topicFor(TOPIC_T_HISTORY, TOPIC_T_PARTITIONS,
             TOPIC_T_HISTORY_CONFIG, adminConfigs);
     }
+
+    public String originalsTopicName(Properties adminConfigs) {
+        return topicFor(TOPIC_T_ORIGINALS, TOPIC_T_PARTITIONS,
+            TOPIC_T_ORIGINALS_CONFIG, adminConfigs);
+    }
+
+    /**
+     * Closes the shared admin client and forgets the resolved topics
+     */
+    public synchronized void close() {
+        if(Objects.nonNull(admin)){
+            admin.close();
+            admin = null;
+        }
+        topics.clear();
+    }
 }
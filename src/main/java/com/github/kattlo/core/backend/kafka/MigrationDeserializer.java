@@ -19,4 +19,16 @@ public class MigrationDeserializer extends JsonbDeserializer<Migration> {
         super(type);
     }
 
+    /**
+     * Reads the binary records and the JSON ones, written before the
+     * binary format
+     */
+    @Override
+    public Migration deserialize(String topic, byte[] data) {
+        if(RecordCodec.isBinary(data)){
+            return RecordCodec.decodeMigration(data);
+        }
+
+        return super.deserialize(topic, data);
+    }
 }
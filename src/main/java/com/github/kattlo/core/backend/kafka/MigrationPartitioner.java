@@ -2,6 +2,7 @@ package com.github.kattlo.core.backend.kafka;
 
 import static java.util.Objects.requireNonNull;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 import com.github.kattlo.core.backend.ResourceType;
@@ -42,6 +43,24 @@ public class MigrationPartitioner implements Partitioner {
         return Utils.toPositive(Utils.murmur2(keyBytes)) % PARTITIONS;
     }
 
+    /**
+     * The number of partitions of the backend topics
+     */
+    public int partitions() {
+        return PARTITIONS;
+    }
+
+    /**
+     * The partition of a plain key, like the hash of an original
+     */
+    public int partition(String key) {
+        requireNonNull(key);
+
+        return partition(KafkaBackendConfig.TOPIC_T_ORIGINALS, key,
+            key.getBytes(StandardCharsets.UTF_8), NO_VALUE, NO_VALUE_BYTES,
+            NO_CLUSTER);
+    }
+
     public int partition(ResourceType type, String name) {
         final var key = requireNonNull(type.name()) + "_" + requireNonNull(name);
         log.debug("Partition for key {}", key);
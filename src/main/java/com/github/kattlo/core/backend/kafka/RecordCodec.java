@@ -0,0 +1,444 @@
+package com.github.kattlo.core.backend.kafka;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.github.kattlo.core.backend.Migration;
+import com.github.kattlo.core.backend.OperationType;
+import com.github.kattlo.core.backend.Original;
+import com.github.kattlo.core.backend.ResourceType;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+/**
+ * Binary format of the backend records:
+ *
+ * <pre>
+ * magic (1 byte) | version (1 byte) | record type (1 byte) | fields
+ * </pre>
+ *
+ * Strings, maps and lists are length-prefixed. Records that do not start
+ * with the magic byte were written as JSON, the previous format. The
+ * version 2 added the hash of the originals and the original records.
+ *
+ * @author fabiojose
+ */
+public final class RecordCodec {
+
+    /**
+     * Never the first byte of a JSON object
+     */
+    static final byte MAGIC = (byte)0xB7;
+    static final byte VERSION = 2;
+    static final byte VERSION_WITHOUT_HASH = 1;
+
+    static final byte RESOURCE_COMMIT = 1;
+    static final byte MIGRATION = 2;
+    static final byte ORIGINAL = 3;
+
+    private static final int NULL_LENGTH = -1;
+
+    private static final byte T_NULL = 0;
+    private static final byte T_STRING = 1;
+    private static final byte T_MAP = 2;
+    private static final byte T_LIST = 3;
+    private static final byte T_INT = 4;
+    private static final byte T_LONG = 5;
+    private static final byte T_DOUBLE = 6;
+    private static final byte T_BOOLEAN = 7;
+    private static final byte T_DECIMAL = 8;
+
+    private RecordCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return Objects.nonNull(data) && data.length > 0 && data[0] == MAGIC;
+    }
+
+    /**
+     * @throws SerializationException When the value is not a
+     * {@link ResourceCommit}, a {@link Migration} or an {@link Original}
+     */
+    public static byte[] encode(Object value) {
+
+        var bytes = new ByteArrayOutputStream();
+        try(var out = new DataOutputStream(bytes)){
+            out.writeByte(MAGIC);
+            out.writeByte(VERSION);
+
+            if(value instanceof ResourceCommit){
+                out.writeByte(RESOURCE_COMMIT);
+                write(out, (ResourceCommit)value);
+
+            } else if(value instanceof Migration){
+                out.writeByte(MIGRATION);
+                write(out, (Migration)value);
+
+            } else if(value instanceof Original){
+                out.writeByte(ORIGINAL);
+                write(out, (Original)value);
+
+            } else {
+                throw new SerializationException("Unsupported record value "
+                    + (Objects.isNull(value) ? null : value.getClass()));
+            }
+
+        }catch(IOException e){
+            throw new SerializationException(e.getMessage(), e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    public static ResourceCommit decodeCommit(byte[] data) {
+        try(var in = open(data, RESOURCE_COMMIT)){
+            var commit = new ResourceCommit();
+
+            commit.setVersion(readString(in));
+            commit.setOperation(readEnum(in, OperationType.class));
+            commit.setNotes(readString(in));
+            commit.setResourceType(readEnum(in, ResourceType.class));
+            commit.setResourceName(readString(in));
+            commit.setTimestamp(readTimestamp(in));
+            commit.setAttributes(readMap(in));
+            commit.setKattlo(readString(in));
+            commit.setHistory(readOffsets(in));
+
+            return commit;
+
+        }catch(IOException e){
+            throw new SerializationException(e.getMessage(), e);
+        }
+    }
+
+    public static Migration decodeMigration(byte[] data) {
+        try(var in = open(data, MIGRATION)){
+            var migration = new Migration();
+
+            // the setters do not accept null
+            set(readString(in), migration::setVersion);
+            set(readEnum(in, OperationType.class), migration::setOperation);
+            migration.setNotes(readString(in));
+            set(readEnum(in, ResourceType.class), migration::setResourceType);
+            set(readString(in), migration::setResourceName);
+            set(readTimestamp(in), migration::setTimestamp);
+            set(readMap(in), migration::setAttributes);
+
+            if(in.readBoolean()){
+                migration.setOriginal(readOriginal(in, version(data)));
+            }
+
+            set(readString(in), migration::setKattlo);
+
+            return migration;
+
+        }catch(IOException e){
+            throw new SerializationException(e.getMessage(), e);
+        }
+    }
+
+    public static Original decodeOriginal(byte[] data) {
+        try(var in = open(data, ORIGINAL)){
+            return readOriginal(in, version(data));
+
+        }catch(IOException e){
+            throw new SerializationException(e.getMessage(), e);
+        }
+    }
+
+    private static byte version(byte[] data) {
+        return data[1];
+    }
+
+    private static <T> void set(T value, java.util.function.Consumer<T> setter) {
+        if(Objects.nonNull(value)){
+            setter.accept(value);
+        }
+    }
+
+    private static DataInputStream open(byte[] data, byte type) throws IOException {
+        var in = new DataInputStream(new ByteArrayInputStream(data));
+
+        if(in.readByte() != MAGIC){
+            throw new SerializationException("Not a binary record");
+        }
+
+        var version = in.readByte();
+        if(version != VERSION && version != VERSION_WITHOUT_HASH){
+            throw new SerializationException("Unsupported record version " + version);
+        }
+
+        var actual = in.readByte();
+        if(actual != type){
+            throw new SerializationException("Unexpected record type " + actual);
+        }
+
+        return in;
+    }
+
+    private static void write(DataOutputStream out, ResourceCommit commit)
+            throws IOException {
+
+        writeString(out, commit.getVersion());
+        writeEnum(out, commit.getOperation());
+        writeString(out, commit.getNotes());
+        writeEnum(out, commit.getResourceType());
+        writeString(out, commit.getResourceName());
+        writeTimestamp(out, commit.getTimestamp());
+        writeMap(out, commit.getAttributes());
+        writeString(out, commit.getKattlo());
+        writeOffsets(out, commit.getHistory());
+    }
+
+    private static void write(DataOutputStream out, Migration migration)
+            throws IOException {
+
+        writeString(out, migration.getVersion());
+        writeEnum(out, migration.getOperation());
+        writeString(out, migration.getNotes());
+        writeEnum(out, migration.getResourceType());
+        writeString(out, migration.getResourceName());
+        writeTimestamp(out, migration.getTimestamp());
+        writeMap(out, migration.getAttributes());
+
+        var original = migration.getOriginal();
+        out.writeBoolean(Objects.nonNull(original));
+        if(Objects.nonNull(original)){
+            write(out, original);
+        }
+
+        writeString(out, migration.getKattlo());
+    }
+
+    private static void write(DataOutputStream out, Original original)
+            throws IOException {
+
+        writeString(out, original.getPath());
+        writeString(out, original.getContentType());
+        writeString(out, original.getContent());
+        writeString(out, original.getHash());
+    }
+
+    private static Original readOriginal(DataInputStream in, byte version)
+            throws IOException {
+
+        var original = new Original();
+        original.setPath(readString(in));
+        original.setContentType(readString(in));
+        original.setContent(readString(in));
+
+        if(version != VERSION_WITHOUT_HASH){
+            original.setHash(readString(in));
+        }
+
+        return original;
+    }
+
+    private static void writeString(DataOutputStream out, String value)
+            throws IOException {
+
+        if(Objects.isNull(value)){
+            out.writeInt(NULL_LENGTH);
+        } else {
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        var length = in.readInt();
+        if(length == NULL_LENGTH){
+            return null;
+        }
+
+        var bytes = new byte[length];
+        in.readFully(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeEnum(DataOutputStream out, Enum<?> value)
+            throws IOException {
+        writeString(out, Objects.isNull(value) ? null : value.name());
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInputStream in,
+            Class<E> type) throws IOException {
+
+        var name = readString(in);
+        return Objects.isNull(name) ? null : Enum.valueOf(type, name);
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime value)
+            throws IOException {
+
+        out.writeBoolean(Objects.nonNull(value));
+        if(Objects.nonNull(value)){
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+
+    private static LocalDateTime readTimestamp(DataInputStream in)
+            throws IOException {
+
+        if(!in.readBoolean()){
+            return null;
+        }
+
+        var seconds = in.readLong();
+        var nanos = in.readInt();
+
+        return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+    }
+
+    private static void writeOffsets(DataOutputStream out, List<Long> offsets)
+            throws IOException {
+
+        if(Objects.isNull(offsets)){
+            out.writeInt(NULL_LENGTH);
+        } else {
+            out.writeInt(offsets.size());
+            for(var offset : offsets){
+                out.writeLong(offset);
+            }
+        }
+    }
+
+    private static List<Long> readOffsets(DataInputStream in) throws IOException {
+        var size = in.readInt();
+        if(size == NULL_LENGTH){
+            return null;
+        }
+
+        var offsets = new ArrayList<Long>(size);
+        for(int i = 0; i < size; i++){
+            offsets.add(in.readLong());
+        }
+
+        return offsets;
+    }
+
+    private static void writeMap(DataOutputStream out, Map<String, Object> map)
+            throws IOException {
+
+        if(Objects.isNull(map)){
+            out.writeInt(NULL_LENGTH);
+        } else {
+            out.writeInt(map.size());
+            for(var kv : map.entrySet()){
+                writeString(out, kv.getKey());
+                writeValue(out, kv.getValue());
+            }
+        }
+    }
+
+    private static Map<String, Object> readMap(DataInputStream in)
+            throws IOException {
+
+        var size = in.readInt();
+        if(size == NULL_LENGTH){
+            return null;
+        }
+
+        var map = new HashMap<String, Object>();
+        for(int i = 0; i < size; i++){
+            map.put(readString(in), readValue(in));
+        }
+
+        return map;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeValue(DataOutputStream out, Object value)
+            throws IOException {
+
+        if(Objects.isNull(value)){
+            out.writeByte(T_NULL);
+
+        } else if(value instanceof String){
+            out.writeByte(T_STRING);
+            writeString(out, (String)value);
+
+        } else if(value instanceof Map){
+            out.writeByte(T_MAP);
+            writeMap(out, (Map<String, Object>)value);
+
+        } else if(value instanceof List){
+            out.writeByte(T_LIST);
+            var list = (List<Object>)value;
+            out.writeInt(list.size());
+            for(var item : list){
+                writeValue(out, item);
+            }
+
+        } else if(value instanceof Integer){
+            out.writeByte(T_INT);
+            out.writeInt((Integer)value);
+
+        } else if(value instanceof Long){
+            out.writeByte(T_LONG);
+            out.writeLong((Long)value);
+
+        } else if(value instanceof Double){
+            out.writeByte(T_DOUBLE);
+            out.writeDouble((Double)value);
+
+        } else if(value instanceof Boolean){
+            out.writeByte(T_BOOLEAN);
+            out.writeBoolean((Boolean)value);
+
+        } else if(value instanceof Number){
+            out.writeByte(T_DECIMAL);
+            writeString(out, value.toString());
+
+        } else {
+            out.writeByte(T_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        var type = in.readByte();
+        switch(type){
+            case T_NULL:
+                return null;
+            case T_STRING:
+                return readString(in);
+            case T_MAP:
+                return readMap(in);
+            case T_LIST:
+                var size = in.readInt();
+                var list = new ArrayList<Object>(size);
+                for(int i = 0; i < size; i++){
+                    list.add(readValue(in));
+                }
+                return list;
+            case T_INT:
+                return in.readInt();
+            case T_LONG:
+                return in.readLong();
+            case T_DOUBLE:
+                return in.readDouble();
+            case T_BOOLEAN:
+                return in.readBoolean();
+            case T_DECIMAL:
+                return new BigDecimal(readString(in));
+            default:
+                throw new SerializationException("Unknown value type " + type);
+        }
+    }
+}
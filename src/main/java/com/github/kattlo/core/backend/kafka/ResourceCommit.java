@@ -1,7 +1,9 @@
 package com.github.kattlo.core.backend.kafka;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.github.kattlo.core.backend.Migration;
@@ -38,6 +40,12 @@ public class ResourceCommit {
     // The kattlo version
     private String kattlo;
 
+    /**
+     * Offsets of the resource entries within its partition of the history
+     * topic, absent for resources committed before the index existed
+     */
+    private List<Long> history;
+
     public boolean equals(Object another){
         if(! (another instanceof ResourceCommit)){
             return false;
@@ -64,6 +72,7 @@ public class ResourceCommit {
         commit.setTimestamp(migration.getTimestamp());
 
         commit.setAttributes(new HashMap<>());
+        commit.setHistory(new ArrayList<>());
 
         return commit;
     }
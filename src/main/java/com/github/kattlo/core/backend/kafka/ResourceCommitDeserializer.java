@@ -18,4 +18,16 @@ public class ResourceCommitDeserializer
         super(type);
     }
 
+    /**
+     * Reads the binary records and the JSON ones, written before the
+     * binary format
+     */
+    @Override
+    public ResourceCommit deserialize(String topic, byte[] data) {
+        if(RecordCodec.isBinary(data)){
+            return RecordCodec.decodeCommit(data);
+        }
+
+        return super.deserialize(topic, data);
+    }
 }
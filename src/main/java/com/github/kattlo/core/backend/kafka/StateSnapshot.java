@@ -0,0 +1,157 @@
+package com.github.kattlo.core.backend.kafka;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import com.github.kattlo.core.backend.BackendException;
+import com.github.kattlo.util.JsonFileUtil;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Materialized state of the {@link KafkaBackendConfig#TOPIC_T_STATE} kept
+ * on disk, with the next offset to consume from each partition and the
+ * {@link Fingerprint} of the record just before it.
+ *
+ * @author fabiojose
+ */
+@RegisterForReflection
+@Slf4j
+@Data
+@NoArgsConstructor
+public class StateSnapshot {
+
+    /**
+     * Identifies the record consumed last from a partition, to tell apart a
+     * topic recreated and grown past the offsets of the snapshot
+     */
+    @RegisterForReflection
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Fingerprint {
+        private long timestamp;
+        private String key;
+
+        public static Fingerprint of(ConsumerRecord<String, ?> record) {
+            return new Fingerprint(record.timestamp(), record.key());
+        }
+    }
+
+    private String clusterId;
+    private String topic;
+
+    /**
+     * Next offset to consume, keyed by partition number
+     */
+    private Map<String, Long> offsets = new HashMap<>();
+
+    /**
+     * The record at the offset before the next one, keyed by partition number
+     */
+    private Map<String, Fingerprint> fingerprints = new HashMap<>();
+
+    /**
+     * Latest commit, keyed by {@link com.github.kattlo.core.backend.Migration#key()}
+     */
+    private Map<String, ResourceCommit> commits = new HashMap<>();
+
+    public StateSnapshot(String clusterId, String topic) {
+        this.clusterId = Objects.requireNonNull(clusterId);
+        this.topic = Objects.requireNonNull(topic);
+    }
+
+    public Optional<Long> offsetOf(int partition) {
+        return Optional.ofNullable(offsets.get(String.valueOf(partition)));
+    }
+
+    public void position(int partition, long offset) {
+        offsets.put(String.valueOf(partition), offset);
+    }
+
+    public Optional<Fingerprint> fingerprintOf(int partition) {
+        return Optional.ofNullable(fingerprints.get(String.valueOf(partition)));
+    }
+
+    /**
+     * @param last The record at the offset before the next one to consume
+     */
+    public void fingerprint(int partition, Fingerprint last) {
+        fingerprints.put(String.valueOf(partition), last);
+    }
+
+    public void apply(String key, ResourceCommit commit) {
+        if(Objects.isNull(commit)){
+            commits.remove(key);
+        } else {
+            commits.put(key, commit);
+        }
+    }
+
+    /**
+     * Forgets everything, to rebuild the state from the beginning
+     */
+    public void reset() {
+        offsets.clear();
+        fingerprints.clear();
+        commits.clear();
+    }
+
+    /**
+     * A topic recreated and grown past the offsets passes this check, it is
+     * told by the {@link Fingerprint} of the record before each offset
+     *
+     * @return <code>false</code> when the topic was truncated, or recreated
+     * with less records than the offsets, after the snapshot was taken
+     */
+    public boolean validFor(Map<TopicPartition, Long> beginningOffsets,
+            Map<TopicPartition, Long> endOffsets) {
+
+        return offsets.entrySet().stream()
+            .allMatch(kv -> {
+                var tp = new TopicPartition(topic, Integer.parseInt(kv.getKey()));
+                var offset = kv.getValue();
+
+                return endOffsets.containsKey(tp)
+                    && offset <= endOffsets.get(tp)
+                    && offset >= beginningOffsets.getOrDefault(tp, 0L);
+            });
+    }
+
+    public static Path fileFor(Path directory, String clusterId) {
+        return directory.resolve(clusterId + ".json");
+    }
+
+    /**
+     * @return Empty when there is no snapshot or it can not be read
+     */
+    public static Optional<StateSnapshot> load(Path file) {
+
+        return JsonFileUtil.read(file, StateSnapshot.class);
+    }
+
+    /**
+     * @throws BackendException When the snapshot can not be written
+     */
+    public void save(Path file) {
+
+        try{
+            JsonFileUtil.writeAtomically(file, this);
+            log.debug("Snapshot written to {}", file);
+
+        }catch(IOException e){
+            throw new BackendException(e.getMessage(), e);
+        }
+    }
+}
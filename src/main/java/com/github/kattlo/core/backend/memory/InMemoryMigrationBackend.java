@@ -1,9 +1,12 @@
 package com.github.kattlo.core.backend.memory;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.github.kattlo.core.backend.Backend;
@@ -36,11 +39,35 @@ public class InMemoryMigrationBackend implements Backend {
         return Resource.from(commit);
     }
 
+    @Override
+    public List<Resource> commitAll(List<Migration> applied) {
+        return applied.stream()
+            .map(this::commit)
+            .collect(Collectors.toList());
+    }
+
     @Override
     public Optional<Resource> current(ResourceType type, String name) {
         return Optional.ofNullable(MIGRATIONS.get(keyOf(type, name))).map(Resource::from);
     }
 
+    @Override
+    public Map<String, Resource> current(ResourceType type, Collection<String> names) {
+        return names.stream()
+            .filter(name -> MIGRATIONS.containsKey(keyOf(type, name)))
+            .distinct()
+            .collect(Collectors.toMap(name -> name,
+                name -> Resource.from(MIGRATIONS.get(keyOf(type, name)))));
+    }
+
+    @Override
+    public Map<String, Resource> currentAll(ResourceType type) {
+        return MIGRATIONS.values().stream()
+            .filter(commit -> type.equals(commit.getResourceType()))
+            .collect(Collectors.toMap(ResourceCommit::getResourceName,
+                Resource::from));
+    }
+
     @Override
     public Stream<Migration> history(ResourceType type, String name) {
         return Stream.empty();
@@ -0,0 +1,181 @@
+package com.github.kattlo.core.kafka;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import org.apache.kafka.common.errors.RetriableException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Retries the calls failing with a {@link RetriableException}, like
+ * <code>TimeoutException</code> or <code>NotControllerException</code>,
+ * anywhere in the chain of causes. Other failures are thrown at once.
+ *
+ * The backoff doubles after each attempt, up to a maximum, and half of it
+ * is random, so the clients retrying together do not hit the brokers at the
+ * same time.
+ *
+ * A call that timed out may still have been applied by the broker, so a
+ * non idempotent call is retried along with a check of its effect: when
+ * the cluster already shows it, the call is taken as done.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class Retry {
+
+    public static final int DEFAULT_RETRIES = 3;
+
+    static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+    static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final int retries;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Random random;
+
+    /**
+     * @param retries How many times to retry after the first attempt, zero
+     * to never retry
+     */
+    public Retry(int retries) {
+        this(retries, INITIAL_BACKOFF, MAX_BACKOFF, new Random());
+    }
+
+    public Retry(int retries, Duration initialBackoff, Duration maxBackoff) {
+        this(retries, initialBackoff, maxBackoff, new Random());
+    }
+
+    Retry(int retries, Duration initialBackoff, Duration maxBackoff,
+            Random random) {
+
+        if(retries < 0){
+            throw new IllegalArgumentException("retries must not be negative");
+        }
+
+        this.retries = retries;
+        this.initialBackoff = Objects.requireNonNull(initialBackoff);
+        this.maxBackoff = Objects.requireNonNull(maxBackoff);
+        this.random = Objects.requireNonNull(random);
+    }
+
+    public static Retry none() {
+        return new Retry(0);
+    }
+
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * @return <code>true</code> when the failure, or any of its causes, is
+     * a {@link RetriableException}
+     */
+    public static boolean retriable(Throwable failure) {
+        for(var cause = failure; cause != null; cause = cause.getCause()){
+            if(cause instanceof RetriableException){
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    void sleep(Duration backoff) throws InterruptedException {
+        Thread.sleep(backoff.toMillis());
+    }
+
+    /**
+     * @param attempt The attempt that failed, starting at one
+     * @return The backoff before the next attempt: half of it fixed, half
+     * random
+     */
+    Duration backoffOf(int attempt) {
+        var exponential = initialBackoff.multipliedBy(1l << Math.min(attempt - 1, 30));
+        var backoff = exponential.compareTo(maxBackoff) > 0 || exponential.isNegative()
+            ? maxBackoff
+            : exponential;
+
+        var half = backoff.toMillis() / 2;
+        return Duration.ofMillis(half + (long)(random.nextDouble() * (backoff.toMillis() - half)));
+    }
+
+    /**
+     * Waits before the next attempt, when the failure is retriable and there
+     * are retries left
+     *
+     * @param what What is retried, to log
+     * @param attempt The attempt that failed, starting at one
+     * @return <code>false</code> when it must not be retried
+     */
+    public boolean backoff(String what, int attempt, Throwable failure) {
+        if(attempt > retries || !retriable(failure)){
+            return false;
+        }
+
+        var backoff = backoffOf(attempt);
+        log.warn("Retrying {} in {}ms, attempt {} of {}: {}", what,
+            backoff.toMillis(), attempt, retries, failure.getMessage());
+
+        try{
+            sleep(backoff);
+            return true;
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * @param what What is called, to log
+     * @throws RuntimeException The last failure, when not retriable or out
+     * of retries
+     */
+    public <T> T call(String what, Supplier<T> action) {
+        for(int attempt = 1; ; attempt++){
+            try{
+                return action.get();
+
+            }catch(RuntimeException e){
+                if(!backoff(what, attempt, e)){
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * For the idempotent actions
+     */
+    public void run(String what, Runnable action) {
+        run(what, action, () -> false);
+    }
+
+    /**
+     * @param done Checked before each retry: <code>true</code> when the
+     * failed attempt was applied anyway
+     */
+    public void run(String what, Runnable action, BooleanSupplier done) {
+        for(int attempt = 1; ; attempt++){
+            try{
+                action.run();
+                return;
+
+            }catch(RuntimeException e){
+                if(!backoff(what, attempt, e)){
+                    throw e;
+                }
+
+                if(done.getAsBoolean()){
+                    log.info("{} found applied after the failure: {}", what, e.getMessage());
+                    return;
+                }
+            }
+        }
+    }
+}
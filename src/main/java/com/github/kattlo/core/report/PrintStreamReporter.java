@@ -2,6 +2,7 @@ package com.github.kattlo.core.report;
 
 import java.io.PrintStream;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -14,6 +15,12 @@ import javax.json.bind.JsonbBuilder;
 import com.github.kattlo.core.backend.Migration;
 import com.github.kattlo.core.backend.Resource;
 import com.github.kattlo.topic.TopicRuleException;
+import com.github.kattlo.topic.drift.TopicDrift;
+import com.github.kattlo.topic.migration.LeaderChange;
+import com.github.kattlo.topic.migration.PlanStep;
+import com.github.kattlo.topic.migration.ReassignmentEstimate;
+import com.github.kattlo.topic.migration.ReassignmentProgress;
+import com.github.kattlo.topic.migration.ReassignmentStatus;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -26,6 +33,7 @@ public class PrintStreamReporter implements Reporter {
     private static final String EMPTY = "";
     private static final String _1_SPACE = " ";
     private static final String _2_SPACE = "  ";
+    private static final String ABSENT = "<absent>";
 
     private Jsonb json;
 
@@ -316,4 +324,232 @@ public class PrintStreamReporter implements Reporter {
         out.println();
 
     }
+
+    private void planPlain(List<PlanStep> steps) {
+
+        if(steps.isEmpty()){
+            uptodate();
+            return;
+        }
+
+        out.println();
+        out.print("Plan:");
+        out.print(_1_SPACE);
+        out.print(steps.size());
+        out.print(_1_SPACE);
+        out.print("migration(s)");
+        out.println();
+
+        steps.forEach(step -> {
+            out.println();
+
+            switch(step.getOperation()){
+                case CREATE:
+                    out.print("+ create");
+                    break;
+                case PATCH:
+                    out.print("~ patch");
+                    break;
+                default:
+                    out.print("! remove");
+            }
+            out.print(_1_SPACE);
+            out.print(step.getTopic());
+            out.print(_1_SPACE);
+            out.println(step.getVersion());
+
+            out.print(_2_SPACE);
+            out.print("original ->");
+            out.print(_1_SPACE);
+            out.println(step.getFile());
+
+            out.print(_2_SPACE);
+            out.print("calls ->");
+            out.print(_1_SPACE);
+            out.println(String.join(", ", step.getCalls()));
+
+            Optional.ofNullable(step.getAttributes())
+                .ifPresent(attributes ->
+                    attributes.entrySet().stream()
+                        .sorted((v1, v2) -> v1.getKey().compareTo(v2.getKey()))
+                        .forEach(kv -> {
+                            out.print(_2_SPACE);
+                            out.print(kv.getKey());
+                            out.print(_1_SPACE);
+                            out.print("->");
+                            out.print(_1_SPACE);
+                            out.println(kv.getValue());
+                        }));
+        });
+
+        out.println();
+    }
+
+    @Override
+    public void plan(List<PlanStep> steps, ReportFormat format) {
+        Objects.requireNonNull(steps, "Provide a not null steps");
+        Objects.requireNonNull(format, "Provide a not null format");
+
+        if(ReportFormat.PLAIN.equals(format)){
+            planPlain(steps);
+        } else if(ReportFormat.JSON.equals(format)){
+            getJson().toJson(Map.of("plan", steps), out);
+        } else {
+            throw new IllegalArgumentException(format.name());
+        }
+    }
+
+    private void driftPlain(List<TopicDrift> drifted, int total) {
+
+        out.println();
+        if(drifted.isEmpty()){
+            out.print("No drift detected in");
+            out.print(_1_SPACE);
+            out.print(total);
+            out.print(_1_SPACE);
+            out.print("topic(s).");
+            out.println();
+            out.println();
+            return;
+        }
+
+        out.print("Drift:");
+        out.print(_1_SPACE);
+        out.print(drifted.size());
+        out.print(" of ");
+        out.print(total);
+        out.print(_1_SPACE);
+        out.print("topic(s)");
+        out.println();
+
+        drifted.forEach(drift -> {
+            out.println();
+            out.print("~ drift");
+            out.print(_1_SPACE);
+            out.print(drift.getTopic());
+            out.print(_1_SPACE);
+            out.println(drift.getVersion());
+
+            drift.getDifferences().forEach(difference -> {
+                out.print(_2_SPACE);
+                out.print(difference.getAttribute());
+                out.print(_1_SPACE);
+                out.print("->");
+                out.print(_1_SPACE);
+                out.print("expected");
+                out.print(_1_SPACE);
+                out.print(Objects.requireNonNullElse(difference.getExpected(), ABSENT));
+                out.print(", actual");
+                out.print(_1_SPACE);
+                out.println(Objects.requireNonNullElse(difference.getActual(), ABSENT));
+            });
+        });
+
+        out.println();
+    }
+
+    @Override
+    public void drift(List<TopicDrift> drifts, ReportFormat format) {
+        Objects.requireNonNull(drifts, "Provide a not null drifts");
+        Objects.requireNonNull(format, "Provide a not null format");
+
+        var drifted = drifts.stream()
+            .filter(TopicDrift::drifted)
+            .collect(Collectors.toList());
+
+        if(ReportFormat.PLAIN.equals(format)){
+            driftPlain(drifted, drifts.size());
+        } else if(ReportFormat.JSON.equals(format)){
+            getJson().toJson(Map.of("drift", drifted), out);
+        } else {
+            throw new IllegalArgumentException(format.name());
+        }
+    }
+
+    /**
+     * Synchronized, because the topics are migrated in parallel
+     */
+    @Override
+    public synchronized void reassignment(String topic, ReassignmentStatus status,
+            List<ReassignmentProgress> progress, ReassignmentEstimate estimate) {
+        Objects.requireNonNull(topic, "Provide a not null topic");
+        Objects.requireNonNull(status, "Provide a not null status");
+        Objects.requireNonNull(progress, "Provide a not null progress");
+        Objects.requireNonNull(estimate, "Provide a not null estimate");
+
+        out.println();
+        out.print("~ reassignment");
+        out.print(_1_SPACE);
+        out.print(topic);
+        out.print(_1_SPACE);
+        out.println(status);
+
+        if(estimate.isKnown()){
+            out.print(_2_SPACE);
+            out.print("bytes ->");
+            out.print(_1_SPACE);
+            out.print(estimate.getRemaining());
+            out.print(" remaining of ");
+            out.print(estimate.getBytes());
+            out.print(", throughput");
+            out.print(_1_SPACE);
+            out.print(estimate.getThroughput());
+            out.print("/s, eta");
+            out.print(_1_SPACE);
+            out.println(Optional.ofNullable(estimate.getEta())
+                .map(Object::toString)
+                .orElse("unknown"));
+        }
+
+        progress.forEach(partition -> {
+            out.print(_2_SPACE);
+            out.print("partition");
+            out.print(_1_SPACE);
+            out.print(partition.getPartition());
+            out.print(_1_SPACE);
+            out.print("->");
+            out.print(_1_SPACE);
+            out.print("replicas");
+            out.print(_1_SPACE);
+            out.print(partition.getReplicas());
+            out.print(", adding");
+            out.print(_1_SPACE);
+            out.print(partition.getAdding());
+            out.print(", removing");
+            out.print(_1_SPACE);
+            out.print(partition.getRemoving());
+            out.print(", in sync");
+            out.print(_1_SPACE);
+            out.print(partition.getInSync());
+            out.print("/");
+            out.println(partition.getAdding().size());
+        });
+    }
+
+    @Override
+    public void elected(List<LeaderChange> changes) {
+        Objects.requireNonNull(changes, "Provide a not null changes");
+
+        changes.forEach(change -> {
+            out.println();
+            out.print(change.failed() ? "! leader" : "~ leader");
+            out.print(_1_SPACE);
+            out.print(change.getTopic());
+            out.print("-");
+            out.print(change.getPartition());
+            out.print(_1_SPACE);
+            out.print("->");
+            out.print(_1_SPACE);
+            out.print(Objects.requireNonNullElse(change.getFrom(), "none"));
+            out.print(" to ");
+            out.print(change.getTo());
+
+            if(change.failed()){
+                out.print(", error");
+                out.print(_1_SPACE);
+                out.print(change.getError());
+            }
+            out.println();
+        });
+    }
 }
@@ -1,11 +1,18 @@
 package com.github.kattlo.core.report;
 
 import java.nio.file.Path;
+import java.util.List;
 import java.util.stream.Stream;
 
 import com.github.kattlo.core.backend.Migration;
 import com.github.kattlo.core.backend.Resource;
 import com.github.kattlo.topic.TopicRuleException;
+import com.github.kattlo.topic.drift.TopicDrift;
+import com.github.kattlo.topic.migration.LeaderChange;
+import com.github.kattlo.topic.migration.PlanStep;
+import com.github.kattlo.topic.migration.ReassignmentEstimate;
+import com.github.kattlo.topic.migration.ReassignmentProgress;
+import com.github.kattlo.topic.migration.ReassignmentStatus;
 
 /**
  * @author fabiojose
@@ -24,6 +31,15 @@ public interface Reporter {
 
     void uptodate();
 
+    void plan(List<PlanStep> steps, ReportFormat format);
+
+    void drift(List<TopicDrift> drifts, ReportFormat format);
+
+    void reassignment(String topic, ReassignmentStatus status,
+        List<ReassignmentProgress> progress, ReassignmentEstimate estimate);
+
+    void elected(List<LeaderChange> changes);
+
     void initialized(Path path);
 
 }
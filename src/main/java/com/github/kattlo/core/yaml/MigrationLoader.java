@@ -2,14 +2,20 @@ package com.github.kattlo.core.yaml;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.PathMatcher;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import com.google.gson.GsonBuilder;
 
@@ -87,6 +93,53 @@ public class MigrationLoader {
                         .matches());
     }
 
+    private static List<PathMatcher> matchersOf(Collection<String> globs) {
+        return globs.stream()
+            .map(glob -> FileSystems.getDefault().getPathMatcher("glob:" + glob))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @return <code>true</code> when any element of the relative path is
+     * hidden
+     */
+    public static boolean hidden(Path relative) {
+        return StreamSupport.stream(relative.spliterator(), false)
+            .anyMatch(name -> name.toString().startsWith("."));
+    }
+
+    /**
+     * Streams the yaml files of the directory tree, lazily, up to the depth.
+     * Hidden files and directories are skipped, like the
+     * <code>.kattlo</code>.
+     *
+     * @param includes Globs for the path relative to the directory, when
+     * empty every file is included
+     * @param excludes Globs for the path relative to the directory
+     */
+    public static Stream<Path> walk(final Path directory, int maxDepth,
+            Collection<String> includes, Collection<String> excludes)
+            throws IOException {
+
+        final var include = matchersOf(includes);
+        final var exclude = matchersOf(excludes);
+
+        return Files.walk(directory, maxDepth)
+            .filter(Files::isRegularFile)
+            .filter(f ->
+                FILE_EXT_PATTERN.matcher(
+                    f.getFileName().toString())
+                        .matches())
+            .filter(f -> {
+                var relative = directory.relativize(f);
+
+                return !hidden(relative)
+                    && (include.isEmpty()
+                        || include.stream().anyMatch(m -> m.matches(relative)))
+                    && exclude.stream().noneMatch(m -> m.matches(relative));
+            });
+    }
+
     public static Stream<Path> list(final File directory) throws IOException {
         return list(Path.of(directory.getAbsolutePath()));
     }
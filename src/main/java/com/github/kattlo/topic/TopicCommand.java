@@ -2,8 +2,23 @@ package com.github.kattlo.topic;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -11,18 +26,33 @@ import javax.inject.Inject;
 import com.github.kattlo.EntryCommand;
 import com.github.kattlo.core.backend.Backend;
 import com.github.kattlo.core.backend.BackendException;
+import com.github.kattlo.core.backend.Migration;
 import com.github.kattlo.core.backend.Resource;
 import com.github.kattlo.core.backend.ResourceType;
 import com.github.kattlo.core.kafka.Kafka;
+import com.github.kattlo.core.kafka.Retry;
 import com.github.kattlo.core.report.PrintStreamReporter;
+import com.github.kattlo.core.report.ReportFormat;
 import com.github.kattlo.core.report.Reporter;
-import com.github.kattlo.core.yaml.MigrationLoader;
+import com.github.kattlo.topic.migration.BatchExecutor;
+import com.github.kattlo.topic.migration.ClusterLoad;
+import com.github.kattlo.topic.migration.LeaderElection;
+import com.github.kattlo.topic.migration.PlanStep;
+import com.github.kattlo.topic.migration.ReassignmentTracker;
+import com.github.kattlo.topic.migration.ReplicationThrottle;
 import com.github.kattlo.topic.migration.Strategy;
-import com.github.kattlo.topic.yaml.Loader;
+import com.github.kattlo.topic.yaml.MigrationCache;
+import com.github.kattlo.topic.yaml.MigrationIndex;
+import com.github.kattlo.topic.yaml.MigrationJournal;
+import com.github.kattlo.topic.yaml.ParallelLoader;
 import com.github.kattlo.topic.yaml.TopicOperation;
 import com.github.kattlo.topic.yaml.TopicOperationMapper;
+import com.github.kattlo.util.NumberUtil;
+
+import org.apache.kafka.clients.admin.AdminClient;
 
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import picocli.CommandLine;
@@ -40,7 +70,9 @@ import picocli.CommandLine.Model.CommandSpec;
     description = "Migrations for Topics",
     mixinStandardHelpOptions = true,
     subcommands = {
-        TopicImportCommand.class
+        TopicImportCommand.class,
+        TopicDriftCommand.class,
+        TopicReconcileCommand.class
     }
 )
 @AllArgsConstructor
@@ -49,6 +81,38 @@ import picocli.CommandLine.Model.CommandSpec;
 public class TopicCommand implements Runnable {
 
     private static final String NO_VERSION = "v0000";
+    private static final int DEFAULT_PARALLELISM = 1;
+
+    /**
+     * The outcome of the newer migrations of one topic
+     */
+    @Getter
+    static class TopicOutcome {
+
+        private final String topic;
+        private final List<Migration> applied = new ArrayList<>();
+        private boolean uptodate;
+        private RuntimeException failure;
+
+        TopicOutcome(String topic) {
+            this.topic = topic;
+        }
+
+        boolean failed() {
+            return Objects.nonNull(failure);
+        }
+
+        /**
+         * Keeps the first failure, the later ones go as suppressed
+         */
+        void fail(RuntimeException e) {
+            if(failed()){
+                failure.addSuppressed(e);
+            } else {
+                failure = e;
+            }
+        }
+    }
 
     @ParentCommand
     EntryCommand parent;
@@ -69,6 +133,61 @@ public class TopicCommand implements Runnable {
 
     private File directory;
 
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    private boolean batch;
+
+    private boolean plan;
+
+    private boolean cache;
+
+    private boolean recursive;
+
+    private Duration reassignmentTimeout = ReassignmentTracker.DEFAULT_TIMEOUT;
+
+    private long throttle = ReplicationThrottle.NO_RATE;
+
+    private int maxMovesPerBroker = ReplicationThrottle.UNBOUNDED;
+
+    private boolean electLeaders = true;
+
+    private boolean resume;
+
+    private int retries = Retry.DEFAULT_RETRIES;
+
+    /**
+     * Shared by the topics migrated in parallel
+     */
+    private ReplicationThrottle replicationThrottle;
+
+    /**
+     * Shared, to collect the partitions moved by every topic
+     */
+    private ReassignmentTracker reassignmentTracker;
+
+    /**
+     * Shared by the topics migrated in parallel, fetched again by each run
+     */
+    private ClusterLoad clusterLoad;
+
+    @Option(
+        names = {
+            "--include"
+        },
+        description = "Glob of the migration files to include, relative to the directory. May be repeated"
+    )
+    private List<String> includes = new ArrayList<>();
+
+    @Option(
+        names = {
+            "--exclude"
+        },
+        description = "Glob of the migration files to exclude, relative to the directory. May be repeated"
+    )
+    private List<String> excludes = new ArrayList<>();
+
+    private ReportFormat format = ReportFormat.PLAIN;
+
     private TopicRuleEnforcement ruleEnforcement;
 
     private TopicRuleEnforcement getRuleEnforcement(File configuration) {
@@ -95,6 +214,195 @@ public class TopicCommand implements Runnable {
         return directory;
     }
 
+    @Option(
+        names = {
+            "--parallelism"
+        },
+        description = "Maximum number of topics migrated at the same time",
+        defaultValue = "1"
+    )
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Option(
+        names = {
+            "--batch"
+        },
+        description = "Apply the migrations in waves, with one Admin request per kind of change for all the topics"
+    )
+    public void setBatch(boolean batch) {
+        this.batch = batch;
+    }
+    public boolean isBatch() {
+        return batch;
+    }
+
+    @Option(
+        names = {
+            "--plan"
+        },
+        description = "Print the pending migrations and their Admin calls, without applying them"
+    )
+    public void setPlan(boolean plan) {
+        this.plan = plan;
+    }
+    public boolean isPlan() {
+        return plan;
+    }
+
+    @Option(
+        names = {
+            "--format"
+        },
+        description = "The format to print the plan: ${COMPLETION-CANDIDATES}",
+        defaultValue = "PLAIN"
+    )
+    public void setFormat(ReportFormat format) {
+        this.format = Objects.requireNonNull(format);
+    }
+    public ReportFormat getFormat() {
+        return format;
+    }
+
+    @Option(
+        names = {
+            "--cache"
+        },
+        description = "Skip the topics whose files and backend state did not change since the last run, using the .kattlo/cache"
+    )
+    public void setCache(boolean cache) {
+        this.cache = cache;
+    }
+    public boolean isCache() {
+        return cache;
+    }
+
+    @Option(
+        names = {
+            "--resume"
+        },
+        description = "Keep the progress at the .kattlo/journal and, after a failed run, skip the topics it already completed"
+    )
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+    public boolean isResume() {
+        return resume;
+    }
+
+    @Option(
+        names = {
+            "--retries"
+        },
+        description = "Times to retry an Admin call failing with a retriable Kafka error, like a timeout, with exponential backoff. Default 3"
+    )
+    public void setRetries(int retries) {
+        this.retries = retries;
+    }
+    public int getRetries() {
+        return retries;
+    }
+
+    @Option(
+        names = {
+            "-r",
+            "--recursive"
+        },
+        description = "Walk the whole directory tree, processing every migration in one execution"
+    )
+    public void setRecursive(boolean recursive) {
+        this.recursive = recursive;
+    }
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    @Option(
+        names = {
+            "--reassignment-timeout"
+        },
+        description = "Time to wait for the replicas to move, like 30m or 1h. After that the reassignment keeps running in the cluster",
+        defaultValue = "1h"
+    )
+    public void setReassignmentTimeout(String reassignmentTimeout) {
+        try{
+            this.reassignmentTimeout = NumberUtil.durationOf(reassignmentTimeout);
+        }catch(IllegalArgumentException e){
+            throw new CommandLine.
+                ParameterException(spec.commandLine(),
+                        "invalid --reassignment-timeout: " + e.getMessage());
+        }
+    }
+    public Duration getReassignmentTimeout() {
+        return reassignmentTimeout;
+    }
+
+    @Option(
+        names = {
+            "--throttle"
+        },
+        description = "Bytes per second for the replication of the partitions moved by a new replication factor, like 50MiB. Not throttled by default"
+    )
+    public void setThrottle(String throttle) {
+        try{
+            this.throttle = NumberUtil.bytesOf(throttle);
+        }catch(IllegalArgumentException e){
+            throw new CommandLine.
+                ParameterException(spec.commandLine(),
+                        "invalid --throttle: " + e.getMessage());
+        }
+    }
+    public long getThrottle() {
+        return throttle;
+    }
+
+    @Option(
+        names = {
+            "--max-moves-per-broker"
+        },
+        description = "Maximum partitions moving at the same time on each broker, when the replication factor changes. Unbounded by default"
+    )
+    public void setMaxMovesPerBroker(int maxMovesPerBroker) {
+        this.maxMovesPerBroker = maxMovesPerBroker;
+    }
+    public int getMaxMovesPerBroker() {
+        return maxMovesPerBroker;
+    }
+
+    @Option(
+        names = {
+            "--elect-leaders"
+        },
+        negatable = true,
+        defaultValue = "true",
+        fallbackValue = "true",
+        description = "Elect the preferred leaders of the partitions moved by the replication factor changes, once they complete. Enabled by default"
+    )
+    public void setElectLeaders(boolean electLeaders) {
+        this.electLeaders = electLeaders;
+    }
+    public boolean isElectLeaders() {
+        return electLeaders;
+    }
+
+    public void setIncludes(List<String> includes) {
+        this.includes = Objects.requireNonNull(includes);
+    }
+    public List<String> getIncludes() {
+        return includes;
+    }
+
+    public void setExcludes(List<String> excludes) {
+        this.excludes = Objects.requireNonNull(excludes);
+    }
+    public List<String> getExcludes() {
+        return excludes;
+    }
+
     public EntryCommand getParent() {
         return parent;
     }
@@ -107,98 +415,127 @@ public class TopicCommand implements Runnable {
                 ParameterException(spec.commandLine(),
                         directory + " not found or does not have right to read");
         }
-    }
 
-    Strategy strategyOf(TopicOperation to){
-        return Strategy.of(to);
-    }
+        if(parallelism < 1){
+            throw new CommandLine.
+                ParameterException(spec.commandLine(),
+                        "--parallelism must be greater than zero, but was " + parallelism);
+        }
 
-    @Override
-    public void run() {
-        validateOptions();
+        if(throttle < 0){
+            throw new CommandLine.
+                ParameterException(spec.commandLine(),
+                        "--throttle must not be negative, but was " + throttle);
+        }
 
-        try(final var admin = kafka.adminFor(parent.getKafkaConfiguration())) {
+        if(maxMovesPerBroker < 0){
+            throw new CommandLine.
+                ParameterException(spec.commandLine(),
+                        "--max-moves-per-broker must not be negative, but was " + maxMovesPerBroker);
+        }
 
-            final var migrationFiles =
-                MigrationLoader.list(directory)
-                    .collect(Collectors.toList());
+        if(retries < 0){
+            throw new CommandLine.
+                ParameterException(spec.commandLine(),
+                        "--retries must not be negative, but was " + retries);
+        }
+    }
 
-            backend.init(parent.getKafkaConfiguration());
+    static String currentVersionOf(String topic,
+            Map<String, Resource> states) {
 
-            var iterator = migrationFiles.iterator();
-            while(iterator.hasNext()){
-                var migrationFile = iterator.next();
-                log.debug("Migration file {}", migrationFile);
+        return Optional.ofNullable(states.get(topic))
+            .map(Resource::getVersion)
+            .orElse(NO_VERSION);
+    }
 
-                //TODO Validate yaml against schema??
+    List<Path> filesOf(Path directory) throws IOException {
+        var files = MigrationIndex.list(directory, recursive, includes, excludes);
+        log.debug("{} migration files found at {}", files.size(), directory);
 
-                final var migrationModel =
-                    Loader.load(migrationFile);
+        return files;
+    }
 
-                final var operation =
-                    mapper.map(migrationModel, migrationFile);
+    /**
+     * Parses the migration files while the directory is walked
+     */
+    MigrationIndex indexOf(Path directory) throws IOException {
+        var index = MigrationIndex.of(directory, recursive, includes, excludes,
+            loaderOf());
+        log.debug("{} topics with migrations found at {}", index.topics().size(),
+            directory);
 
-                // fetch the 'topic' latest migration
-                final var latestMigration =
-                    backend.current(
-                        ResourceType.TOPIC,
-                        operation.getTopic());
+        return index;
+    }
 
-                final var currentVersion =
-                    latestMigration
-                        .map(Resource::getVersion)
-                        .orElse(NO_VERSION);
+    ParallelLoader loaderOf() {
+        return new ParallelLoader(mapper);
+    }
 
-                // Remove all migrations related to migrationModel.getTopic()
-                Loader.all(migrationModel.getTopic(),
-                        Path.of(directory.getAbsolutePath()))
-                    .forEach(to -> {
-                        log.debug("File to remove from files list: {}", to.getFile());
-                        migrationFiles.removeIf(p ->
-                            p.equals(to.getFile()));
-                    });
+    synchronized ReassignmentTracker trackerOf() {
+        if(Objects.isNull(reassignmentTracker)){
+            reassignmentTracker =
+                new ReassignmentTracker(reassignmentTimeout, reporter::reassignment);
+        }
 
-                log.debug("Current files within migrationFiles {}", migrationFiles);
+        return reassignmentTracker;
+    }
 
-                // update the iterator with updated migrationFiles'
-                iterator = migrationFiles.iterator();
+    synchronized ReplicationThrottle throttleOf() {
+        if(Objects.isNull(replicationThrottle)){
+            replicationThrottle = new ReplicationThrottle(throttle, maxMovesPerBroker);
+        }
 
-                // Load newer migrations if any
-                // TODO use the list of all migrations
-                final var newers =
-                    Loader.newer(currentVersion,
-                        migrationModel.getTopic(),
-                        Path.of(directory.getAbsolutePath()));
+        return replicationThrottle;
+    }
 
-                var newersList = newers.collect(Collectors.toList());
-                if(newersList.isEmpty()){
-                    reporter.uptodate();
+    synchronized ClusterLoad loadOf() {
+        if(Objects.isNull(clusterLoad)){
+            clusterLoad = new ClusterLoad();
+        }
 
-                } else {
-                    var rules = getRuleEnforcement(parent.getConfiguration());
+        return clusterLoad;
+    }
 
-                    newersList.forEach(to -> {
+    Strategy strategyOf(TopicOperation to){
+        return Strategy.of(to, trackerOf(), throttleOf(), loadOf(), retryOf());
+    }
 
-                        // check the migration against rules
-                        rules.check(to);
+    BatchExecutor batchOf(AdminClient admin) {
+        return new BatchExecutor(admin, trackerOf(), throttleOf(), loadOf(),
+            retryOf());
+    }
 
-                        // create, patch or remove?
-                        final var strategy = strategyOf(to);
+    Retry retryOf() {
+        return new Retry(retries);
+    }
 
-                        var migration = to.toMigration();
-                        reporter.report(migration);
+    LeaderElection electionOf(AdminClient admin) {
+        return new LeaderElection(admin);
+    }
 
-                        // apply the strategy
-                        strategy.execute(admin);
+    /**
+     * Elects the preferred leaders of the partitions whose reassignment
+     * completed since the last call, all topics together
+     */
+    void elect(AdminClient admin) {
+        final var moved = trackerOf().drainCompleted();
 
-                        log.debug("Migration to commit {}", migration);
+        if(electLeaders && !moved.isEmpty()){
+            log.debug("Electing the preferred leaders of {} partitions", moved.size());
+            reporter.elected(electionOf(admin).elect(moved));
+        }
+    }
 
-                        // commit the applied migration
-                        var current = backend.commit(migration);
+    @Override
+    public void run() {
+        validateOptions();
 
-                        log.debug("New Topic's state {}", current);
-                    });
-                }
+        try{
+            if(plan){
+                plan();
+            } else {
+                apply();
             }
         }catch(IOException e) {
             throw new CommandLine.ExecutionException(spec.commandLine(),
@@ -213,4 +550,459 @@ public class TopicCommand implements Runnable {
                 "rule check failure");
         }
     }
+
+    private void apply() throws IOException {
+
+        try(final var admin = kafka.adminFor(parent.getKafkaConfiguration())) {
+
+            backend.init(parent.getBackendConfiguration());
+
+            final var path = Path.of(directory.getAbsolutePath());
+
+            // only the cache needs every file path up front
+            final var files = cache ? filesOf(path) : List.<Path>of();
+
+            final var cacheFile = MigrationCache.fileFor(path);
+            final var fingerprints = cache
+                ? MigrationCache.load(cacheFile)
+                : new MigrationCache();
+
+            // read and parse every migration file just once
+            final var index = cache
+                ? indexOf(files, fingerprints)
+                : indexOf(path);
+
+            // the throttles kept by a previous run are always taken
+            final var journalFile = MigrationJournal.fileFor(path);
+            final var journal = MigrationJournal.load(journalFile);
+            throttleOf().restore(journal.getThrottles());
+
+            // the topics completed by the failed run are not looked up again
+            final var topics = resume
+                ? journal.pending(index.topics(), index)
+                : index.topics();
+            log.debug("{} topics skipped, completed by the journal",
+                index.topics().size() - topics.size());
+
+            // fetch the latest migration of every 'topic' in one pass
+            final var states = retryOf().call("the lookup of the topics",
+                () -> backend.current(ResourceType.TOPIC, topics));
+            log.debug("Current state of {} topics {}", topics.size(), states);
+
+            final var found = !files.isEmpty() || !index.topics().isEmpty();
+            if(topics.isEmpty() && found){
+                reporter.uptodate();
+            }
+
+            // the up to date topics are completed already
+            topics.stream()
+                .filter(topic -> index.newer(currentVersionOf(topic, states), topic).isEmpty())
+                .forEach(topic -> journal.checkpoint(topic, currentVersionOf(topic, states)));
+
+            if(resume){
+                journal.save(journalFile);
+            }
+
+            final List<TopicOutcome> outcomes;
+            try{
+                outcomes = migrateAndCommit(topics, states, index, admin,
+                    current -> {
+                        log.debug("New Topic's state {}", current);
+                        journal.checkpoint(current.getResourceName(),
+                            current.getVersion());
+
+                        // kept on disk as it goes, a crash loses nothing committed
+                        if(resume){
+                            journal.save(journalFile);
+                        }
+                    });
+
+            }catch(RuntimeException e){
+                keepThrottles(journal, journalFile, false);
+                if(resume){
+                    log.info("Progress kept at {}, run again with --resume to continue",
+                        journalFile);
+                }
+                throw e;
+            }
+
+            keepThrottles(journal, journalFile, true);
+
+            if(cache){
+                confirm(fingerprints, files, index, states, outcomes);
+                fingerprints.save(cacheFile);
+            }
+        }
+    }
+
+    /**
+     * Records the throttles kept by the moves still running in the journal,
+     * for the next run to remove, along with the progress when resuming.
+     * The journal goes away when the run completes and nothing was kept.
+     */
+    private void keepThrottles(MigrationJournal journal, Path journalFile,
+            boolean completed) {
+
+        journal.setThrottles(throttleOf().kept());
+
+        if(completed && journal.getThrottles().isEmpty()){
+            MigrationJournal.remove(journalFile);
+
+        } else if(resume || !journal.getThrottles().isEmpty()
+                || Files.exists(journalFile)){
+            journal.save(journalFile);
+        }
+    }
+
+    /**
+     * Migrates the topics, commits the applied migrations of each topic, or
+     * of each wave with {@link #isBatch()}, as soon as they are done, even
+     * when a later one fails, and reports the outcomes in the topics order
+     *
+     * @param committed Receives the new state after each committed migration
+     * @throws RuntimeException The first failure, by topic, with the failure
+     * of its commit as suppressed, if any
+     */
+    List<TopicOutcome> migrateAndCommit(Collection<String> topics,
+            Map<String, Resource> states, MigrationIndex index,
+            AdminClient admin, Consumer<Resource> committed) {
+
+        // the cluster may have changed since the previous run, of a reconcile
+        synchronized(this){
+            clusterLoad = null;
+        }
+
+        final var outcomes = migrate(topics, states, index, admin, committed);
+
+        // reported in the topics order, whatever the completion order
+        outcomes.forEach(outcome -> {
+            if(outcome.isUptodate()){
+                reporter.uptodate();
+            } else {
+                outcome.getApplied().forEach(reporter::report);
+            }
+        });
+
+        // the partitions moved before a failure too
+        elect(admin);
+
+        // the first failure, by topic, stops the command
+        outcomes.stream()
+            .filter(TopicOutcome::failed)
+            .map(TopicOutcome::getFailure)
+            .findFirst()
+            .ifPresent(failure -> {
+                throw failure;
+            });
+
+        return outcomes;
+    }
+
+    /**
+     * Commits the applied migrations in one transaction, so a later failure
+     * or crash does not lose them
+     *
+     * @return The failure of the commit, if any
+     */
+    private Optional<RuntimeException> commit(List<Migration> applied,
+            Consumer<Resource> committed) {
+
+        if(applied.isEmpty()){
+            return Optional.empty();
+        }
+
+        try{
+            backend.commitAll(applied).forEach(committed);
+            return Optional.empty();
+
+        }catch(RuntimeException e){
+            log.debug("Failing to commit {} migrations: {}", applied.size(),
+                e.getMessage());
+            return Optional.of(e);
+        }
+    }
+
+    /**
+     * Loads just the topics that are not clean in the cache: the changed
+     * files first, to know their topics, then the unchanged files of the
+     * topics that must be migrated
+     */
+    private MigrationIndex indexOf(List<Path> files, MigrationCache fingerprints) {
+
+        final var loader = loaderOf();
+
+        final var changedFiles = files.stream()
+            .filter(fingerprints::changed)
+            .collect(Collectors.toSet());
+
+        final var changed = MigrationIndex.load(changedFiles, loader);
+
+        final var unchanged = fingerprints.unchangedTopics(files, changed);
+        final var watermarks = backend.watermarks(ResourceType.TOPIC, unchanged);
+
+        final Set<String> clean = unchanged.stream()
+            .filter(topic -> fingerprints.clean(topic, watermarks.get(topic)))
+            .collect(Collectors.toSet());
+        log.debug("{} topics skipped, they are clean in the cache", clean.size());
+
+        final var rest = files.stream()
+            .filter(file -> !changedFiles.contains(file))
+            .filter(file -> fingerprints.topicOf(file)
+                .map(topic -> !clean.contains(topic))
+                .orElse(Boolean.TRUE))
+            .collect(Collectors.toList());
+
+        final var operations = new ArrayList<>(changed);
+        operations.addAll(MigrationIndex.load(rest, loader));
+
+        return MigrationIndex.of(operations);
+    }
+
+    /**
+     * Records the version of each migrated topic, as confirmed by the
+     * backend, along with its new watermark
+     */
+    private void confirm(MigrationCache fingerprints, List<Path> files,
+            MigrationIndex index, Map<String, Resource> states,
+            List<TopicOutcome> outcomes) {
+
+        final var watermarks =
+            backend.watermarks(ResourceType.TOPIC, index.topics());
+
+        outcomes.forEach(outcome -> {
+            var topic = outcome.getTopic();
+            var version = outcome.getApplied().stream()
+                .map(Migration::getVersion)
+                .reduce((first, second) -> second)
+                .orElseGet(() -> currentVersionOf(topic, states));
+
+            fingerprints.confirm(topic, version, watermarks.get(topic),
+                index.all(topic));
+        });
+
+        fingerprints.retain(files);
+    }
+
+    /**
+     * Resolves and checks the pending migrations, without any write to the
+     * cluster: no Admin client and a read-only backend
+     */
+    private void plan() throws IOException {
+
+        backend.init(parent.getReadOnlyBackendConfiguration());
+
+        final var index = indexOf(Path.of(directory.getAbsolutePath()));
+
+        final var topics = index.topics();
+        final var states = backend.current(ResourceType.TOPIC, topics);
+
+        final var rules = getRuleEnforcement(parent.getConfiguration());
+        final var steps = new ArrayList<PlanStep>();
+
+        for(var topic : topics){
+            final var currentVersion = currentVersionOf(topic, states);
+
+            for(var to : index.newer(currentVersion, topic)){
+                rules.check(to);
+                steps.add(PlanStep.of(to));
+            }
+        }
+
+        log.debug("Plan with {} steps", steps.size());
+        reporter.plan(steps, format);
+    }
+
+    /**
+     * Applies the newer migrations of each topic, in version order, with
+     * up to {@link #getParallelism()} topics at the same time. Once a topic
+     * fails, the topics not yet started are skipped. With {@link #isBatch()}
+     * the topics are migrated in waves instead.
+     *
+     * @param committed Receives the new state after each committed migration
+     * @return One outcome per topic, in the same order of the topics
+     */
+    List<TopicOutcome> migrate(Collection<String> topics,
+            Map<String, Resource> states, MigrationIndex index,
+            AdminClient admin, Consumer<Resource> committed) {
+
+        final var rules = getRuleEnforcement(parent.getConfiguration());
+
+        if(batch){
+            return migrateInWaves(topics, states, index, rules, admin, committed);
+        }
+
+        final var failed = new AtomicBoolean(false);
+
+        if(parallelism == 1 || topics.size() <= 1){
+            return topics.stream()
+                .map(topic -> migrate(topic, states, index, rules, admin,
+                    failed, committed))
+                .collect(Collectors.toList());
+        }
+
+        final var executor = Executors.newFixedThreadPool(
+            Math.min(parallelism, topics.size()));
+        try{
+            final var futures = topics.stream()
+                .map(topic -> executor.submit(() ->
+                    migrate(topic, states, index, rules, admin, failed,
+                        committed)))
+                .collect(Collectors.toList());
+
+            final var outcomes = new ArrayList<TopicOutcome>();
+            for(Future<TopicOutcome> future : futures){
+                outcomes.add(future.get());
+            }
+
+            return outcomes;
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new CommandLine.ExecutionException(spec.commandLine(),
+                "interrupted while applying migrations", e);
+
+        }catch(ExecutionException e){
+            // the topic task itself catches the migration failures
+            throw new CommandLine.ExecutionException(spec.commandLine(),
+                "general error: " + e.getCause().getMessage(), e.getCause());
+
+        }finally{
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * The wave <code>n</code> has the <code>n</code>-th newer migration of
+     * each topic, all of them executed by one {@link BatchExecutor} and
+     * committed together. The waves stop after the first one with a failure.
+     */
+    private List<TopicOutcome> migrateInWaves(Collection<String> topics,
+            Map<String, Resource> states, MigrationIndex index,
+            TopicRuleEnforcement rules, AdminClient admin,
+            Consumer<Resource> committed) {
+
+        final var outcomes = new LinkedHashMap<String, TopicOutcome>();
+        final var chains = new HashMap<String, List<TopicOperation>>();
+
+        for(var topic : topics){
+            final var currentVersion = currentVersionOf(topic, states);
+
+            var newersList = index.newer(currentVersion, topic);
+
+            var outcome = new TopicOutcome(topic);
+            outcome.uptodate = newersList.isEmpty();
+
+            outcomes.put(topic, outcome);
+            chains.put(topic, newersList);
+        }
+
+        final var executor = batchOf(admin);
+        for(int wave = 0; outcomes.values().stream().noneMatch(TopicOutcome::failed); wave++){
+
+            final var position = wave;
+            final var operations = topics.stream()
+                .map(chains::get)
+                .filter(chain -> chain.size() > position)
+                .map(chain -> chain.get(position))
+                .collect(Collectors.toList());
+
+            if(operations.isEmpty()){
+                break;
+            }
+
+            log.debug("Wave {} with {} operations", wave, operations.size());
+
+            // check the migrations against rules
+            final var checked = new ArrayList<TopicOperation>();
+            for(var to : operations){
+                try{
+                    rules.check(to);
+                    checked.add(to);
+
+                }catch(RuntimeException e){
+                    outcomes.get(to.getTopic()).failure = e;
+                }
+            }
+
+            final var failures = executor.execute(checked);
+
+            final var applied = new ArrayList<Migration>();
+            for(var to : checked){
+                var outcome = outcomes.get(to.getTopic());
+                var failure = failures.get(to.getTopic());
+
+                if(Objects.isNull(failure)){
+                    try{
+                        var migration = to.toMigration();
+
+                        log.debug("Migration to commit {}", migration);
+                        outcome.applied.add(migration);
+                        applied.add(migration);
+
+                    }catch(RuntimeException e){
+                        outcome.failure = e;
+                    }
+                } else {
+                    outcome.failure = failure;
+                }
+            }
+
+            // the wave is committed before the next one starts
+            commit(applied, committed).ifPresent(failure ->
+                applied.stream()
+                    .map(Migration::getResourceName)
+                    .map(outcomes::get)
+                    .forEach(outcome -> outcome.fail(failure)));
+        }
+
+        return new ArrayList<>(outcomes.values());
+    }
+
+    private TopicOutcome migrate(String topic, Map<String, Resource> states,
+            MigrationIndex index, TopicRuleEnforcement rules, AdminClient admin,
+            AtomicBoolean failed, Consumer<Resource> committed) {
+
+        final var outcome = new TopicOutcome(topic);
+        if(failed.get()){
+            log.debug("Skipping {} because another topic failed", topic);
+            return outcome;
+        }
+
+        final var currentVersion = currentVersionOf(topic, states);
+
+        // Load newer migrations if any
+        var newersList = index.newer(currentVersion, topic);
+        outcome.uptodate = newersList.isEmpty();
+
+        try{
+            for(var to : newersList){
+
+                // check the migration against rules
+                rules.check(to);
+
+                // create, patch or remove?
+                final var strategy = strategyOf(to);
+
+                var migration = to.toMigration();
+
+                // apply the strategy
+                strategy.execute(admin);
+
+                log.debug("Migration to commit {}", migration);
+                outcome.applied.add(migration);
+            }
+        }catch(RuntimeException e){
+            log.debug("Failing to migrate {}: {}", topic, e.getMessage());
+            outcome.failure = e;
+            failed.set(true);
+        }
+
+        // the topic is committed as soon as it is done, even when it fails
+        commit(outcome.applied, committed).ifPresent(failure -> {
+            outcome.fail(failure);
+            failed.set(true);
+        });
+
+        return outcome;
+    }
 }
@@ -0,0 +1,116 @@
+package com.github.kattlo.topic;
+
+import javax.inject.Inject;
+
+import com.github.kattlo.core.backend.Backend;
+import com.github.kattlo.core.backend.BackendException;
+import com.github.kattlo.core.backend.ResourceType;
+import com.github.kattlo.core.exception.TopicDescriptionException;
+import com.github.kattlo.core.kafka.Kafka;
+import com.github.kattlo.core.report.PrintStreamReporter;
+import com.github.kattlo.core.report.ReportFormat;
+import com.github.kattlo.core.report.Reporter;
+import com.github.kattlo.topic.drift.DriftDetector;
+
+import org.apache.kafka.clients.admin.AdminClient;
+
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+import picocli.CommandLine.Spec;
+import picocli.CommandLine.Model.CommandSpec;
+
+/**
+ * Compares the committed state of every managed topic with the cluster,
+ * without any write: the backend is read-only.
+ *
+ * @author fabiojose
+ */
+@Command(
+    name = "drift",
+    description = "To compare the committed state of the topics with the cluster",
+    mixinStandardHelpOptions = true
+)
+@Slf4j
+public class TopicDriftCommand implements Runnable {
+
+    @ParentCommand
+    TopicCommand parent;
+
+    @Spec
+    CommandSpec spec;
+
+    @Inject
+    Backend backend;
+
+    @Inject
+    Kafka kafka;
+
+    private final Reporter reporter = new PrintStreamReporter(System.out);
+
+    private ReportFormat format = ReportFormat.PLAIN;
+
+    private int chunkSize = DriftDetector.DEFAULT_CHUNK_SIZE;
+
+    @Option(
+        names = {
+            "--format"
+        },
+        description = "The format to print the drift: ${COMPLETION-CANDIDATES}",
+        defaultValue = "PLAIN"
+    )
+    public void setFormat(ReportFormat format) {
+        this.format = format;
+    }
+
+    @Option(
+        names = {
+            "--chunk-size"
+        },
+        description = "Maximum number of topics described by each Admin request",
+        defaultValue = "1000"
+    )
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    private void validateOptions() {
+        parent.getParent().validateOptions();
+
+        if(chunkSize < 1){
+            throw new CommandLine.
+                ParameterException(spec.commandLine(),
+                        "--chunk-size must be greater than zero, but was " + chunkSize);
+        }
+    }
+
+    DriftDetector detectorOf(AdminClient admin) {
+        return new DriftDetector(admin, chunkSize);
+    }
+
+    @Override
+    public void run() {
+        validateOptions();
+
+        try(var admin = kafka.adminFor(parent.getParent()
+                .getKafkaConfiguration())){
+
+            backend.init(parent.getParent().getReadOnlyBackendConfiguration());
+
+            // the state of every managed topic, in one pass
+            var states = backend.currentAll(ResourceType.TOPIC);
+            log.debug("Committed state of {} topics", states.size());
+
+            var drifts = detectorOf(admin).detect(states.values());
+
+            reporter.drift(drifts, format);
+
+        }catch(BackendException | TopicDescriptionException e){
+            reporter.report(e);
+            throw new CommandLine.ExecutionException(spec.commandLine(),
+                "general error: " + e.getMessage(), e);
+        }
+    }
+}
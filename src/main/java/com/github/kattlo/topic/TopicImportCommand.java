@@ -132,7 +132,7 @@ public class TopicImportCommand implements Runnable {
         try(var admin = kafka.adminFor(parent.getParent()
                 .getKafkaConfiguration())){
 
-            backend.init(parent.getParent().getKafkaConfiguration());
+            backend.init(parent.getParent().getBackendConfiguration());
 
             // describe topic
             var description =
@@ -0,0 +1,383 @@
+package com.github.kattlo.topic;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.inject.Inject;
+
+import com.github.kattlo.core.backend.Backend;
+import com.github.kattlo.core.backend.BackendException;
+import com.github.kattlo.core.backend.Resource;
+import com.github.kattlo.core.backend.ResourceType;
+import com.github.kattlo.core.exception.TopicDescriptionException;
+import com.github.kattlo.core.kafka.Kafka;
+import com.github.kattlo.core.report.PrintStreamReporter;
+import com.github.kattlo.core.report.ReportFormat;
+import com.github.kattlo.core.report.Reporter;
+import com.github.kattlo.core.yaml.MigrationLoader;
+import com.github.kattlo.topic.drift.DriftCorrector;
+import com.github.kattlo.topic.drift.DriftDetector;
+import com.github.kattlo.topic.drift.TopicDrift;
+import com.github.kattlo.topic.yaml.MigrationIndex;
+import com.github.kattlo.topic.yaml.TopicOperation;
+import com.github.kattlo.util.NumberUtil;
+
+import org.apache.kafka.clients.admin.AdminClient;
+
+import lombok.extern.slf4j.Slf4j;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+import picocli.CommandLine.Spec;
+import picocli.CommandLine.Model.CommandSpec;
+
+/**
+ * Keeps running with warm Kafka clients: applies the migration files as
+ * soon as they land in the directory and checks the drift of the managed
+ * topics on a schedule.
+ *
+ * The parsed migration files and the state of the topics stay in memory.
+ * Just the created or modified files are parsed again, and just the topics
+ * whose backend watermark moved, because of another Kattlo execution, are
+ * fetched again.
+ *
+ * @author fabiojose
+ */
+@Command(
+    name = "reconcile",
+    description = "To apply the new migrations as they land and check the drift on a schedule",
+    mixinStandardHelpOptions = true
+)
+@Slf4j
+public class TopicReconcileCommand implements Runnable {
+
+    /**
+     * The quiet time after a file event, so a file being copied is parsed
+     * once, when complete
+     */
+    private static final long DEBOUNCE_MS = 500;
+
+    @ParentCommand
+    TopicCommand parent;
+
+    @Spec
+    CommandSpec spec;
+
+    @Inject
+    Backend backend;
+
+    @Inject
+    Kafka kafka;
+
+    private final Reporter reporter = new PrintStreamReporter(System.out);
+
+    private Duration interval = Duration.ofSeconds(60);
+
+    private boolean correct;
+
+    /**
+     * The parsed migrations, keyed by file
+     */
+    private final Map<Path, TopicOperation> operations = new HashMap<>();
+
+    /**
+     * The state of the topics, keyed by name
+     */
+    private final Map<String, Resource> states = new HashMap<>();
+
+    private Map<String, Long> watermarks = Map.of();
+
+    @Option(
+        names = {
+            "--interval"
+        },
+        description = "Time between the drift checks, like 60s, 5m or 1h",
+        defaultValue = "60s"
+    )
+    public void setInterval(String interval) {
+        try{
+            this.interval = NumberUtil.durationOf(interval);
+        }catch(IllegalArgumentException e){
+            throw new CommandLine.
+                ParameterException(spec.commandLine(), e.getMessage());
+        }
+    }
+
+    @Option(
+        names = {
+            "--correct"
+        },
+        description = "Bring the drifted configs and partitions back to the committed state"
+    )
+    public void setCorrect(boolean correct) {
+        this.correct = correct;
+    }
+
+    private void validateOptions() {
+        parent.validateOptions();
+
+        if(interval.isZero() || interval.isNegative()){
+            throw new CommandLine.
+                ParameterException(spec.commandLine(),
+                        "--interval must be greater than zero");
+        }
+    }
+
+    Map<String, Resource> getStates() {
+        return states;
+    }
+
+    DriftDetector detectorOf(AdminClient admin) {
+        return new DriftDetector(admin);
+    }
+
+    DriftCorrector correctorOf(AdminClient admin) {
+        return new DriftCorrector(admin);
+    }
+
+    /**
+     * Parses again the changed files and the new ones, forgetting the
+     * removed ones
+     *
+     * @param changed The created or modified files, or <code>null</code> to
+     * parse all the files again
+     */
+    MigrationIndex refresh(Path directory, Set<Path> changed) throws IOException {
+
+        final var files = parent.filesOf(directory);
+        operations.keySet().retainAll(files);
+
+        final var toLoad = files.stream()
+            .filter(file -> Objects.isNull(changed)
+                || changed.contains(file)
+                || !operations.containsKey(file))
+            .collect(Collectors.toList());
+        log.debug("{} migration files to parse", toLoad.size());
+
+        MigrationIndex.load(toLoad, parent.loaderOf())
+            .forEach(operation -> operations.put(operation.getFile(), operation));
+
+        return MigrationIndex.of(operations.values());
+    }
+
+    /**
+     * Applies the newer migrations, keeping the new states in memory
+     */
+    void apply(MigrationIndex index, AdminClient admin) {
+
+        final var pending = index.topics().stream()
+            .filter(topic -> !index.newer(
+                TopicCommand.currentVersionOf(topic, states), topic).isEmpty())
+            .collect(Collectors.toCollection(TreeSet::new));
+
+        if(pending.isEmpty()){
+            log.debug("Every migration already applied");
+            return;
+        }
+
+        parent.migrateAndCommit(pending, Map.copyOf(states), index, admin,
+            state -> states.put(state.getResourceName(), state));
+    }
+
+    /**
+     * Fetches again the topics whose backend watermark moved since the
+     * previous check
+     */
+    private void refreshStates(Set<String> topics) {
+        final var current = backend.watermarks(ResourceType.TOPIC, topics);
+
+        final var moved = topics.stream()
+            .filter(topic -> !Objects.equals(current.get(topic), watermarks.get(topic)))
+            .collect(Collectors.toSet());
+
+        if(!moved.isEmpty()){
+            log.debug("State of {} topics moved", moved.size());
+            states.putAll(backend.current(ResourceType.TOPIC, moved));
+        }
+
+        watermarks = current;
+    }
+
+    /**
+     * Compares the state in memory with the cluster, correcting the drift
+     * when asked to
+     */
+    List<TopicDrift> check(AdminClient admin) {
+
+        final var topics = new HashSet<>(states.keySet());
+        operations.values().forEach(o -> topics.add(o.getTopic()));
+        refreshStates(topics);
+
+        final var drifts = detectorOf(admin).detect(states.values());
+        reporter.drift(drifts, ReportFormat.PLAIN);
+
+        final var drifted = drifts.stream()
+            .filter(TopicDrift::drifted)
+            .collect(Collectors.toList());
+
+        if(correct && !drifted.isEmpty()){
+            final var failures = correctorOf(admin).correct(drifted);
+            failures.values().forEach(reporter::report);
+
+            log.info("Drift corrected in {} of {} topics",
+                drifted.size() - failures.size(), drifted.size());
+        }
+
+        return drifts;
+    }
+
+    private void register(Path directory, WatchService watcher)
+            throws IOException {
+
+        final var depth = parent.isRecursive() ? Integer.MAX_VALUE : 1;
+        try(var directories = Files.walk(directory, depth)){
+            for(var dir : directories
+                    .filter(Files::isDirectory)
+                    .filter(dir -> !MigrationLoader.hidden(directory.relativize(dir)))
+                    .collect(Collectors.toList())){
+
+                dir.register(watcher, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                log.debug("Watching {}", dir);
+            }
+        }
+    }
+
+    /**
+     * Collects the events of the key and of the ones that arrive during
+     * the quiet time
+     *
+     * @return The changed files, or <code>null</code> when some events were
+     * lost
+     */
+    private Set<Path> changesOf(WatchKey first, WatchService watcher)
+            throws IOException, InterruptedException {
+
+        final var changed = new HashSet<Path>();
+        var overflow = false;
+
+        for(var key = first; Objects.nonNull(key);
+                key = watcher.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS)){
+
+            final var dir = (Path)key.watchable();
+            for(var event : key.pollEvents()){
+                if(OVERFLOW.equals(event.kind())){
+                    overflow = true;
+                    continue;
+                }
+
+                final var path = dir.resolve((Path)event.context());
+                if(parent.isRecursive() && ENTRY_CREATE.equals(event.kind())
+                        && Files.isDirectory(path)){
+                    register(path, watcher);
+                }
+
+                changed.add(path);
+            }
+
+            key.reset();
+        }
+
+        log.debug("Changed files {}", changed);
+        return overflow ? null : changed;
+    }
+
+    private void reconcile(Path directory, Set<Path> changed, AdminClient admin)
+            throws IOException {
+
+        try{
+            apply(refresh(directory, changed), admin);
+
+        }catch(TopicRuleException e){
+            reporter.report(e);
+
+        }catch(BackendException e){
+            throw e;
+
+        }catch(RuntimeException e){
+            // a file not parseable yet or a failed migration, both retried
+            // with the next change of the files
+            reporter.report(e);
+        }
+    }
+
+    private void scheduled(AdminClient admin) {
+        try{
+            check(admin);
+
+        }catch(TopicDescriptionException e){
+            // retried at the next check
+            reporter.report(e);
+        }
+    }
+
+    @Override
+    public void run() {
+        validateOptions();
+
+        final var directory = Path.of(parent.getDirectory().getAbsolutePath());
+
+        try(var admin = kafka.adminFor(parent.getParent().getKafkaConfiguration());
+            var watcher = FileSystems.getDefault().newWatchService()){
+
+            backend.init(parent.getParent().getBackendConfiguration());
+
+            // the only full scan of the backend
+            states.putAll(backend.currentAll(ResourceType.TOPIC));
+            watermarks = backend.watermarks(ResourceType.TOPIC, states.keySet());
+            log.debug("State of {} topics in memory", states.size());
+
+            register(directory, watcher);
+            reconcile(directory, null, admin);
+            scheduled(admin);
+
+            var nextCheck = System.nanoTime() + interval.toNanos();
+            while(!Thread.currentThread().isInterrupted()){
+
+                final var remaining = Math.max(0, nextCheck - System.nanoTime());
+                final var key = watcher.poll(remaining, TimeUnit.NANOSECONDS);
+
+                if(Objects.nonNull(key)){
+                    reconcile(directory, changesOf(key, watcher), admin);
+                }
+
+                if(System.nanoTime() >= nextCheck){
+                    scheduled(admin);
+                    nextCheck = System.nanoTime() + interval.toNanos();
+                }
+            }
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            log.debug("Reconcile interrupted");
+
+        }catch(IOException e){
+            throw new CommandLine.ExecutionException(spec.commandLine(),
+                "failing to watch migrations: " + e.getMessage(), e);
+
+        }catch(BackendException e){
+            reporter.report(e);
+            throw new CommandLine.ExecutionException(spec.commandLine(),
+                "general error: " + e.getMessage(), e);
+        }
+    }
+}
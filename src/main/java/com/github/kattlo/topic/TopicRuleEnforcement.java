@@ -37,7 +37,7 @@ public class TopicRuleEnforcement {
         this.configuration = configuration;
     }
 
-    private TopicRules getRules(File configuration) throws IOException {
+    private synchronized TopicRules getRules(File configuration) throws IOException {
         if(null== rules){
             var rulesMap = ConfigurationLoader.load(configuration, ResourceType.TOPIC);
             log.debug("Rules loaded {}", rulesMap);
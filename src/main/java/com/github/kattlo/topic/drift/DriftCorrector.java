@@ -0,0 +1,157 @@
+package com.github.kattlo.topic.drift;
+
+import static org.apache.kafka.clients.admin.NewPartitions.increaseTo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import com.github.kattlo.topic.migration.TopicPatchException;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.AlterConfigOp.OpType;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.ConfigEntry.ConfigSource;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.ConfigResource.Type;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Brings the drifted topics back to their committed state, with one
+ * <code>incrementalAlterConfigs</code> and one <code>createPartitions</code>
+ * request for all of them.
+ *
+ * Just the configs and the missing partitions are corrected: a topic can
+ * not lose partitions, and the replicas and the existence of a topic are
+ * left to the migrations. A <code>$default</code> config with a value that
+ * does not come from the topic, but from the brokers, is left as is.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class DriftCorrector {
+
+    private static final String DEFAULT_KEYWORD = "$default";
+
+    private final AdminClient admin;
+
+    public DriftCorrector(AdminClient admin) {
+        this.admin = Objects.requireNonNull(admin);
+    }
+
+    private static AlterConfigOp opFor(TopicDrift.Difference difference) {
+        var name = difference.getAttribute()
+            .substring(DriftDetector.CONFIG_ATTRIBUTE_PREFIX.length());
+
+        if(DEFAULT_KEYWORD.equals(difference.getExpected())){
+            return new AlterConfigOp(new ConfigEntry(name, DEFAULT_KEYWORD),
+                OpType.DELETE);
+        }
+
+        return new AlterConfigOp(new ConfigEntry(name,
+            DriftDetector.normalize(difference.getExpected())), OpType.SET);
+    }
+
+    /**
+     * @return <code>true</code> when the expected value is the default and
+     * the actual one is not set on the topic, so there is nothing to remove
+     */
+    private static boolean notOfTopic(TopicDrift.Difference difference) {
+        return DEFAULT_KEYWORD.equals(difference.getExpected())
+            && Objects.nonNull(difference.getSource())
+            && !ConfigSource.DYNAMIC_TOPIC_CONFIG.name().equals(difference.getSource());
+    }
+
+    private static boolean missingPartitions(TopicDrift.Difference difference) {
+        try{
+            return DriftDetector.PARTITIONS_ATTRIBUTE.equals(difference.getAttribute())
+                && Integer.parseInt(difference.getActual())
+                    < Integer.parseInt(DriftDetector.normalize(difference.getExpected()));
+
+        }catch(NumberFormatException e){
+            return false;
+        }
+    }
+
+    private static <T> void await(String topic, KafkaFuture<T> future,
+            Map<String, RuntimeException> failures) {
+
+        try{
+            future.get();
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            failures.put(topic, new TopicPatchException(e.getMessage(), e));
+
+        }catch(ExecutionException e){
+            failures.put(topic, new TopicPatchException(e.getMessage(), e));
+        }
+    }
+
+    /**
+     * @return The failure of each topic that could not be corrected, keyed
+     * by topic. Empty when all of them were corrected
+     */
+    public Map<String, RuntimeException> correct(Collection<TopicDrift> drifts) {
+        Objects.requireNonNull(drifts);
+
+        var configs = new HashMap<ConfigResource, Collection<AlterConfigOp>>();
+        var partitions = new HashMap<String, NewPartitions>();
+
+        for(var drift : drifts){
+            var ops = new ArrayList<AlterConfigOp>();
+
+            for(var difference : drift.getDifferences()){
+                if(difference.getAttribute()
+                        .startsWith(DriftDetector.CONFIG_ATTRIBUTE_PREFIX)){
+
+                    if(notOfTopic(difference)){
+                        log.debug("Skipping {} of {}, its value comes from {}",
+                            difference.getAttribute(), drift.getTopic(),
+                            difference.getSource());
+                    } else {
+                        ops.add(opFor(difference));
+                    }
+
+                } else if(missingPartitions(difference)){
+                    partitions.put(drift.getTopic(), increaseTo(
+                        Integer.parseInt(DriftDetector.normalize(difference.getExpected()))));
+
+                } else {
+                    log.warn("Can not correct {} of {}: expected {}, actual {}",
+                        difference.getAttribute(), drift.getTopic(),
+                        difference.getExpected(), difference.getActual());
+                }
+            }
+
+            if(!ops.isEmpty()){
+                configs.put(new ConfigResource(Type.TOPIC, drift.getTopic()), ops);
+            }
+        }
+
+        var failures = new HashMap<String, RuntimeException>();
+
+        if(!configs.isEmpty()){
+            log.debug("Configurations to correct {}", configs);
+            admin.incrementalAlterConfigs(configs).values()
+                .forEach((resource, future) ->
+                    await(resource.name(), future, failures));
+        }
+
+        if(!partitions.isEmpty()){
+            log.debug("Partitions to correct {}", partitions);
+            admin.createPartitions(partitions).values()
+                .forEach((topic, future) -> await(topic, future, failures));
+        }
+
+        log.debug("Failures of the correction {}", failures);
+        return failures;
+    }
+}
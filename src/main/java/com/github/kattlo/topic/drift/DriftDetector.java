@@ -0,0 +1,295 @@
+package com.github.kattlo.topic.drift;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import com.github.kattlo.core.backend.Resource;
+import com.github.kattlo.core.backend.ResourceStatus;
+import com.github.kattlo.core.backend.TopicResourceJoinner;
+import com.github.kattlo.core.exception.TopicDescriptionException;
+import com.github.kattlo.util.MachineReadableSupport;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.ConfigResource.Type;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the committed state of many topics with their actual state in
+ * the cluster, describing all of them with one <code>describeTopics</code>
+ * and one <code>describeConfigs</code> request per chunk of topics. The
+ * requests of every chunk are sent before waiting for any response.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class DriftDetector {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    static final String TOPIC_ATTRIBUTE = "topic";
+    static final String PARTITIONS_ATTRIBUTE = "partitions";
+    static final String REPLICATION_FACTOR_ATTRIBUTE = "replicationFactor";
+    static final String CONFIG_ATTRIBUTE_PREFIX =
+        TopicResourceJoinner.CONFIG_KEYWORD + ".";
+
+    private static final String DEFAULT_KEYWORD = "$default";
+    private static final String PRESENT = "present";
+
+    private final AdminClient admin;
+    private final int chunkSize;
+
+    public DriftDetector(AdminClient admin) {
+        this(admin, DEFAULT_CHUNK_SIZE);
+    }
+
+    public DriftDetector(AdminClient admin, int chunkSize) {
+        this.admin = Objects.requireNonNull(admin);
+
+        if(chunkSize < 1){
+            throw new IllegalArgumentException(
+                "chunk size must be greater than zero");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    private <T> List<List<T>> chunksOf(List<T> all) {
+        var chunks = new ArrayList<List<T>>();
+        for(int from = 0; from < all.size(); from += chunkSize){
+            chunks.add(all.subList(from, Math.min(from + chunkSize, all.size())));
+        }
+
+        return chunks;
+    }
+
+    private static <T> T await(KafkaFuture<T> future, String topic) {
+        try{
+            return future.get();
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new TopicDescriptionException(e.getMessage(), e);
+
+        }catch(ExecutionException e){
+            if(e.getCause() instanceof UnknownTopicOrPartitionException){
+                log.debug("Topic {} does not exist", topic);
+                return null;
+            }
+
+            throw new TopicDescriptionException("failing to describe "
+                + topic + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return The description of each existing topic, keyed by name
+     */
+    private Map<String, TopicDescription> describe(List<String> topics) {
+
+        var chunks = chunksOf(topics);
+        var futures = new HashMap<String, KafkaFuture<TopicDescription>>();
+        chunks.forEach(chunk ->
+            futures.putAll(admin.describeTopics(chunk).values()));
+        log.debug("{} topics described in {} requests", topics.size(),
+            chunks.size());
+
+        var descriptions = new HashMap<String, TopicDescription>();
+        for(var topic : topics){
+            Optional.ofNullable(await(futures.get(topic), topic))
+                .ifPresent(description -> descriptions.put(topic, description));
+        }
+
+        return descriptions;
+    }
+
+    /**
+     * @return The configs of each existing topic, keyed by name
+     */
+    private Map<String, Config> configsOf(List<String> topics) {
+
+        var resources = topics.stream()
+            .map(topic -> new ConfigResource(Type.TOPIC, topic))
+            .collect(Collectors.toList());
+
+        var futures = new HashMap<ConfigResource, KafkaFuture<Config>>();
+        chunksOf(resources).forEach(chunk ->
+            futures.putAll(admin.describeConfigs(chunk).values()));
+
+        var configs = new HashMap<String, Config>();
+        for(var resource : resources){
+            Optional.ofNullable(await(futures.get(resource), resource.name()))
+                .ifPresent(config -> configs.put(resource.name(), config));
+        }
+
+        return configs;
+    }
+
+    /**
+     * The machine readable value, with the numbers in their plain form, so
+     * <code>1GiB</code>, <code>1073741824</code> and
+     * <code>1073741824.0</code> are the same
+     */
+    static String normalize(Object value) {
+        try{
+            var machine = MachineReadableSupport.of(value)
+                .getMachineReadable()
+                .toString()
+                .trim();
+
+            return new BigDecimal(machine).stripTrailingZeros().toPlainString();
+
+        }catch(IllegalArgumentException e){
+            // not a number, nor a human readable one
+            return value.toString().trim();
+        }
+    }
+
+    private static String replicationFactorOf(TopicDescription description) {
+        return description.partitions().stream()
+            .map(partition -> partition.replicas().size())
+            .distinct()
+            .sorted()
+            .map(String::valueOf)
+            .collect(Collectors.joining(","));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void diffConfig(Map<String, Object> attributes,
+            Config actual, TopicDrift drift) {
+
+        var expected = Optional.ofNullable(
+                attributes.get(TopicResourceJoinner.CONFIG_KEYWORD))
+            .map(c -> (Map<String, Object>)c)
+            .orElse(Map.of());
+
+        new TreeMap<>(expected).entrySet().stream()
+            .filter(kv -> Objects.nonNull(kv.getValue()))
+            .forEach(kv -> {
+                var entry = Optional.ofNullable(actual)
+                    .map(config -> config.get(kv.getKey()));
+
+                var attribute = CONFIG_ATTRIBUTE_PREFIX + kv.getKey();
+                var value = entry.map(ConfigEntry::value).orElse(null);
+                var source = entry.map(ConfigEntry::source)
+                    .map(Enum::name)
+                    .orElse(null);
+
+                if(DEFAULT_KEYWORD.equals(kv.getValue())){
+                    // a broker or static value is not set by the topic
+                    if(entry.isPresent() && ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG
+                            .equals(entry.get().source())){
+                        drift.getDifferences().add(new TopicDrift.Difference(
+                            attribute, DEFAULT_KEYWORD, value, source));
+                    }
+
+                } else if(Objects.isNull(value)
+                        || !normalize(kv.getValue()).equals(normalize(value))){
+
+                    drift.getDifferences().add(new TopicDrift.Difference(
+                        attribute, kv.getValue().toString(), value, source));
+                }
+            });
+    }
+
+    /**
+     * @param description The actual description, <code>null</code> when
+     * the topic does not exist
+     * @param config The actual config, <code>null</code> when the topic does
+     * not exist
+     */
+    static TopicDrift diff(Resource state, TopicDescription description,
+            Config config) {
+
+        var drift = new TopicDrift(state.getResourceName(), state.getVersion());
+
+        if(ResourceStatus.DELETED.equals(state.getStatus())){
+            if(Objects.nonNull(description)){
+                drift.getDifferences().add(new TopicDrift.Difference(
+                    TOPIC_ATTRIBUTE, null, PRESENT));
+            }
+
+            return drift;
+        }
+
+        if(Objects.isNull(description)){
+            drift.getDifferences().add(new TopicDrift.Difference(
+                TOPIC_ATTRIBUTE, PRESENT, null));
+
+            return drift;
+        }
+
+        var attributes = Optional.ofNullable(state.getAttributes())
+            .orElse(Map.of());
+
+        Optional.ofNullable(attributes.get(PARTITIONS_ATTRIBUTE))
+            .ifPresent(expected -> {
+                var actual = String.valueOf(description.partitions().size());
+                if(!normalize(expected).equals(actual)){
+                    drift.getDifferences().add(new TopicDrift.Difference(
+                        PARTITIONS_ATTRIBUTE, expected.toString(), actual));
+                }
+            });
+
+        Optional.ofNullable(attributes.get(REPLICATION_FACTOR_ATTRIBUTE))
+            .ifPresent(expected -> {
+                var actual = replicationFactorOf(description);
+                if(!normalize(expected).equals(actual)){
+                    drift.getDifferences().add(new TopicDrift.Difference(
+                        REPLICATION_FACTOR_ATTRIBUTE, expected.toString(), actual));
+                }
+            });
+
+        diffConfig(attributes, config, drift);
+
+        return drift;
+    }
+
+    /**
+     * @param states The committed state of the topics
+     * @return The drift of every topic, sorted by name, including the ones
+     * without differences
+     * @throws TopicDescriptionException When any topic can not be described
+     */
+    public List<TopicDrift> detect(Collection<Resource> states) {
+        Objects.requireNonNull(states);
+
+        var byName = new TreeMap<String, Resource>();
+        states.forEach(state -> byName.put(state.getResourceName(), state));
+
+        var topics = new ArrayList<>(byName.keySet());
+        var descriptions = describe(topics);
+
+        // the configs of the deleted topics do not matter
+        var configs = configsOf(topics.stream()
+            .filter(descriptions::containsKey)
+            .filter(topic -> ResourceStatus.AVAILABLE
+                .equals(byName.get(topic).getStatus()))
+            .collect(Collectors.toList()));
+
+        var drifts = byName.values().stream()
+            .map(state -> diff(state,
+                descriptions.get(state.getResourceName()),
+                configs.get(state.getResourceName())))
+            .collect(Collectors.toList());
+
+        log.debug("{} of {} topics drifted", drifts.stream()
+            .filter(TopicDrift::drifted).count(), drifts.size());
+
+        return drifts;
+    }
+}
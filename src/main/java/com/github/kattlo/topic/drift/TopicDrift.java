@@ -0,0 +1,59 @@
+package com.github.kattlo.topic.drift;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The differences between the committed state of one topic and its actual
+ * state in the cluster
+ *
+ * @author fabiojose
+ */
+@RegisterForReflection
+@Data
+@NoArgsConstructor
+public class TopicDrift {
+
+    /**
+     * One attribute out of the committed value. A <code>null</code> value
+     * means absent.
+     */
+    @RegisterForReflection
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Difference {
+        private String attribute;
+        private String expected;
+        private String actual;
+
+        /**
+         * Source of the actual config value, like
+         * <code>DYNAMIC_TOPIC_CONFIG</code>. <code>null</code> when unknown
+         * or not a config
+         */
+        private String source;
+
+        public Difference(String attribute, String expected, String actual) {
+            this(attribute, expected, actual, null);
+        }
+    }
+
+    private String topic;
+    private String version;
+    private List<Difference> differences = new ArrayList<>();
+
+    public TopicDrift(String topic, String version) {
+        this.topic = topic;
+        this.version = version;
+    }
+
+    public boolean drifted() {
+        return !differences.isEmpty();
+    }
+}
@@ -0,0 +1,356 @@
+package com.github.kattlo.topic.migration;
+
+import static org.apache.kafka.clients.admin.NewPartitions.increaseTo;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import com.github.kattlo.core.backend.OperationType;
+import com.github.kattlo.core.kafka.Retry;
+import com.github.kattlo.topic.yaml.TopicOperation;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.ConfigResource.Type;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executes the operations of many topics, at most one per topic, with one
+ * batched Admin request for each kind of change:
+ *
+ * <pre>
+ * createTopics | describeTopics | deleteTopics | createPartitions | incrementalAlterConfigs
+ * </pre>
+ *
+ * The changes of replication factor still go one topic at a time, because
+ * the new assignments depend on the current replicas of each topic.
+ *
+ * The operations failing with a retriable error are sent again in a new
+ * batch, but the ones the cluster shows as applied already.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class BatchExecutor {
+
+    private final AdminClient admin;
+    private final ReassignmentTracker tracker;
+    private final ReplicationThrottle throttle;
+    private final ClusterLoad load;
+    private final Retry retry;
+
+    public BatchExecutor(AdminClient admin) {
+        this(admin, ReassignmentTracker.defaults(), ReplicationThrottle.none(),
+            new ClusterLoad(), Retry.none());
+    }
+
+    public BatchExecutor(AdminClient admin, ReassignmentTracker tracker,
+            ReplicationThrottle throttle, ClusterLoad load, Retry retry) {
+        this.admin = Objects.requireNonNull(admin);
+        this.tracker = Objects.requireNonNull(tracker);
+        this.throttle = Objects.requireNonNull(throttle);
+        this.load = Objects.requireNonNull(load);
+        this.retry = Objects.requireNonNull(retry);
+    }
+
+    private static boolean is(OperationType type, TopicOperation operation) {
+        return type.name().toLowerCase().equals(operation.getOperation());
+    }
+
+    private static RuntimeException failureOf(TopicOperation operation,
+            String message, Throwable cause) {
+
+        if(is(OperationType.CREATE, operation)){
+            return new TopicCreateException(message, cause);
+        } else if(is(OperationType.PATCH, operation)){
+            return new TopicPatchException(message, cause);
+        }
+
+        return new TopicRemoveException(message, cause);
+    }
+
+    private static List<TopicOperation> pending(Collection<TopicOperation> operations,
+            Map<String, RuntimeException> failures) {
+
+        return operations.stream()
+            .filter(o -> !failures.containsKey(o.getTopic()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Waits for the future of each operation, keeping the failures by topic
+     */
+    private void await(Collection<TopicOperation> operations,
+            Map<String, ? extends KafkaFuture<?>> futures,
+            Map<String, RuntimeException> failures) {
+
+        for(var operation : operations){
+            try{
+                futures.get(operation.getTopic()).get();
+                log.debug("{} of {} done", operation.getOperation(),
+                    operation.getTopic());
+
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                failures.put(operation.getTopic(),
+                    failureOf(operation, e.getMessage(), e));
+
+            }catch(ExecutionException e){
+                failures.put(operation.getTopic(),
+                    failureOf(operation, e.getMessage(), e));
+            }
+        }
+    }
+
+    /**
+     * Calls the Admin for the operations and waits for them, again for the
+     * ones failing with a retriable error and not applied anyway
+     *
+     * @param call The batched Admin call, with the future of each topic
+     * @param applied Whether the cluster shows the operation as applied
+     */
+    private void retried(String what, List<TopicOperation> operations,
+            Function<List<TopicOperation>, Map<String, ? extends KafkaFuture<?>>> call,
+            Predicate<TopicOperation> applied,
+            Map<String, RuntimeException> failures) {
+
+        var attempt = operations;
+        for(int index = 1; ; index++){
+            final var round = new HashMap<String, RuntimeException>();
+            await(attempt, call.apply(attempt), round);
+
+            final var retriable = attempt.stream()
+                .filter(o -> Retry.retriable(round.get(o.getTopic())))
+                .collect(Collectors.toList());
+
+            if(retriable.isEmpty() || !retry.backoff(what + " of "
+                    + retriable.size() + " topics", index,
+                    round.get(retriable.get(0).getTopic()))){
+
+                failures.putAll(round);
+                return;
+            }
+
+            retriable.forEach(o -> round.remove(o.getTopic()));
+            failures.putAll(round);
+
+            attempt = retriable.stream()
+                .filter(applied.negate())
+                .collect(Collectors.toList());
+
+            if(attempt.isEmpty()){
+                return;
+            }
+        }
+    }
+
+    private void create(List<TopicOperation> operations,
+            Map<String, RuntimeException> failures) {
+
+        if(operations.isEmpty()){
+            return;
+        }
+
+        log.debug("Topics to create {}", operations);
+        retried("creation", operations,
+            attempt -> admin.createTopics(attempt.stream()
+                .map(CreateStrategy::newTopicOf)
+                .collect(Collectors.toList())).values(),
+            o -> CreateStrategy.created(admin, o),
+            failures);
+    }
+
+    private Map<String, TopicDescription> describe(List<TopicOperation> operations,
+            Map<String, RuntimeException> failures) {
+
+        var descriptions = new HashMap<String, TopicDescription>();
+        if(operations.isEmpty()){
+            return descriptions;
+        }
+
+        var futures = admin.describeTopics(operations.stream()
+            .map(TopicOperation::getTopic)
+            .collect(Collectors.toList()))
+            .values();
+
+        for(var operation : operations){
+            try{
+                descriptions.put(operation.getTopic(),
+                    futures.get(operation.getTopic()).get());
+
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                failures.put(operation.getTopic(),
+                    failureOf(operation, e.getMessage(), e));
+
+            }catch(ExecutionException e){
+                var message = e.getCause() instanceof UnknownTopicOrPartitionException
+                    ? "topic does not exists: " + operation.getTopic()
+                    : e.getMessage();
+
+                failures.put(operation.getTopic(),
+                    failureOf(operation, message, e));
+            }
+        }
+
+        return descriptions;
+    }
+
+    private void remove(List<TopicOperation> operations,
+            Map<String, RuntimeException> failures) {
+
+        if(operations.isEmpty()){
+            return;
+        }
+
+        var topics = operations.stream()
+            .map(TopicOperation::getTopic)
+            .collect(Collectors.toList());
+
+        log.debug("Topics to remove {}", topics);
+        retried("removal", operations,
+            attempt -> admin.deleteTopics(attempt.stream()
+                .map(TopicOperation::getTopic)
+                .collect(Collectors.toList())).values(),
+            o -> RemoveStrategy.removed(admin, o),
+            failures);
+    }
+
+    private void patchPartitions(List<TopicOperation> operations,
+            Map<String, RuntimeException> failures) {
+
+        var toPatch = operations.stream()
+            .filter(o -> Objects.nonNull(o.getPartitions()))
+            .collect(Collectors.toList());
+
+        if(toPatch.isEmpty()){
+            return;
+        }
+
+        log.debug("Partitions to increase {}", toPatch.stream()
+            .collect(Collectors.toMap(TopicOperation::getTopic,
+                TopicOperation::getPartitions)));
+
+        retried("partitions", toPatch,
+            attempt -> admin.createPartitions(attempt.stream()
+                .collect(Collectors.toMap(TopicOperation::getTopic,
+                    o -> increaseTo(o.getPartitions())))).values(),
+            o -> PatchStrategy.partitioned(admin, o),
+            failures);
+    }
+
+    private void patchReplicationFactor(List<TopicOperation> operations,
+            Map<String, TopicDescription> descriptions,
+            Map<String, RuntimeException> failures) {
+
+        operations.stream()
+            .filter(o -> Objects.nonNull(o.getReplicationFactor()))
+            .forEach(operation -> {
+                try{
+                    new PatchStrategy(operation, tracker, throttle, load, retry)
+                        .patchReplicationFactor(admin,
+                            descriptions.get(operation.getTopic()));
+
+                }catch(RuntimeException e){
+                    failures.put(operation.getTopic(), e);
+                }
+            });
+    }
+
+    private void patchConfig(List<TopicOperation> operations,
+            Map<String, RuntimeException> failures) {
+
+        var toPatch = operations.stream()
+            .filter(o -> !o.getConfig().isEmpty())
+            .collect(Collectors.toList());
+
+        if(toPatch.isEmpty()){
+            return;
+        }
+
+        // setting and removing the configs is idempotent
+        retried("configs", toPatch,
+            attempt -> {
+                var configs = attempt.stream()
+                    .collect(Collectors.toMap(
+                        o -> new ConfigResource(Type.TOPIC, o.getTopic()),
+                        PatchStrategy::configOpsOf));
+
+                log.debug("Configurations to change: {}", configs);
+
+                Map<String, KafkaFuture<Void>> futures =
+                    admin.incrementalAlterConfigs(configs).values()
+                        .entrySet().stream()
+                        .collect(Collectors.toMap(kv -> kv.getKey().name(),
+                            Map.Entry::getValue));
+
+                return futures;
+            },
+            o -> false,
+            failures);
+    }
+
+    /**
+     * @param operations At most one operation per topic
+     * @return The failure of each failed operation, keyed by topic. Empty
+     * when all of them succeeded
+     * @throws IllegalArgumentException When there is more than one operation
+     * for the same topic
+     */
+    public Map<String, RuntimeException> execute(Collection<TopicOperation> operations) {
+        Objects.requireNonNull(operations);
+
+        var byType = new LinkedHashMap<OperationType, List<TopicOperation>>();
+        for(var type : OperationType.values()){
+            byType.put(type, operations.stream()
+                .filter(o -> is(type, o))
+                .collect(Collectors.toList()));
+        }
+
+        var topics = operations.stream()
+            .collect(Collectors.groupingBy(TopicOperation::getTopic,
+                Collectors.counting()));
+
+        topics.entrySet().stream()
+            .filter(kv -> kv.getValue() > 1)
+            .findFirst()
+            .ifPresent(kv -> {
+                throw new IllegalArgumentException(
+                    "more than one operation for the topic " + kv.getKey());
+            });
+
+        final var failures = new HashMap<String, RuntimeException>();
+
+        create(byType.get(OperationType.CREATE), failures);
+
+        // both need the topic to exist
+        var descriptions = describe(
+            pending(operations.stream()
+                .filter(o -> !is(OperationType.CREATE, o))
+                .collect(Collectors.toList()), failures),
+            failures);
+
+        remove(pending(byType.get(OperationType.REMOVE), failures), failures);
+
+        // same order of the PatchStrategy
+        patchPartitions(pending(byType.get(OperationType.PATCH), failures), failures);
+        patchReplicationFactor(pending(byType.get(OperationType.PATCH), failures),
+            descriptions, failures);
+        patchConfig(pending(byType.get(OperationType.PATCH), failures), failures);
+
+        log.debug("Failures of the batch {}", failures);
+        return failures;
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.kattlo.topic.migration;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.NewPartitionReassignment;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The sizes of the partitions and the load of the brokers, fetched by the
+ * first change of replication factor of a run: the log dirs of every
+ * broker and the description of every topic.
+ *
+ * One instance is shared by the topics migrated in parallel, like the
+ * {@link ReplicationThrottle}. The replicas placed for a topic count as
+ * load when placing the ones of the next topics, so they spread to the
+ * other brokers.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class ClusterLoad {
+
+    private PartitionSizes sizes;
+    private ReplicaPlacement placement;
+
+    /**
+     * @param nodes The brokers of the cluster
+     */
+    public synchronized PartitionSizes sizesOf(AdminClient admin,
+            Collection<Node> nodes) {
+
+        if(Objects.isNull(sizes)){
+            sizes = PartitionSizes.of(admin, nodes.stream()
+                .map(Node::id)
+                .collect(Collectors.toList()));
+        }
+
+        return sizes;
+    }
+
+    /**
+     * @return The new assignment of each partition not at the target
+     * replication factor yet
+     * @see ReplicaPlacement#assignmentsOf(TopicDescription, int)
+     */
+    public synchronized Map<TopicPartition, Optional<NewPartitionReassignment>>
+        assignmentsOf(AdminClient admin, Collection<Node> nodes,
+            TopicDescription description, int target)
+            throws InterruptedException, ExecutionException {
+
+        if(Objects.isNull(placement)){
+            placement = ReplicaPlacement.of(admin, nodes, sizesOf(admin, nodes));
+        }
+
+        log.debug("Placing the replicas of {}", description.name());
+        return placement.assignmentsOf(description, target);
+    }
+}
@@ -2,11 +2,14 @@ package com.github.kattlo.topic.migration;
 
 import static java.util.AbstractMap.SimpleEntry;
 import java.util.Collections;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Map.Entry;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
+import com.github.kattlo.core.kafka.Retry;
+import com.github.kattlo.topic.TopicUtils;
 import com.github.kattlo.topic.yaml.TopicOperation;
 
 import org.apache.kafka.clients.admin.AdminClient;
@@ -27,10 +30,10 @@ public class CreateStrategy implements Strategy {
     @NonNull
     private final TopicOperation operation;
 
-    @Override
-    public void execute(AdminClient admin) {
-        log.debug("AdminClient {}", admin);
-        log.debug("TopicOperation to perform {}", operation);
+    @NonNull
+    private final Retry retry;
+
+    static NewTopic newTopicOf(TopicOperation operation) {
 
         var newTopic = new NewTopic(
             operation.getTopic(),
@@ -43,8 +46,51 @@ public class CreateStrategy implements Strategy {
             .map(e -> new SimpleEntry<>(e.getKey(), e.getValue().toString()))
             .collect(Collectors.toMap(Entry::getKey, Entry::getValue)));
 
+        return newTopic;
+    }
+
+    /**
+     * @return <code>true</code> when the topic exists with the partitions
+     * and the replication factor of the operation
+     */
+    static boolean created(AdminClient admin, TopicOperation operation) {
+
+        try{
+            return TopicUtils.describe(operation.getTopic(), admin)
+                .filter(description -> Objects.isNull(operation.getPartitions())
+                    || description.partitions().size() == operation.getPartitions())
+                .filter(description -> Objects.isNull(operation.getReplicationFactor())
+                    || description.partitions().stream().allMatch(info ->
+                        info.replicas().size() == operation.getReplicationFactor()))
+                .isPresent();
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+
+        }catch(ExecutionException e){
+            log.debug("Failing to check the creation of {}: {}",
+                operation.getTopic(), e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void execute(AdminClient admin) {
+        log.debug("AdminClient {}", admin);
+        log.debug("TopicOperation to perform {}", operation);
+
+        var newTopic = newTopicOf(operation);
         log.debug("NewTopic to create {}", newTopic);
 
+        // a timed out creation may have been applied anyway
+        retry.run("creation of " + operation.getTopic(),
+            () -> create(admin, newTopic),
+            () -> created(admin, operation));
+    }
+
+    private void create(AdminClient admin, NewTopic newTopic) {
+
         var result = admin.createTopics(Collections.singletonList(newTopic));
 
         try {
@@ -0,0 +1,38 @@
+package com.github.kattlo.topic.migration;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The outcome of the preferred leader election of one partition that did
+ * not have its preferred leader
+ *
+ * @author fabiojose
+ */
+@RegisterForReflection
+@Getter
+@ToString
+@AllArgsConstructor
+public class LeaderChange {
+
+    private final String topic;
+    private final int partition;
+
+    /**
+     * <code>null</code> when the partition was offline
+     */
+    private final Integer from;
+
+    private final Integer to;
+
+    /**
+     * <code>null</code> when elected
+     */
+    private final String error;
+
+    public boolean failed() {
+        return error != null;
+    }
+}
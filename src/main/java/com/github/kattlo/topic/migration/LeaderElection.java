@@ -0,0 +1,156 @@
+package com.github.kattlo.topic.migration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.common.ElectionType;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.ElectionNotNeededException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the preferred leader election of the partitions whose replicas
+ * changed, so the leadership goes back to the first replica of each one.
+ *
+ * The partitions are described and elected in batches, with one
+ * <code>describeTopics</code> and one <code>electLeaders</code> request
+ * each. The partitions already led by their preferred replica are not
+ * reported.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class LeaderElection {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final AdminClient admin;
+    private final int batchSize;
+
+    public LeaderElection(AdminClient admin) {
+        this(admin, DEFAULT_BATCH_SIZE);
+    }
+
+    public LeaderElection(AdminClient admin, int batchSize) {
+        this.admin = Objects.requireNonNull(admin);
+        if(batchSize < 1){
+            throw new IllegalArgumentException("batchSize must be greater than zero");
+        }
+        this.batchSize = batchSize;
+    }
+
+    private static Integer idOf(Node node) {
+        return Optional.ofNullable(node)
+            .filter(n -> !n.isEmpty())
+            .map(Node::id)
+            .orElse(null);
+    }
+
+    private Map<TopicPartition, TopicPartitionInfo> describe(
+            Collection<TopicPartition> partitions)
+            throws InterruptedException, ExecutionException {
+
+        var topics = partitions.stream()
+            .map(TopicPartition::topic)
+            .collect(Collectors.toSet());
+
+        return admin.describeTopics(topics).all().get().values().stream()
+            .flatMap(description -> description.partitions().stream()
+                .map(info -> Map.entry(
+                    new TopicPartition(description.name(), info.partition()), info)))
+            .filter(kv -> partitions.contains(kv.getKey()))
+            .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    private List<LeaderChange> elect(List<TopicPartition> batch)
+            throws InterruptedException, ExecutionException {
+
+        var before = describe(Set.copyOf(batch));
+
+        var toElect = before.entrySet().stream()
+            .filter(kv -> !kv.getValue().replicas().isEmpty())
+            .filter(kv -> !Objects.equals(idOf(kv.getValue().leader()),
+                idOf(kv.getValue().replicas().get(0))))
+            .map(Map.Entry::getKey)
+            .collect(Collectors.toSet());
+
+        if(toElect.isEmpty()){
+            log.debug("Every partition of the batch has its preferred leader");
+            return List.of();
+        }
+
+        log.debug("Partitions to elect the preferred leader {}", toElect);
+        var results = admin.electLeaders(ElectionType.PREFERRED, toElect)
+            .partitions()
+            .get();
+
+        var changes = new ArrayList<LeaderChange>();
+        results.forEach((partition, error) -> {
+            var info = before.get(partition);
+            var from = idOf(info.leader());
+            var to = idOf(info.replicas().get(0));
+
+            if(error.isEmpty()){
+                changes.add(new LeaderChange(partition.topic(),
+                    partition.partition(), from, to, null));
+
+            } else if(!(error.get() instanceof ElectionNotNeededException)){
+                changes.add(new LeaderChange(partition.topic(),
+                    partition.partition(), from, to, error.get().getMessage()));
+            }
+        });
+
+        return changes;
+    }
+
+    /**
+     * A batch that can not be elected, like without permission to alter
+     * the cluster, is just logged: the replicas have already moved.
+     *
+     * @return The partitions that changed leader or failed to, ordered by
+     * topic and partition
+     */
+    public List<LeaderChange> elect(Collection<TopicPartition> partitions) {
+        Objects.requireNonNull(partitions);
+
+        var sorted = partitions.stream()
+            .distinct()
+            .sorted(Comparator.comparing(TopicPartition::topic)
+                .thenComparingInt(TopicPartition::partition))
+            .collect(Collectors.toList());
+
+        var changes = new ArrayList<LeaderChange>();
+        for(int from = 0; from < sorted.size(); from += batchSize){
+            var batch = sorted.subList(from, Math.min(from + batchSize, sorted.size()));
+
+            try{
+                changes.addAll(elect(batch));
+
+            }catch(InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new TopicPatchException(e.getMessage(), e);
+
+            }catch(ExecutionException e){
+                log.warn("Failing to elect the preferred leaders of {} partitions: {}",
+                    batch.size(), e.getMessage());
+            }
+        }
+
+        changes.sort(Comparator.comparing(LeaderChange::getTopic)
+            .thenComparingInt(LeaderChange::getPartition));
+
+        return changes;
+    }
+}
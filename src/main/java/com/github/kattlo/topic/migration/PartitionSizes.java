@@ -0,0 +1,121 @@
+package com.github.kattlo.topic.migration;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse.LogDirInfo;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The size of the replicas hosted by the brokers, from their log dirs.
+ *
+ * The size of a partition is the one of its largest replica, what a new
+ * replica has to copy. The replicas being moved between the log dirs of
+ * the same broker are not counted.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class PartitionSizes {
+
+    private static final PartitionSizes UNKNOWN = new PartitionSizes(Map.of());
+
+    /**
+     * Size of each replica, keyed by broker
+     */
+    private final Map<Integer, Map<TopicPartition, Long>> replicas;
+
+    PartitionSizes(Map<Integer, Map<TopicPartition, Long>> replicas) {
+        this.replicas = Objects.requireNonNull(replicas);
+    }
+
+    public static PartitionSizes unknown() {
+        return UNKNOWN;
+    }
+
+    static Map<TopicPartition, Long> sizesOf(Map<String, LogDirInfo> dirs) {
+        var sizes = new HashMap<TopicPartition, Long>();
+
+        dirs.forEach((dir, info) -> {
+            if(Errors.NONE.equals(info.error)){
+                info.replicaInfos.forEach((partition, replica) -> {
+                    if(!replica.isFuture){
+                        sizes.merge(partition, replica.size, Long::sum);
+                    }
+                });
+            } else {
+                log.debug("Log dir {} skipped: {}", dir, info.error);
+            }
+        });
+
+        return sizes;
+    }
+
+    /**
+     * Describes the log dirs of the brokers, as best effort: when they can
+     * not be described, like without the permission to describe the
+     * cluster, the sizes are {@link #unknown()}
+     */
+    public static PartitionSizes of(AdminClient admin, Collection<Integer> brokers) {
+
+        try{
+            var dirs = admin.describeLogDirs(brokers).all().get();
+
+            var replicas = dirs.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey,
+                    kv -> sizesOf(kv.getValue())));
+
+            log.debug("Size of the replicas at brokers {}", replicas.keySet());
+            return new PartitionSizes(replicas);
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new TopicPatchException(e.getMessage(), e);
+
+        }catch(ExecutionException e){
+            log.warn("Sizes of the partitions unknown: {}", e.getMessage());
+            return UNKNOWN;
+        }
+    }
+
+    public boolean isKnown() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * @return The size of the largest replica of the partition, or zero
+     */
+    public long sizeOf(TopicPartition partition) {
+        return replicas.values().stream()
+            .mapToLong(sizes -> sizes.getOrDefault(partition, 0l))
+            .max()
+            .orElse(0l);
+    }
+
+    /**
+     * @return The size of the replica hosted by the broker, or zero
+     */
+    public long sizeOf(TopicPartition partition, Integer broker) {
+        return replicas.getOrDefault(broker, Map.of())
+            .getOrDefault(partition, 0l);
+    }
+
+    /**
+     * @return The size of all the replicas hosted by each broker
+     */
+    public Map<Integer, Long> bytesPerBroker() {
+        return replicas.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey,
+                kv -> kv.getValue().values().stream()
+                    .mapToLong(Long::longValue)
+                    .sum()));
+    }
+}
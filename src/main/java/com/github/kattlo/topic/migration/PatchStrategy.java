@@ -4,50 +4,91 @@ import static org.apache.kafka.clients.admin.NewPartitions.increaseTo;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
+import com.github.kattlo.core.kafka.Retry;
 import com.github.kattlo.topic.TopicUtils;
 import com.github.kattlo.topic.yaml.TopicOperation;
 
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.AlterPartitionReassignmentsResult;
 import org.apache.kafka.clients.admin.ConfigEntry;
 import org.apache.kafka.clients.admin.NewPartitionReassignment;
 import org.apache.kafka.clients.admin.TopicDescription;
 import org.apache.kafka.clients.admin.AlterConfigOp.OpType;
-import org.apache.kafka.common.Node;
 import org.apache.kafka.common.TopicPartition;
-import org.apache.kafka.common.TopicPartitionInfo;
 import org.apache.kafka.common.config.ConfigResource;
 import org.apache.kafka.common.config.ConfigResource.Type;
 
-import lombok.AccessLevel;
-import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * @author fabiojose
  */
-@RequiredArgsConstructor(access = AccessLevel.MODULE)
 @Slf4j
 public class PatchStrategy implements Strategy {
 
     private static final String DEFAULT_KEYWORD = "$default";
-    private static final int FIRST_POSITION = 0;
-    private static final int ZERO = 0;
 
-    @NonNull
     private final TopicOperation operation;
+    private final ReassignmentTracker tracker;
+    private final ReplicationThrottle throttle;
+    private final ClusterLoad load;
+    private final Retry retry;
+
+    PatchStrategy(TopicOperation operation) {
+        this(operation, ReassignmentTracker.defaults(), ReplicationThrottle.none(),
+            new ClusterLoad(), Retry.none());
+    }
+
+    PatchStrategy(TopicOperation operation, ReassignmentTracker tracker,
+            ReplicationThrottle throttle, ClusterLoad load, Retry retry) {
+        this.operation = Objects.requireNonNull(operation);
+        this.tracker = Objects.requireNonNull(tracker);
+        this.throttle = Objects.requireNonNull(throttle);
+        this.load = Objects.requireNonNull(load);
+        this.retry = Objects.requireNonNull(retry);
+    }
+
+    /**
+     * @return <code>true</code> when the topic has the partitions of the
+     * operation already
+     */
+    static boolean partitioned(AdminClient admin, TopicOperation operation) {
+
+        try{
+            return TopicUtils.describe(operation.getTopic(), admin)
+                .filter(description ->
+                    description.partitions().size() == operation.getPartitions())
+                .isPresent();
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+
+        }catch(ExecutionException e){
+            log.debug("Failing to check the partitions of {}: {}",
+                operation.getTopic(), e.getMessage());
+            return false;
+        }
+    }
 
     void patchPartitions(AdminClient admin){
 
+        // a timed out increase may have been applied anyway
+        retry.run("partitions of " + operation.getTopic(),
+            () -> increasePartitions(admin),
+            () -> partitioned(admin, operation));
+    }
+
+    private void increasePartitions(AdminClient admin){
+
         var newPartitions = increaseTo(operation.getPartitions());
         var partitions = Map.of(operation.getTopic(), newPartitions);
 
@@ -66,19 +107,81 @@ public class PatchStrategy implements Strategy {
         }
     }
 
-    private ArrayList<Node> decreaseReplicationFactor(List<Node> currentReplicas, int toDecrease) {
-        log.debug("Replication factor to decrease {}", toDecrease);
-
-        var newReplicas = new ArrayList<>(currentReplicas);
-        for(int index = currentReplicas.size() - 1, decrease = ZERO;
-                index >= ZERO && decrease < Math.abs(toDecrease);
-                index--, decrease++){
+    /**
+     * Submits the assignments wave by wave, each one throttled and awaited.
+     * A wave waits for the waves of the other topics to free its brokers.
+     *
+     * A wave still running at the timeout fails the migration, so it is not
+     * committed, and keeps the throttle until the next execution of the
+     * migration finds the moves finished. Its moves stay in flight for the
+     * rest of the run.
+     */
+    private void reassign(AdminClient admin, TopicDescription description,
+            Map<TopicPartition, Optional<NewPartitionReassignment>> assignments,
+            PartitionSizes sizes) {
+
+        final var waves = throttle.wavesOf(description, assignments, sizes);
+        log.debug("{} waves to reassign {}", waves.size(), operation.getTopic());
+
+        for(int index = 0; index < waves.size(); index++){
+            final var wave = waves.get(index);
+            final var moves = throttle.acquireMoves(description, wave,
+                tracker.getTimeout());
+
+            Set<Integer> brokers = Set.of();
+            ReassignmentStatus status;
+            try{
+                brokers = throttle.throttle(admin, description, wave);
+
+                // the same target replicas may be submitted again
+                var result = retry.call("reassignment of " + operation.getTopic(),
+                    () -> submit(admin, wave));
+                log.debug("New assignments submitted: {}", wave);
+
+                // waits for the data to move, up to the timeout of the tracker
+                status = tracker.await(admin, operation.getTopic(), result,
+                    wave.keySet(), sizes);
+
+            }catch(RuntimeException e){
+                // the throttle must not outlive a failed wave
+                throttle.release(admin, operation.getTopic(), brokers);
+                throttle.releaseMoves(moves);
+                throw e;
+            }
+            log.debug("Reassignment of {} {}", operation.getTopic(), status);
+
+            if(ReassignmentStatus.SUBMITTED.equals(status)){
+                throttle.keep(description, wave, brokers);
+
+                throw new TopicPatchException("reassignment of "
+                    + operation.getTopic() + " still running after "
+                    + tracker.getTimeout() + ", wave " + (index + 1) + " of "
+                    + waves.size() + " submitted. Run again when it finishes"
+                    + (index < waves.size() - 1
+                        ? " to move the remaining partitions"
+                        : " to commit the migration"));
+            }
 
-            var removed = newReplicas.remove(index);
-            log.debug("Removed replica {}", removed);
+            throttle.release(admin, operation.getTopic(), brokers);
+            throttle.releaseMoves(moves);
         }
+    }
+
+    private static AlterPartitionReassignmentsResult submit(AdminClient admin,
+            Map<TopicPartition, Optional<NewPartitionReassignment>> wave) {
+
+        var result = admin.alterPartitionReassignments(wave);
+        try{
+            result.all().get();
+            return result;
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new TopicPatchException(e.getMessage(), e);
 
-        return newReplicas;
+        }catch(ExecutionException e){
+            throw new TopicPatchException(e.getMessage(), e);
+        }
     }
 
     void patchReplicationFactor(AdminClient admin, TopicDescription description) {
@@ -93,82 +196,41 @@ public class PatchStrategy implements Strategy {
             // is new size of replication factor less or equal of
             if(operation.getReplicationFactor() <= nodes.size()){
 
-                final var actualReplicationFactor =
-                    description.partitions()
-                        .get(FIRST_POSITION)
-                        .replicas().size();
-                log.debug("Actual replication factor: {}", actualReplicationFactor);
+                // the moves left running by a previous execution
+                final var settled = throttle.settle(admin, operation.getTopic());
+
+                // partitions moved by a previous execution are skipped
+                final var pending =
+                    description.partitions().stream()
+                    .filter(info -> info.replicas().size()
+                        != operation.getReplicationFactor())
+                    .collect(Collectors.toList());
 
-                final var toIncrease =
-                    operation.getReplicationFactor()
-                    - actualReplicationFactor;
+                if(pending.isEmpty() && settled){
+                    log.info("Replication factor of {} set by a previous run",
+                        operation.getTopic());
+                    return;
 
-                if(toIncrease == ZERO){
+                } else if(pending.isEmpty()){
                     throw new TopicPatchException("Replication factor already set: "
-                        + actualReplicationFactor);
+                        + operation.getReplicationFactor());
                 }
 
-                log.debug("Replication factor to increase: {}", toIncrease);
+                log.debug("Replication factor of {} partitions to change to {}",
+                    pending.size(), operation.getReplicationFactor());
 
-                var currentReplicas =
-                    description.partitions().stream()
-                    .collect(Collectors.toMap(
-                        TopicPartitionInfo::partition,
-                        TopicPartitionInfo::replicas));
+                // fetched once per run, shared by the topics
+                var sizes = load.sizesOf(admin, nodes);
 
-                final var newReplicas =
-                    description.partitions().stream()
-                    .peek(info ->
-                        log.debug("Info of topic {}: {}",
-                            operation.getTopic(), info))
-                    .filter(info -> toIncrease > ZERO)
-                    .filter(info -> !info.replicas().containsAll(nodes))
-                    .map(info -> {
-                        var candidate = new ArrayList<>(nodes);
-                        candidate.removeAll(info.replicas());
-
-                        return candidate;
-                    })
-                    .peek(candidate ->
-                        log.debug("Candidate replicas {}", candidate))
-                    .map(candidate ->
-                        candidate.subList(FIRST_POSITION, toIncrease))
-                    .flatMap(List::stream)
-                    .distinct()
-                    .peek(newOnes -> log.debug("New replicas {}", newOnes))
-                    .collect(Collectors.toList());
+                var newAssignments = load.assignmentsOf(admin, nodes, description,
+                    operation.getReplicationFactor());
+
+                log.debug("New Assignments: {}", newAssignments);
 
-                // For each topic-partition
-                var newAssignments =
-                    currentReplicas.entrySet().stream()
-                    .peek(kv -> log.debug("Current Replicas {}", kv.getValue()))
-                    .map(kv -> {
-                        var newValue = new ArrayList<>(kv.getValue());
-                        newValue.addAll(newReplicas);
-
-                        if(toIncrease < ZERO){
-                            newValue = decreaseReplicationFactor(newValue, toIncrease);
-                        }
-
-                        return Map.entry(kv.getKey(), newValue);
-                    })
-                    .peek(kv -> log.debug("New Replicas {}", kv.getValue()))
-                    .map(kv -> {
-                        var assigment = new NewPartitionReassignment(
-                            kv.getValue().stream()
-                                .map(Node::id)
-                                .collect(Collectors.toList()));
-
-                        return Map.entry(
-                            new TopicPartition(operation.getTopic(), kv.getKey()),
-                                Optional.of(assigment));
-                    })
-                    .peek(kv -> log.debug("New Assignments: {}",
-                            kv.getValue().get().targetReplicas()))
-                    .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
-
-                admin.alterPartitionReassignments(newAssignments);
-                log.debug("New assignments applied: {}", newAssignments);
+                tracker.ensureIdle(admin, operation.getTopic(),
+                    newAssignments.keySet());
+
+                reassign(admin, description, newAssignments, sizes);
 
             } else {
                 throw new TopicPatchException("replication factor is greater than nodes: " + nodes.size());
@@ -179,7 +241,7 @@ public class PatchStrategy implements Strategy {
         }
     }
 
-    private AlterConfigOp opFor(final ConfigEntry entry){
+    private static AlterConfigOp opFor(final ConfigEntry entry){
 
         if(DEFAULT_KEYWORD.equals(entry.value())){
             return new AlterConfigOp(entry, OpType.DELETE);
@@ -188,15 +250,26 @@ public class PatchStrategy implements Strategy {
         return new AlterConfigOp(entry, OpType.SET);
     }
 
+    static Collection<AlterConfigOp> configOpsOf(TopicOperation operation) {
+
+        return operation.getConfig().entrySet().stream()
+            .map(e -> new ConfigEntry(e.getKey(), e.getValue().toString()))
+            .map(PatchStrategy::opFor)
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Setting and removing the configs is idempotent, so it is just retried
+     */
     void patchConfig(AdminClient admin){
+        retry.run("configs of " + operation.getTopic(), () -> alterConfig(admin));
+    }
+
+    private void alterConfig(AdminClient admin){
 
         var resource = new ConfigResource(Type.TOPIC, operation.getTopic());
 
-        final Collection<AlterConfigOp> configs =
-        operation.getConfig().entrySet().stream()
-            .map(e -> new ConfigEntry(e.getKey(), e.getValue().toString()))
-            .map(this::opFor)
-            .collect(Collectors.toCollection(ArrayList::new));
+        final Collection<AlterConfigOp> configs = configOpsOf(operation);
 
         log.debug("Configurations to change: {}", configs);
 
@@ -0,0 +1,86 @@
+package com.github.kattlo.topic.migration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.github.kattlo.core.backend.OperationType;
+import com.github.kattlo.topic.yaml.TopicOperation;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One pending migration and the Admin calls that would apply it
+ *
+ * @author fabiojose
+ */
+@RegisterForReflection
+@Data
+@NoArgsConstructor
+public class PlanStep {
+
+    private String topic;
+    private String version;
+    private OperationType operation;
+    private String file;
+    private Map<String, Object> attributes;
+    private List<String> calls;
+
+    /**
+     * @return The Admin calls performed by the {@link Strategy} of the
+     * operation, in order
+     */
+    static List<String> callsOf(TopicOperation operation) {
+        var calls = new ArrayList<String>();
+
+        switch(OperationType.valueOf(operation.getOperation().toUpperCase())){
+            case CREATE:
+                calls.add("createTopics");
+                break;
+
+            case PATCH:
+                calls.add("describeTopics");
+                if(Objects.nonNull(operation.getPartitions())){
+                    calls.add("createPartitions");
+                }
+                if(Objects.nonNull(operation.getReplicationFactor())){
+                    calls.add("describeCluster");
+                    calls.add("describeLogDirs");
+                    calls.add("listTopics");
+                    calls.add("describeTopics");
+                    calls.add("listPartitionReassignments");
+                    calls.add("alterPartitionReassignments");
+                }
+                if(!operation.getConfig().isEmpty()){
+                    calls.add("incrementalAlterConfigs");
+                }
+                break;
+
+            case REMOVE:
+                calls.add("describeTopics");
+                calls.add("deleteTopics");
+                break;
+        }
+
+        return calls;
+    }
+
+    public static PlanStep of(TopicOperation operation) {
+        Objects.requireNonNull(operation);
+
+        var migration = operation.toMigration();
+
+        var step = new PlanStep();
+        step.setTopic(operation.getTopic());
+        step.setVersion(operation.getVersion());
+        step.setOperation(migration.getOperation());
+        step.setFile(operation.getFile().toString());
+        step.setAttributes(migration.getAttributes());
+        step.setCalls(callsOf(operation));
+
+        return step;
+    }
+}
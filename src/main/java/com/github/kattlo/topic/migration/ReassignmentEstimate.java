@@ -0,0 +1,49 @@
+package com.github.kattlo.topic.migration;
+
+import java.time.Duration;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The bytes of a reassignment still to copy, with the throughput observed
+ * since the first poll
+ *
+ * @author fabiojose
+ */
+@RegisterForReflection
+@Getter
+@ToString
+@AllArgsConstructor
+public class ReassignmentEstimate {
+
+    private static final ReassignmentEstimate UNKNOWN =
+        new ReassignmentEstimate(0, 0, 0, null);
+
+    /**
+     * Bytes to copy by all the new replicas
+     */
+    private final long bytes;
+
+    private final long remaining;
+
+    /**
+     * Bytes per second
+     */
+    private final long throughput;
+
+    /**
+     * <code>null</code> while there is no throughput to estimate it
+     */
+    private final Duration eta;
+
+    public static ReassignmentEstimate unknown() {
+        return UNKNOWN;
+    }
+
+    public boolean isKnown() {
+        return bytes > 0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.kattlo.topic.migration;
+
+import java.util.List;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * The progress of one partition being reassigned
+ *
+ * @author fabiojose
+ */
+@RegisterForReflection
+@Getter
+@ToString
+@AllArgsConstructor
+public class ReassignmentProgress {
+
+    private final int partition;
+
+    /**
+     * The brokers of the replicas, at the end of the reassignment
+     */
+    private final List<Integer> replicas;
+
+    private final List<Integer> adding;
+    private final List<Integer> removing;
+
+    /**
+     * How many of the adding replicas are in sync already
+     */
+    private final int inSync;
+
+    /**
+     * Bytes to copy by the adding replicas, zero when the size is unknown
+     */
+    private final long bytes;
+
+    /**
+     * Bytes copied by the adding replicas so far
+     */
+    private final long copied;
+}
@@ -0,0 +1,19 @@
+package com.github.kattlo.topic.migration;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * @author fabiojose
+ */
+@RegisterForReflection
+public enum ReassignmentStatus {
+
+    /**
+     * Accepted by the controller, but the data may still be moving
+     */
+    SUBMITTED,
+
+    IN_PROGRESS,
+
+    COMPLETED;
+}
@@ -0,0 +1,361 @@
+package com.github.kattlo.topic.migration;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Collectors;
+
+import com.github.kattlo.topic.TopicUtils;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterPartitionReassignmentsResult;
+import org.apache.kafka.clients.admin.PartitionReassignment;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks the partition reassignments of one topic until they finish,
+ * polling <code>listPartitionReassignments</code> with an exponential
+ * backoff and notifying the progress of each partition.
+ *
+ * When the timeout elapses first, the reassignment is left running in the
+ * cluster with the {@link ReassignmentStatus#SUBMITTED} status. A zero
+ * timeout does not wait at all.
+ *
+ * With the sizes of the partitions known, fetched once per wave by the
+ * caller, the bytes remaining, the throughput and the ETA are estimated
+ * from the size of the new replicas. Their log dirs are described at most
+ * once per {@link #LOG_DIRS_INTERVAL}, not at each poll, and just at the
+ * brokers of the new replicas. A new replica that joins the ISR has copied
+ * its whole partition.
+ *
+ * The partitions of every completed reassignment are kept until
+ * {@link #drainCompleted()}, to elect their preferred leaders.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class ReassignmentTracker {
+
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofHours(1);
+
+    static final Duration INITIAL_BACKOFF = Duration.ofMillis(500);
+    static final Duration MAX_BACKOFF = Duration.ofSeconds(10);
+    static final Duration LOG_DIRS_INTERVAL = Duration.ofSeconds(30);
+
+    @FunctionalInterface
+    public static interface Listener {
+        void on(String topic, ReassignmentStatus status,
+            List<ReassignmentProgress> progress, ReassignmentEstimate estimate);
+    }
+
+    private final Duration timeout;
+    private final Listener listener;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration logDirsInterval;
+
+    private final Set<TopicPartition> completed = ConcurrentHashMap.newKeySet();
+
+    public ReassignmentTracker(Duration timeout, Listener listener) {
+        this(timeout, listener, INITIAL_BACKOFF, MAX_BACKOFF);
+    }
+
+    ReassignmentTracker(Duration timeout, Listener listener,
+            Duration initialBackoff, Duration maxBackoff) {
+        this(timeout, listener, initialBackoff, maxBackoff, LOG_DIRS_INTERVAL);
+    }
+
+    ReassignmentTracker(Duration timeout, Listener listener,
+            Duration initialBackoff, Duration maxBackoff, Duration logDirsInterval) {
+
+        this.timeout = Objects.requireNonNull(timeout);
+        if(timeout.isNegative()){
+            throw new IllegalArgumentException("timeout must not be negative");
+        }
+
+        this.listener = Objects.requireNonNull(listener);
+        this.initialBackoff = Objects.requireNonNull(initialBackoff);
+        this.maxBackoff = Objects.requireNonNull(maxBackoff);
+        this.logDirsInterval = Objects.requireNonNull(logDirsInterval);
+    }
+
+    /**
+     * Waits up to the {@link #DEFAULT_TIMEOUT}, just logging the progress
+     */
+    public static ReassignmentTracker defaults() {
+        return new ReassignmentTracker(DEFAULT_TIMEOUT, (topic, status, progress, estimate) ->
+            log.info("Reassignment of {} {}: {} {}", topic, status, progress, estimate));
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return The partitions of the reassignments completed since the last
+     * call
+     */
+    public Set<TopicPartition> drainCompleted() {
+        var drained = Set.copyOf(completed);
+        completed.removeAll(drained);
+
+        return drained;
+    }
+
+    void sleep(Duration backoff) throws InterruptedException {
+        Thread.sleep(backoff.toMillis());
+    }
+
+    private static Map<TopicPartition, PartitionReassignment> ongoing(
+            AdminClient admin, Set<TopicPartition> partitions)
+            throws InterruptedException, ExecutionException {
+
+        return admin.listPartitionReassignments(partitions)
+            .reassignments()
+            .get();
+    }
+
+    /**
+     * @return The brokers of the new replicas
+     */
+    private static Set<Integer> addingOf(
+            Map<TopicPartition, PartitionReassignment> ongoing) {
+
+        return ongoing.values().stream()
+            .flatMap(reassignment -> reassignment.addingReplicas().stream())
+            .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    /**
+     * @param sizes The sizes of the partitions before the reassignment
+     * @param adding The sizes of the new replicas, at their brokers
+     */
+    private static List<ReassignmentProgress> progressOf(AdminClient admin,
+            String topic, Map<TopicPartition, PartitionReassignment> ongoing,
+            PartitionSizes sizes, PartitionSizes adding)
+            throws InterruptedException, ExecutionException {
+
+        final var isr = TopicUtils.describe(topic, admin)
+            .map(TopicDescription::partitions)
+            .orElse(List.of())
+            .stream()
+            .collect(Collectors.toMap(TopicPartitionInfo::partition,
+                info -> info.isr().stream()
+                    .map(Node::id)
+                    .collect(Collectors.toSet())));
+
+        return ongoing.entrySet().stream()
+            .sorted((e1, e2) -> Integer.compare(e1.getKey().partition(),
+                e2.getKey().partition()))
+            .map(kv -> {
+                var partition = kv.getKey().partition();
+                var reassignment = kv.getValue();
+
+                var target = reassignment.replicas().stream()
+                    .filter(id -> !reassignment.removingReplicas().contains(id))
+                    .collect(Collectors.toList());
+
+                var inSyncIds = isr.getOrDefault(partition, Set.of());
+                var inSync = (int)reassignment.addingReplicas().stream()
+                    .filter(inSyncIds::contains)
+                    .count();
+
+                var size = sizes.sizeOf(kv.getKey());
+                var bytes = size * reassignment.addingReplicas().size();
+
+                // an in sync replica has copied the whole partition
+                var copied = reassignment.addingReplicas().stream()
+                    .mapToLong(id -> inSyncIds.contains(id)
+                        ? size
+                        : Math.min(size, adding.sizeOf(kv.getKey(), id)))
+                    .sum();
+
+                return new ReassignmentProgress(partition, target,
+                    reassignment.addingReplicas(),
+                    reassignment.removingReplicas(), inSync, bytes, copied);
+            })
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @throws TopicPatchException When any of the partitions is being
+     * reassigned already, so a new reassignment would override it
+     */
+    public void ensureIdle(AdminClient admin, String topic,
+            Collection<TopicPartition> partitions) {
+
+        try{
+            var ongoing = ongoing(admin, Set.copyOf(partitions));
+            if(!ongoing.isEmpty()){
+                throw new TopicPatchException("reassignment in progress for "
+                    + ongoing.size() + " partition(s) of " + topic
+                    + ", wait for it to finish");
+            }
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new TopicPatchException(e.getMessage(), e);
+
+        }catch(ExecutionException e){
+            throw new TopicPatchException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Waits for the reassignment to be accepted and then to finish, up to
+     * the timeout
+     *
+     * @return {@link ReassignmentStatus#COMPLETED} when finished, or
+     * {@link ReassignmentStatus#SUBMITTED} when the timeout elapsed first
+     * @throws TopicPatchException When the reassignment was not accepted
+     */
+    public ReassignmentStatus await(AdminClient admin, String topic,
+            AlterPartitionReassignmentsResult result,
+            Collection<TopicPartition> partitions) {
+
+        return await(admin, topic, result, partitions, PartitionSizes.unknown());
+    }
+
+    /**
+     * @param sizes The sizes of the partitions before the reassignment, to
+     * estimate when it finishes
+     * @see #await(AdminClient, String, AlterPartitionReassignmentsResult, Collection)
+     */
+    public ReassignmentStatus await(AdminClient admin, String topic,
+            AlterPartitionReassignmentsResult result,
+            Collection<TopicPartition> partitions, PartitionSizes sizes) {
+
+        try{
+            result.all().get();
+            log.debug("Reassignment of {} accepted", topic);
+
+            final var deadline = System.nanoTime() + timeout.toNanos();
+            final var reassigned = Set.copyOf(partitions);
+            final var estimator = new Estimator();
+            var backoff = initialBackoff;
+
+            var adding = PartitionSizes.unknown();
+            var nextLogDirs = System.nanoTime();
+
+            while(true){
+                var ongoing = ongoing(admin, reassigned);
+                if(ongoing.isEmpty()){
+                    completed.addAll(reassigned);
+                    listener.on(topic, ReassignmentStatus.COMPLETED, List.of(),
+                        estimator.completed());
+                    return ReassignmentStatus.COMPLETED;
+                }
+
+                // the copy of the new replicas, without describing every poll
+                if(sizes.isKnown() && System.nanoTime() - nextLogDirs >= 0){
+                    adding = PartitionSizes.of(admin, addingOf(ongoing));
+                    nextLogDirs = System.nanoTime() + logDirsInterval.toNanos();
+                }
+
+                var progress = progressOf(admin, topic, ongoing, sizes, adding);
+                var estimate = estimator.estimate(progress, System.nanoTime());
+
+                if(System.nanoTime() + backoff.toNanos() > deadline){
+                    log.warn("Reassignment of {} still running after {}", topic, timeout);
+
+                    listener.on(topic, ReassignmentStatus.SUBMITTED, progress, estimate);
+                    return ReassignmentStatus.SUBMITTED;
+                }
+
+                listener.on(topic, ReassignmentStatus.IN_PROGRESS, progress, estimate);
+
+                sleep(backoff);
+                backoff = backoff.multipliedBy(2).compareTo(maxBackoff) > 0
+                    ? maxBackoff
+                    : backoff.multipliedBy(2);
+            }
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new TopicPatchException(e.getMessage(), e);
+
+        }catch(ExecutionException e){
+            throw new TopicPatchException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Keeps the bytes of every partition seen, so the ones that finished
+     * between two polls still count as copied
+     */
+    static class Estimator {
+
+        private final Map<Integer, Long> bytes = new HashMap<>();
+        private final Map<Integer, Long> copied = new HashMap<>();
+
+        private long firstNanos;
+        private long firstCopied = -1;
+
+        private long bytes() {
+            return bytes.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        ReassignmentEstimate estimate(List<ReassignmentProgress> progress,
+                long nowNanos) {
+
+            var ongoing = new HashSet<Integer>();
+            progress.forEach(partition -> {
+                ongoing.add(partition.getPartition());
+
+                bytes.put(partition.getPartition(), partition.getBytes());
+                copied.put(partition.getPartition(), partition.getCopied());
+            });
+
+            // finished between the polls
+            bytes.keySet().stream()
+                .filter(key -> !ongoing.contains(key))
+                .forEach(key -> copied.put(key, bytes.get(key)));
+
+            var total = bytes();
+            if(total <= 0){
+                return ReassignmentEstimate.unknown();
+            }
+
+            var done = copied.values().stream().mapToLong(Long::longValue).sum();
+            var remaining = Math.max(0, total - done);
+
+            if(firstCopied < 0){
+                // the baseline, some bytes may be copied before the first poll
+                firstCopied = done;
+                firstNanos = nowNanos;
+                return new ReassignmentEstimate(total, remaining, 0, null);
+            }
+
+            var elapsed = nowNanos - firstNanos;
+            var throughput = elapsed > 0
+                ? (long)((done - firstCopied) * 1_000_000_000d / elapsed)
+                : 0;
+
+            var eta = throughput > 0
+                ? Duration.ofSeconds(remaining / throughput)
+                : null;
+
+            return new ReassignmentEstimate(total, remaining, throughput, eta);
+        }
+
+        ReassignmentEstimate completed() {
+            var total = bytes();
+            return total > 0
+                ? new ReassignmentEstimate(total, 0, 0, Duration.ZERO)
+                : ReassignmentEstimate.unknown();
+        }
+    }
+}
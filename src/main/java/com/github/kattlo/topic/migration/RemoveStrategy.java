@@ -3,6 +3,7 @@ package com.github.kattlo.topic.migration;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
+import com.github.kattlo.core.kafka.Retry;
 import com.github.kattlo.topic.TopicUtils;
 import com.github.kattlo.topic.yaml.TopicOperation;
 
@@ -23,6 +24,41 @@ public class RemoveStrategy implements Strategy {
     @NonNull
     private final TopicOperation operation;
 
+    @NonNull
+    private final Retry retry;
+
+    /**
+     * @return <code>true</code> when the topic does not exist anymore
+     */
+    static boolean removed(AdminClient admin, TopicOperation operation) {
+
+        try{
+            return TopicUtils.describe(operation.getTopic(), admin).isEmpty();
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            return false;
+
+        }catch(ExecutionException e){
+            log.debug("Failing to check the removal of {}: {}",
+                operation.getTopic(), e.getMessage());
+            return false;
+        }
+    }
+
+    private void remove(AdminClient admin, String topic) {
+
+        try {
+            var result = admin.deleteTopics(List.of(topic));
+            log.debug("Topic removed: {}", operation.getTopic());
+
+            result.all().get();
+
+        }catch(ExecutionException | InterruptedException e) {
+            throw new TopicRemoveException(e.getMessage(), e);
+        }
+    }
+
     @Override
     public void execute(AdminClient admin) {
 
@@ -32,10 +68,10 @@ public class RemoveStrategy implements Strategy {
                     new TopicRemoveException("topic does not exists: "
                         + operation.getTopic()));
 
-            var result = admin.deleteTopics(List.of(description.name()));
-            log.debug("Topic removed: {}", operation.getTopic());
-
-            result.all().get();
+            // a timed out removal may have been applied anyway
+            retry.run("removal of " + operation.getTopic(),
+                () -> remove(admin, description.name()),
+                () -> removed(admin, operation));
 
         }catch(ExecutionException | InterruptedException e) {
             throw new TopicRemoveException(e.getMessage(), e);
@@ -0,0 +1,236 @@
+package com.github.kattlo.topic.migration;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.NewPartitionReassignment;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Places the replicas of a new replication factor using the load of every
+ * broker in the cluster: how many replicas and leaders it hosts and, when
+ * known, their size in bytes, which then weighs first.
+ *
+ * <ul>
+ *   <li>The current replicas stay where they are and in the same order, so
+ *   just the new replicas move data and the preferred leader is kept</li>
+ *   <li>A new replica goes to a rack not used by the partition yet, then to
+ *   the less loaded broker</li>
+ *   <li>A dropped replica is never the leader. It is one sharing the rack
+ *   with another replica, then the one at the most loaded broker</li>
+ * </ul>
+ *
+ * The load is updated after each choice, so the replicas of the next
+ * partitions spread to the other brokers. With the sizes known, the
+ * largest partitions are placed first, to spread them the most.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class ReplicaPlacement {
+
+    @Getter
+    @ToString
+    public static class Load {
+        private int replicas;
+        private int leaders;
+        private long bytes;
+    }
+
+    private final Map<Integer, Node> nodes;
+    private final PartitionSizes sizes;
+    private final Map<Integer, Load> load = new HashMap<>();
+
+    /**
+     * @param nodes The brokers available for the new replicas
+     * @param cluster The description of every topic in the cluster
+     */
+    public ReplicaPlacement(Collection<Node> nodes,
+            Collection<TopicDescription> cluster) {
+        this(nodes, cluster, PartitionSizes.unknown());
+    }
+
+    public ReplicaPlacement(Collection<Node> nodes,
+            Collection<TopicDescription> cluster, PartitionSizes sizes) {
+
+        this.nodes = Objects.requireNonNull(nodes).stream()
+            .collect(Collectors.toMap(Node::id, Function.identity()));
+        this.sizes = Objects.requireNonNull(sizes);
+
+        Objects.requireNonNull(cluster).stream()
+            .flatMap(description -> description.partitions().stream())
+            .forEach(info -> {
+                info.replicas().forEach(replica -> loadOf(replica.id()).replicas++);
+
+                Optional.ofNullable(info.leader())
+                    .filter(leader -> !leader.isEmpty())
+                    .ifPresent(leader -> loadOf(leader.id()).leaders++);
+            });
+
+        sizes.bytesPerBroker()
+            .forEach((broker, size) -> loadOf(broker).bytes = size);
+
+        log.debug("Load of the brokers {}", load);
+    }
+
+    /**
+     * Describes every topic in the cluster, the internal ones included
+     */
+    public static ReplicaPlacement of(AdminClient admin, Collection<Node> nodes,
+            PartitionSizes sizes) throws InterruptedException, ExecutionException {
+
+        var names = admin.listTopics(new ListTopicsOptions().listInternal(true))
+            .names()
+            .get();
+
+        var cluster = admin.describeTopics(names).all().get().values();
+        log.debug("{} topics described to place the replicas", cluster.size());
+
+        return new ReplicaPlacement(nodes, cluster, sizes);
+    }
+
+    Load loadOf(Integer broker) {
+        return load.computeIfAbsent(broker, id -> new Load());
+    }
+
+    private Optional<String> rackOf(Integer broker) {
+        return Optional.ofNullable(nodes.get(broker))
+            .filter(Node::hasRack)
+            .map(Node::rack);
+    }
+
+    private boolean rackUsed(Integer broker, List<Integer> replicas) {
+        var rack = rackOf(broker);
+
+        return rack.isPresent() && replicas.stream()
+            .filter(replica -> !replica.equals(broker))
+            .map(this::rackOf)
+            .anyMatch(rack::equals);
+    }
+
+    private Comparator<Integer> lessLoaded() {
+        var replicas = Comparator.<Integer>comparingInt(broker -> loadOf(broker).replicas);
+        var bytes = Comparator.<Integer>comparingLong(broker -> loadOf(broker).bytes);
+
+        return (sizes.isKnown() ? bytes.thenComparing(replicas) : replicas.thenComparing(bytes))
+            .thenComparingInt(broker -> loadOf(broker).leaders)
+            .thenComparing(Comparator.naturalOrder());
+    }
+
+    private static List<Integer> idsOf(TopicPartitionInfo info) {
+        return info.replicas().stream()
+            .map(Node::id)
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * @return The current replicas followed by the new ones
+     */
+    List<Integer> increase(TopicPartition partition, TopicPartitionInfo info,
+            int target) {
+        var replicas = idsOf(info);
+
+        while(replicas.size() < target){
+            var candidate = nodes.keySet().stream()
+                .filter(broker -> !replicas.contains(broker))
+                .min(Comparator.<Integer, Boolean>comparing(
+                        broker -> rackUsed(broker, replicas))
+                    .thenComparing(lessLoaded()))
+                .orElseThrow(() -> new TopicPatchException(
+                    "not enough brokers for " + target + " replicas"));
+
+            log.debug("New replica of partition {} at broker {}, rack {}",
+                info.partition(), candidate, rackOf(candidate));
+
+            replicas.add(candidate);
+            loadOf(candidate).replicas++;
+            loadOf(candidate).bytes += sizes.sizeOf(partition);
+        }
+
+        return replicas;
+    }
+
+    /**
+     * @return The current replicas, without the dropped ones
+     */
+    List<Integer> decrease(TopicPartition partition, TopicPartitionInfo info,
+            int target) {
+        var replicas = idsOf(info);
+
+        var leader = Optional.ofNullable(info.leader())
+            .filter(node -> !node.isEmpty())
+            .map(Node::id);
+
+        while(replicas.size() > target){
+            var victim = replicas.stream()
+                .filter(broker -> leader.map(id -> !id.equals(broker)).orElse(true))
+                .max(Comparator.<Integer, Boolean>comparing(
+                        broker -> rackUsed(broker, replicas))
+                    .thenComparing(lessLoaded()))
+                .orElseThrow(() -> new TopicPatchException(
+                    "can not drop the leader of partition " + info.partition()));
+
+            log.debug("Replica of partition {} dropped from broker {}",
+                info.partition(), victim);
+
+            replicas.remove(victim);
+            loadOf(victim).replicas--;
+            loadOf(victim).bytes -= sizes.sizeOf(partition, victim);
+        }
+
+        return replicas;
+    }
+
+    /**
+     * @return The new assignment of each partition not at the target
+     * replication factor yet
+     */
+    public Map<TopicPartition, Optional<NewPartitionReassignment>> assignmentsOf(
+            TopicDescription description, int target) {
+
+        var assignments = new LinkedHashMap<TopicPartition, Optional<NewPartitionReassignment>>();
+
+        description.partitions().stream()
+            .map(info -> Map.entry(
+                new TopicPartition(description.name(), info.partition()), info))
+            .filter(kv -> kv.getValue().replicas().size() != target)
+            .sorted(Comparator.<Map.Entry<TopicPartition, TopicPartitionInfo>>comparingLong(
+                    kv -> -sizes.sizeOf(kv.getKey()))
+                .thenComparingInt(kv -> kv.getKey().partition()))
+            .forEach(kv -> {
+                var partition = kv.getKey();
+                var info = kv.getValue();
+
+                var replicas = info.replicas().size() < target
+                    ? increase(partition, info, target)
+                    : decrease(partition, info, target);
+
+                log.debug("New replicas of partition {}: {}", info.partition(),
+                    replicas);
+
+                assignments.put(partition,
+                    Optional.of(new NewPartitionReassignment(replicas)));
+            });
+
+        return assignments;
+    }
+}
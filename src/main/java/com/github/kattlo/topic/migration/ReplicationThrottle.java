@@ -0,0 +1,621 @@
+package com.github.kattlo.topic.migration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.github.kattlo.topic.yaml.MigrationJournal.KeptThrottle;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.AlterConfigOp.OpType;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.ConfigEntry.ConfigSource;
+import org.apache.kafka.clients.admin.NewPartitionReassignment;
+import org.apache.kafka.clients.admin.PartitionReassignment;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.ConfigResource.Type;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounds the data moved by the changes of replication factor: the
+ * partitions move in waves, with at most N concurrent moves per broker,
+ * and the replication traffic of the brokers involved is throttled to a
+ * bytes-per-second rate while each wave runs.
+ *
+ * One instance is shared by the topics migrated in parallel, so the rate
+ * of a broker is removed just when the last wave using it finishes, and a
+ * wave waits for the waves of other topics to free its brokers before it
+ * is submitted.
+ *
+ * A wave still running at the timeout keeps its throttle, recorded as a
+ * {@link KeptThrottle} for the next run, whose execution of the migration
+ * {@link #settle(AdminClient, String)}s it.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class ReplicationThrottle {
+
+    static final String LEADER_RATE = "leader.replication.throttled.rate";
+    static final String FOLLOWER_RATE = "follower.replication.throttled.rate";
+    static final String LEADER_REPLICAS = "leader.replication.throttled.replicas";
+    static final String FOLLOWER_REPLICAS = "follower.replication.throttled.replicas";
+
+    public static final long NO_RATE = 0;
+    public static final int UNBOUNDED = 0;
+
+    private final long rate;
+    private final int maxMovesPerBroker;
+
+    /**
+     * The brokers with the rate set and how many waves are using them
+     */
+    private final Map<Integer, Integer> throttled = new HashMap<>();
+
+    /**
+     * The throttles of the waves still running at the timeout, by topic.
+     * Their rate stays until {@link #settle(AdminClient, String)} finds the
+     * moves finished
+     */
+    private final Map<String, KeptThrottle> kept = new HashMap<>();
+
+    /**
+     * The moves in flight at each broker, of every topic
+     */
+    private final Map<Integer, Integer> moving = new HashMap<>();
+
+    /**
+     * @param rate Bytes per second, or {@link #NO_RATE}
+     * @param maxMovesPerBroker Or {@link #UNBOUNDED}
+     */
+    public ReplicationThrottle(long rate, int maxMovesPerBroker) {
+        if(rate < NO_RATE){
+            throw new IllegalArgumentException("rate must not be negative");
+        }
+        if(maxMovesPerBroker < UNBOUNDED){
+            throw new IllegalArgumentException("maxMovesPerBroker must not be negative");
+        }
+
+        this.rate = rate;
+        this.maxMovesPerBroker = maxMovesPerBroker;
+    }
+
+    /**
+     * Everything at once, without throttle
+     */
+    public static ReplicationThrottle none() {
+        return new ReplicationThrottle(NO_RATE, UNBOUNDED);
+    }
+
+    public long getRate() {
+        return rate;
+    }
+
+    public int getMaxMovesPerBroker() {
+        return maxMovesPerBroker;
+    }
+
+    public boolean isThrottled() {
+        return rate > NO_RATE;
+    }
+
+    private static Set<Integer> idsOf(List<Node> nodes) {
+        return nodes.stream()
+            .map(Node::id)
+            .collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    static Set<Integer> addingOf(TopicPartitionInfo info,
+            Optional<NewPartitionReassignment> target) {
+
+        var adding = target
+            .map(NewPartitionReassignment::targetReplicas)
+            .map(replicas -> new TreeSet<Integer>(replicas))
+            .orElseGet(TreeSet::new);
+        adding.removeAll(idsOf(info.replicas()));
+
+        return adding;
+    }
+
+    /**
+     * @return The brokers moving data for the partition: the new replicas
+     * fetching it and the leader sending it. Empty when the partition just
+     * loses replicas
+     */
+    static Set<Integer> movingOf(TopicPartitionInfo info,
+            Optional<NewPartitionReassignment> target) {
+
+        var moving = new HashSet<>(addingOf(info, target));
+        if(!moving.isEmpty()){
+            Optional.ofNullable(info.leader())
+                .filter(leader -> !leader.isEmpty())
+                .map(Node::id)
+                .ifPresent(moving::add);
+        }
+
+        return moving;
+    }
+
+    public List<Map<TopicPartition, Optional<NewPartitionReassignment>>> wavesOf(
+            TopicDescription description,
+            Map<TopicPartition, Optional<NewPartitionReassignment>> assignments) {
+
+        return wavesOf(description, assignments, PartitionSizes.unknown());
+    }
+
+    /**
+     * Splits the assignments in waves where no broker takes part in more
+     * than {@link #getMaxMovesPerBroker()} moves. The partitions that just
+     * lose replicas go in the first wave, they do not move data.
+     *
+     * The smaller partitions go first, so most of them finish early. The
+     * larger ones were already spread across the brokers by the
+     * {@link ReplicaPlacement}.
+     */
+    public List<Map<TopicPartition, Optional<NewPartitionReassignment>>> wavesOf(
+            TopicDescription description,
+            Map<TopicPartition, Optional<NewPartitionReassignment>> assignments,
+            PartitionSizes sizes) {
+
+        Objects.requireNonNull(description);
+        Objects.requireNonNull(assignments);
+        Objects.requireNonNull(sizes);
+
+        var infos = description.partitions().stream()
+            .collect(Collectors.toMap(TopicPartitionInfo::partition, info -> info));
+
+        var pending = assignments.keySet().stream()
+            .sorted(Comparator.<TopicPartition>comparingLong(sizes::sizeOf)
+                .thenComparingInt(TopicPartition::partition))
+            .collect(Collectors.toCollection(ArrayList::new));
+
+        var waves = new ArrayList<Map<TopicPartition, Optional<NewPartitionReassignment>>>();
+        while(!pending.isEmpty()){
+            var wave = new LinkedHashMap<TopicPartition, Optional<NewPartitionReassignment>>();
+            var moves = new HashMap<Integer, Integer>();
+
+            for(var iterator = pending.iterator(); iterator.hasNext();){
+                var partition = iterator.next();
+                var moving = movingOf(infos.get(partition.partition()),
+                    assignments.get(partition));
+
+                var fits = maxMovesPerBroker == UNBOUNDED
+                    || moving.stream().allMatch(broker ->
+                        moves.getOrDefault(broker, 0) < maxMovesPerBroker);
+
+                if(fits){
+                    moving.forEach(broker -> moves.merge(broker, 1, Integer::sum));
+                    wave.put(partition, assignments.get(partition));
+                    iterator.remove();
+                }
+            }
+
+            log.debug("Wave {} of {}: {}", waves.size() + 1,
+                description.name(), wave.keySet());
+            waves.add(wave);
+        }
+
+        return waves;
+    }
+
+    /**
+     * @return The number of moves of the wave at each broker
+     */
+    static Map<Integer, Integer> movesOf(TopicDescription description,
+            Map<TopicPartition, Optional<NewPartitionReassignment>> wave) {
+
+        var moves = new HashMap<Integer, Integer>();
+        description.partitions().stream()
+            .filter(info -> wave.containsKey(
+                new TopicPartition(description.name(), info.partition())))
+            .flatMap(info -> movingOf(info, wave.get(
+                new TopicPartition(description.name(), info.partition()))).stream())
+            .forEach(broker -> moves.merge(broker, 1, Integer::sum));
+
+        return moves;
+    }
+
+    private boolean fits(Map<Integer, Integer> moves) {
+        return moves.entrySet().stream()
+            .allMatch(move -> moving.getOrDefault(move.getKey(), 0) + move.getValue()
+                <= maxMovesPerBroker);
+    }
+
+    /**
+     * Blocks until the brokers of the wave have room for its moves, taking
+     * the moves in flight of the other topics into account
+     *
+     * @param timeout How long to wait for the other waves
+     * @return The moves to {@link #releaseMoves(Map)} when the wave finishes.
+     * Empty when unbounded
+     * @throws TopicPatchException When the brokers are still busy at the
+     * timeout
+     */
+    public synchronized Map<Integer, Integer> acquireMoves(
+            TopicDescription description,
+            Map<TopicPartition, Optional<NewPartitionReassignment>> wave,
+            Duration timeout) {
+
+        if(maxMovesPerBroker == UNBOUNDED){
+            return Map.of();
+        }
+
+        var moves = movesOf(description, wave);
+        var deadline = System.nanoTime() + timeout.toNanos();
+        try{
+            while(!fits(moves)){
+                var left = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if(left <= 0){
+                    throw new TopicPatchException("moves of " + description.name()
+                        + " still waiting for the brokers " + moves.keySet()
+                        + " after " + timeout + ", busy with " + moving);
+                }
+
+                log.debug("Moves of {} waiting for the brokers {}, busy with {}",
+                    description.name(), moves.keySet(), moving);
+                wait(left);
+            }
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new TopicPatchException(e.getMessage(), e);
+        }
+
+        moves.forEach((broker, count) -> moving.merge(broker, count, Integer::sum));
+        log.debug("Moves of {} in flight {}", description.name(), moves);
+
+        return moves;
+    }
+
+    /**
+     * Frees the brokers for the waves waiting in
+     * {@link #acquireMoves(TopicDescription, Map, Duration)}
+     */
+    public synchronized void releaseMoves(Map<Integer, Integer> moves) {
+
+        if(moves.isEmpty()){
+            return;
+        }
+
+        moves.forEach((broker, count) -> {
+            if(moving.merge(broker, -count, Integer::sum) <= 0){
+                moving.remove(broker);
+            }
+        });
+
+        notifyAll();
+    }
+
+    private static AlterConfigOp set(String name, String value) {
+        return new AlterConfigOp(new ConfigEntry(name, value), OpType.SET);
+    }
+
+    private static AlterConfigOp delete(String name) {
+        return new AlterConfigOp(new ConfigEntry(name, null), OpType.DELETE);
+    }
+
+    private static ConfigResource brokerOf(Integer id) {
+        return new ConfigResource(Type.BROKER, String.valueOf(id));
+    }
+
+    private boolean keptAt(Integer broker) {
+        return kept.values().stream()
+            .anyMatch(record -> record.getBrokers().contains(broker));
+    }
+
+    private void alter(AdminClient admin,
+            Map<ConfigResource, Collection<AlterConfigOp>> configs)
+            throws InterruptedException, ExecutionException {
+
+        log.debug("Throttle configs to alter {}", configs);
+        admin.incrementalAlterConfigs(configs).all().get();
+    }
+
+    /**
+     * Fills the throttled replicas of the partitions moving in the wave, like
+     * <code>0:1,0:2</code>, and the brokers taking part in the moves
+     */
+    private static void replicasOf(TopicDescription description,
+            Map<TopicPartition, Optional<NewPartitionReassignment>> wave,
+            Set<String> leaders, Set<String> followers, Set<Integer> brokers) {
+
+        description.partitions().stream()
+            .filter(info -> wave.containsKey(
+                new TopicPartition(description.name(), info.partition())))
+            .forEach(info -> {
+                var adding = addingOf(info, wave.get(
+                    new TopicPartition(description.name(), info.partition())));
+
+                if(!adding.isEmpty()){
+                    var current = idsOf(info.replicas());
+                    current.forEach(id -> leaders.add(info.partition() + ":" + id));
+                    adding.forEach(id -> followers.add(info.partition() + ":" + id));
+
+                    brokers.addAll(current);
+                    brokers.addAll(adding);
+                }
+            });
+    }
+
+    /**
+     * Throttles the replicas of the partitions moving in the wave, and the
+     * brokers not throttled yet
+     *
+     * @return The brokers to {@link #release(AdminClient, String, Set)} when
+     * the wave finishes. Empty when there is no rate
+     * @throws TopicPatchException When the throttle could not be set
+     */
+    public synchronized Set<Integer> throttle(AdminClient admin,
+            TopicDescription description,
+            Map<TopicPartition, Optional<NewPartitionReassignment>> wave) {
+
+        if(!isThrottled()){
+            return Set.of();
+        }
+
+        var leaders = new TreeSet<String>();
+        var followers = new TreeSet<String>();
+        var brokers = new TreeSet<Integer>();
+        replicasOf(description, wave, leaders, followers, brokers);
+
+        if(brokers.isEmpty()){
+            return Set.of();
+        }
+
+        var configs = new HashMap<ConfigResource, Collection<AlterConfigOp>>();
+        configs.put(new ConfigResource(Type.TOPIC, description.name()), List.of(
+            set(LEADER_REPLICAS, String.join(",", leaders)),
+            set(FOLLOWER_REPLICAS, String.join(",", followers))));
+
+        brokers.stream()
+            .filter(broker -> !throttled.containsKey(broker))
+            .filter(broker -> !keptAt(broker))
+            .forEach(broker -> configs.put(brokerOf(broker), List.of(
+                set(LEADER_RATE, String.valueOf(rate)),
+                set(FOLLOWER_RATE, String.valueOf(rate)))));
+
+        try{
+            alter(admin, configs);
+            brokers.forEach(broker -> throttled.merge(broker, 1, Integer::sum));
+
+            log.info("Replication of {} throttled to {} bytes/s at brokers {}",
+                description.name(), rate, brokers);
+
+            return brokers;
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new TopicPatchException(e.getMessage(), e);
+
+        }catch(ExecutionException e){
+            throw new TopicPatchException("failing to throttle the replication of "
+                + description.name() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Removes the throttled replicas of the topic, and the rate of the
+     * brokers not used by other waves, nor kept by a wave still running.
+     *
+     * A failure is just logged, because the data has already moved.
+     */
+    public synchronized void release(AdminClient admin, String topic,
+            Set<Integer> brokers) {
+
+        if(brokers.isEmpty()){
+            return;
+        }
+
+        var configs = new HashMap<ConfigResource, Collection<AlterConfigOp>>();
+        configs.put(new ConfigResource(Type.TOPIC, topic), List.of(
+            delete(LEADER_REPLICAS),
+            delete(FOLLOWER_REPLICAS)));
+
+        brokers.forEach(broker -> {
+            if(throttled.merge(broker, -1, Integer::sum) <= 0){
+                throttled.remove(broker);
+            }
+
+            if(!throttled.containsKey(broker) && !keptAt(broker)){
+                configs.put(brokerOf(broker), List.of(
+                    delete(LEADER_RATE),
+                    delete(FOLLOWER_RATE)));
+            }
+        });
+
+        try{
+            alter(admin, configs);
+            log.info("Replication throttle of {} removed", topic);
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while removing the throttle {}", configs);
+
+        }catch(ExecutionException e){
+            log.warn("Failing to remove the throttle {}, remove it manually: {}",
+                configs, e.getMessage());
+        }
+    }
+
+    /**
+     * Records the throttle of the wave still running on the topic, and pins
+     * the rate of its brokers, so the waves of other topics do not remove it
+     * when they finish. Without rate, the record just tells the next run
+     * that the moves were left running.
+     *
+     * @param brokers Returned by the
+     * {@link #throttle(AdminClient, TopicDescription, Map)} of the wave
+     */
+    public synchronized void keep(TopicDescription description,
+            Map<TopicPartition, Optional<NewPartitionReassignment>> wave,
+            Set<Integer> brokers) {
+
+        brokers.forEach(broker -> {
+            if(throttled.merge(broker, -1, Integer::sum) <= 0){
+                throttled.remove(broker);
+            }
+        });
+
+        var record = new KeptThrottle();
+        if(!brokers.isEmpty()){
+            var leaders = new TreeSet<String>();
+            var followers = new TreeSet<String>();
+            replicasOf(description, wave, leaders, followers, new TreeSet<>());
+
+            record = new KeptThrottle(String.join(",", leaders),
+                String.join(",", followers), new TreeSet<>(brokers), rate);
+
+            log.warn("Replication of {} still throttled at brokers {}, until the next run finds the moves finished",
+                description.name(), brokers);
+        }
+
+        kept.put(description.name(), record);
+    }
+
+    /**
+     * @return The throttles kept by the waves still running, by topic, to
+     * record for the next run
+     */
+    public synchronized Map<String, KeptThrottle> kept() {
+        return new HashMap<>(kept);
+    }
+
+    /**
+     * Takes the throttles kept by a previous run, so
+     * {@link #settle(AdminClient, String)} removes them
+     */
+    public synchronized void restore(Map<String, KeptThrottle> throttles) {
+        kept.putAll(throttles);
+    }
+
+    /**
+     * @return <code>true</code> when the config still has the value written
+     * by this tool
+     */
+    private static boolean written(Config config, String name, String value,
+            ConfigSource source) {
+
+        return Optional.ofNullable(config)
+            .map(c -> c.get(name))
+            .filter(entry -> source.equals(entry.source()))
+            .map(ConfigEntry::value)
+            .filter(actual -> actual.equals(value))
+            .isPresent();
+    }
+
+    /**
+     * Removes the throttle kept by a previous execution whose moves were
+     * still running at the timeout, once none of the partitions of the topic
+     * is being reassigned anymore. Just the configs still holding the values
+     * written by the kept wave are removed, never the ones set by others.
+     * The rate of a broker is removed just when it does not take part in any
+     * other reassignment of the cluster, nor in a wave of this instance,
+     * running or kept.
+     *
+     * @return <code>true</code> when the topic had moves left by a previous
+     * execution, and they finished
+     */
+    public synchronized boolean settle(AdminClient admin, String topic) {
+
+        var record = kept.get(topic);
+        if(Objects.isNull(record)){
+            return false;
+        }
+
+        try{
+            Map<TopicPartition, PartitionReassignment> ongoing =
+                admin.listPartitionReassignments().reassignments().get();
+
+            if(ongoing.keySet().stream().anyMatch(tp -> topic.equals(tp.topic()))){
+                log.info("Moves of {} left by a previous run still running", topic);
+                return false;
+            }
+
+            var busy = ongoing.values().stream()
+                .flatMap(reassignment -> reassignment.replicas().stream())
+                .collect(Collectors.toSet());
+
+            var resource = new ConfigResource(Type.TOPIC, topic);
+            var resources = new ArrayList<ConfigResource>();
+            resources.add(resource);
+            record.getBrokers().forEach(broker -> resources.add(brokerOf(broker)));
+
+            var actual = admin.describeConfigs(resources).all().get();
+            var configs = new HashMap<ConfigResource, Collection<AlterConfigOp>>();
+
+            var replicas = new ArrayList<AlterConfigOp>();
+            if(written(actual.get(resource), LEADER_REPLICAS, record.getLeaders(),
+                    ConfigSource.DYNAMIC_TOPIC_CONFIG)){
+                replicas.add(delete(LEADER_REPLICAS));
+            }
+            if(written(actual.get(resource), FOLLOWER_REPLICAS, record.getFollowers(),
+                    ConfigSource.DYNAMIC_TOPIC_CONFIG)){
+                replicas.add(delete(FOLLOWER_REPLICAS));
+            }
+            if(!replicas.isEmpty()){
+                configs.put(resource, replicas);
+            }
+
+            var value = String.valueOf(record.getRate());
+            record.getBrokers().stream()
+                .filter(broker -> !throttled.containsKey(broker))
+                .filter(broker -> kept.entrySet().stream()
+                    .filter(other -> !topic.equals(other.getKey()))
+                    .noneMatch(other -> other.getValue().getBrokers().contains(broker)))
+                .filter(broker -> !busy.contains(broker))
+                .forEach(broker -> {
+                    var config = actual.get(brokerOf(broker));
+                    var rates = new ArrayList<AlterConfigOp>();
+                    if(written(config, LEADER_RATE, value,
+                            ConfigSource.DYNAMIC_BROKER_CONFIG)){
+                        rates.add(delete(LEADER_RATE));
+                    }
+                    if(written(config, FOLLOWER_RATE, value,
+                            ConfigSource.DYNAMIC_BROKER_CONFIG)){
+                        rates.add(delete(FOLLOWER_RATE));
+                    }
+                    if(!rates.isEmpty()){
+                        configs.put(brokerOf(broker), rates);
+                    }
+                });
+
+            if(!configs.isEmpty()){
+                alter(admin, configs);
+            }
+
+            kept.remove(topic);
+            log.info("Throttle left by a previous run of {} removed", topic);
+
+            return true;
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new TopicPatchException(e.getMessage(), e);
+
+        }catch(ExecutionException e){
+            log.warn("Failing to check the throttle left at {}: {}", topic,
+                e.getMessage());
+            return false;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.github.kattlo.core.backend.OperationType;
 
 import java.util.Objects;
 
+import com.github.kattlo.core.kafka.Retry;
 import com.github.kattlo.topic.yaml.TopicOperation;
 
 import org.apache.kafka.clients.admin.AdminClient;
@@ -16,19 +17,35 @@ public interface Strategy {
     void execute(AdminClient admin);
 
     static Strategy of(TopicOperation operation) {
+        return of(operation, ReassignmentTracker.defaults(),
+            ReplicationThrottle.none(), new ClusterLoad(), Retry.none());
+    }
+
+    /**
+     * @param tracker To follow the reassignments of a new replication factor
+     * @param throttle To bound the data moved by a new replication factor
+     * @param load To place the replicas of a new replication factor
+     * @param retry To retry the Admin calls failing with a retriable error
+     */
+    static Strategy of(TopicOperation operation, ReassignmentTracker tracker,
+            ReplicationThrottle throttle, ClusterLoad load, Retry retry) {
         Objects.requireNonNull(operation);
+        Objects.requireNonNull(tracker);
+        Objects.requireNonNull(throttle);
+        Objects.requireNonNull(load);
+        Objects.requireNonNull(retry);
 
         if(OperationType.CREATE.name().toLowerCase()
                 .equals(operation.getOperation())){
 
-            return new CreateStrategy(operation);
+            return new CreateStrategy(operation, retry);
 
         } else if(OperationType.PATCH.name().toLowerCase()
                 .equals(operation.getOperation())){
 
-            return new PatchStrategy(operation);
+            return new PatchStrategy(operation, tracker, throttle, load, retry);
         }
 
-        return new RemoveStrategy(operation);
+        return new RemoveStrategy(operation, retry);
     }
 }
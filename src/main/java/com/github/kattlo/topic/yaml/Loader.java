@@ -1,6 +1,5 @@
 package com.github.kattlo.topic.yaml;
 
-import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
@@ -25,11 +24,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class Loader {
 
-    private static final Constructor CONSTRUCTOR =
-        new Constructor(Model.class);
-
-    private static final Yaml YAML =
-        new Yaml(CONSTRUCTOR);
+    /**
+     * SnakeYAML instances are not thread-safe, there is one per thread
+     */
+    private static final ThreadLocal<Yaml> YAML =
+        ThreadLocal.withInitial(() -> new Yaml(new Constructor(Model.class)));
 
     private static final TopicOperationMapper MAPPER =
         Mappers.getMapper(TopicOperationMapper.class);
@@ -41,9 +40,9 @@ public class Loader {
     public static Model load(Path file) {
         MigrationLoader.matches(file);
 
-        try {
-            return YAML.load(new FileReader(file.toFile()));
-        }catch(FileNotFoundException e){
+        try(var reader = new FileReader(file.toFile())){
+            return YAML.get().load(reader);
+        }catch(IOException e){
             throw new LoadException(e);
         }
     }
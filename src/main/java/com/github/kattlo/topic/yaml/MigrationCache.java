@@ -0,0 +1,232 @@
+package com.github.kattlo.topic.yaml;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.github.kattlo.core.backend.Original;
+import com.github.kattlo.topic.TopicCommandException;
+import com.github.kattlo.util.JsonFileUtil;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fingerprints of the migration files, kept at <code>.kattlo/cache</code>
+ * within the migrations directory, with the version of each topic last
+ * confirmed by the backend.
+ *
+ * A topic is clean, and does not need to be loaded nor looked up in the
+ * backend, when none of its files changed and the backend watermark of the
+ * topic did not move since the cache was saved.
+ *
+ * @author fabiojose
+ */
+@RegisterForReflection
+@Slf4j
+@Data
+@NoArgsConstructor
+public class MigrationCache {
+
+    private static final String CACHE_DIRECTORY = ".kattlo";
+    private static final String CACHE_FILE = "cache";
+
+    @RegisterForReflection
+    @Data
+    @NoArgsConstructor
+    public static class FileEntry {
+        private String topic;
+        private String version;
+        private long size;
+        private long modified;
+        private String hash;
+    }
+
+    @RegisterForReflection
+    @Data
+    @NoArgsConstructor
+    public static class TopicEntry {
+        private String version;
+        private Long watermark;
+    }
+
+    /**
+     * Keyed by the file path
+     */
+    private Map<String, FileEntry> files = new HashMap<>();
+
+    /**
+     * Keyed by the topic name
+     */
+    private Map<String, TopicEntry> topics = new HashMap<>();
+
+    public static Path fileFor(Path directory) {
+        return directory.resolve(CACHE_DIRECTORY).resolve(CACHE_FILE);
+    }
+
+    private static FileEntry stat(Path file) {
+        try{
+            var entry = new FileEntry();
+            entry.setSize(Files.size(file));
+            entry.setModified(Files.getLastModifiedTime(file).toMillis());
+
+            return entry;
+
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String hashOf(Path file) {
+        try{
+            return Original.hashOf(Files.readAllBytes(file));
+        }catch(IOException e){
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return <code>true</code> when the file is not in the cache or its
+     * content is not the same anymore. The hash is computed only when the
+     * size or the modification time differ.
+     */
+    public boolean changed(Path file) {
+        var cached = files.get(file.toString());
+        if(Objects.isNull(cached)){
+            return true;
+        }
+
+        var actual = stat(file);
+        if(actual.getSize() == cached.getSize()
+                && actual.getModified() == cached.getModified()){
+            return false;
+        }
+
+        return actual.getSize() != cached.getSize()
+            || !hashOf(file).equals(cached.getHash());
+    }
+
+    /**
+     * @param files All the files in the directory
+     * @param changed The operations loaded from the changed files
+     * @return The topics with all the files unchanged, with no new one and
+     * no one removed
+     */
+    public Set<String> unchangedTopics(Collection<Path> files,
+            Collection<TopicOperation> changed) {
+
+        var present = files.stream()
+            .map(Path::toString)
+            .collect(Collectors.toSet());
+
+        var dirty = new HashSet<String>();
+        changed.forEach(o -> dirty.add(o.getTopic()));
+
+        // the topics of removed files
+        this.files.entrySet().stream()
+            .filter(kv -> !present.contains(kv.getKey()))
+            .forEach(kv -> dirty.add(kv.getValue().getTopic()));
+
+        return files.stream()
+            .map(Path::toString)
+            .map(this.files::get)
+            .filter(Objects::nonNull)
+            .map(FileEntry::getTopic)
+            .filter(topic -> !dirty.contains(topic))
+            .collect(Collectors.toSet());
+    }
+
+    /**
+     * @return <code>true</code> when the backend confirmed the latest
+     * version of the topic and its watermark did not move
+     */
+    public boolean clean(String topic, Long watermark) {
+
+        var latest = files.values().stream()
+            .filter(f -> topic.equals(f.getTopic()))
+            .map(FileEntry::getVersion)
+            .max(String::compareTo);
+
+        return Optional.ofNullable(topics.get(topic))
+            .filter(t -> Objects.nonNull(watermark))
+            .filter(t -> watermark.equals(t.getWatermark()))
+            .filter(t -> latest.isPresent() && latest.get().equals(t.getVersion()))
+            .isPresent();
+    }
+
+    /**
+     * @return The cached topic of the file
+     */
+    public Optional<String> topicOf(Path file) {
+        return Optional.ofNullable(files.get(file.toString()))
+            .map(FileEntry::getTopic);
+    }
+
+    /**
+     * Fingerprints the files of the migrations and records the version
+     * confirmed by the backend
+     */
+    public void confirm(String topic, String version, Long watermark,
+            Collection<TopicOperation> operations) {
+
+        operations.forEach(operation -> {
+            var entry = stat(operation.getFile());
+            entry.setTopic(topic);
+            entry.setVersion(operation.getVersion());
+            entry.setHash(hashOf(operation.getFile()));
+
+            files.put(operation.getFile().toString(), entry);
+        });
+
+        var entry = new TopicEntry();
+        entry.setVersion(version);
+        entry.setWatermark(watermark);
+
+        topics.put(topic, entry);
+    }
+
+    /**
+     * Forgets the files that do not exist anymore
+     */
+    public void retain(Collection<Path> present) {
+        var paths = present.stream()
+            .map(Path::toString)
+            .collect(Collectors.toSet());
+
+        files.keySet().retainAll(paths);
+    }
+
+    /**
+     * @return An empty cache when there is no cache or it can not be read
+     */
+    public static MigrationCache load(Path file) {
+
+        return JsonFileUtil.read(file, MigrationCache.class)
+            .orElseGet(MigrationCache::new);
+    }
+
+    /**
+     * @throws TopicCommandException When the cache can not be written
+     */
+    public void save(Path file) {
+
+        try{
+            JsonFileUtil.writeAtomically(file, this);
+            log.debug("Cache written to {}", file);
+
+        }catch(IOException e){
+            throw new TopicCommandException(e.getMessage(), e);
+        }
+    }
+}
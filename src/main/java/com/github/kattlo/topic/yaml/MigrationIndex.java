@@ -0,0 +1,159 @@
+package com.github.kattlo.topic.yaml;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.kattlo.core.exception.LoadException;
+import com.github.kattlo.core.yaml.MigrationLoader;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The migrations of a directory, each file read and parsed just once,
+ * grouped by topic with the versions sorted.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class MigrationIndex {
+
+    private final Map<String, List<TopicOperation>> operations;
+
+    private MigrationIndex(Map<String, List<TopicOperation>> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * @throws LoadException When there are two files with the same version
+     * for the same topic
+     */
+    public static MigrationIndex of(Collection<TopicOperation> operations) {
+        Objects.requireNonNull(operations);
+
+        operations.stream()
+            .collect(Collectors.groupingBy(o -> o.getTopic() + " " + o.getVersion()))
+            .values().stream()
+            .filter(same -> same.size() > 1)
+            .findFirst()
+            .ifPresent(same -> {
+                throw new LoadException("duplicated version "
+                    + same.get(0).getVersion() + " of the topic "
+                    + same.get(0).getTopic() + ": " + same.stream()
+                        .map(TopicOperation::getFile)
+                        .collect(Collectors.toList()));
+            });
+
+        var byTopic = operations.stream()
+            .collect(Collectors.groupingBy(TopicOperation::getTopic,
+                TreeMap::new,
+                Collectors.collectingAndThen(Collectors.toList(), list -> {
+                    list.sort(Comparator.comparing(TopicOperation::getVersion));
+                    return List.copyOf(list);
+                })));
+
+        log.debug("Migrations indexed by topic {}", byTopic);
+        return new MigrationIndex(byTopic);
+    }
+
+    /**
+     * Parses the files while the directory tree is walked, without listing
+     * them first. The grouping by topic waits for the last file: the topic
+     * is read from the content and the same version may be duplicated in
+     * another directory.
+     *
+     * @param recursive To walk the whole directory tree, or just the
+     * directory itself
+     * @throws RuntimeException The failure of the first file, by path, that
+     * can not be loaded
+     * @see MigrationLoader#walk(Path, int, Collection, Collection)
+     */
+    public static MigrationIndex of(Path directory, boolean recursive,
+            Collection<String> includes, Collection<String> excludes,
+            ParallelLoader loader) throws IOException {
+
+        try(var walked = walk(directory, recursive, includes, excludes)){
+            return of(operationsOf(loader.load(walked)));
+        }
+    }
+
+    private static Stream<Path> walk(Path directory, boolean recursive,
+            Collection<String> includes, Collection<String> excludes)
+            throws IOException {
+
+        var depth = recursive ? Integer.MAX_VALUE : 1;
+        return MigrationLoader.walk(directory, depth, includes, excludes);
+    }
+
+    /**
+     * @param recursive To walk the whole directory tree, or just the
+     * directory itself
+     * @return The migration files matching the globs, sorted by path
+     * @see MigrationLoader#walk(Path, int, Collection, Collection)
+     */
+    public static List<Path> list(Path directory, boolean recursive,
+            Collection<String> includes, Collection<String> excludes)
+            throws IOException {
+
+        try(var walked = walk(directory, recursive, includes, excludes)){
+            return walked
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * @throws RuntimeException The failure of the first file, by path, that
+     * can not be loaded
+     */
+    public static List<TopicOperation> load(Collection<Path> files,
+            ParallelLoader loader) {
+
+        return operationsOf(loader.load(files));
+    }
+
+    private static List<TopicOperation> operationsOf(
+            List<ParallelLoader.Result> results) {
+
+        var failure = ParallelLoader.failureOf(results);
+        if(failure.isPresent()){
+            throw failure.get();
+        }
+
+        return results.stream()
+            .map(ParallelLoader.Result::getOperation)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @return The topics, sorted by name
+     */
+    public Set<String> topics() {
+        return operations.keySet();
+    }
+
+    /**
+     * @return All the migrations of the topic, sorted by version
+     */
+    public List<TopicOperation> all(String topic) {
+        return operations.getOrDefault(topic, List.of());
+    }
+
+    /**
+     * @return The migrations of the topic newer than the current version,
+     * sorted by version
+     */
+    public List<TopicOperation> newer(String currentVersion, String topic) {
+        return all(topic).stream()
+            .filter(o -> o.getVersion().compareTo(currentVersion) > 0)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.kattlo.topic.yaml;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import com.github.kattlo.topic.TopicCommandException;
+import com.github.kattlo.util.JsonFileUtil;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Progress of a run, kept at <code>.kattlo/journal</code> within the
+ * migrations directory: the version of each topic applied and committed,
+ * or found up to date, by the run.
+ *
+ * A run that fails leaves the journal behind, so the next one can resume
+ * skipping the topics already completed, without looking them up in the
+ * backend again. A run that completes removes it.
+ *
+ * It also records the replication throttles left by the moves still
+ * running at the timeout, so the next run removes just what was written.
+ *
+ * @author fabiojose
+ */
+@RegisterForReflection
+@Slf4j
+@Data
+@NoArgsConstructor
+public class MigrationJournal {
+
+    private static final String JOURNAL_DIRECTORY = ".kattlo";
+    private static final String JOURNAL_FILE = "journal";
+
+    /**
+     * The throttle written for the moves of a topic still running at the
+     * timeout
+     */
+    @RegisterForReflection
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class KeptThrottle {
+
+        /**
+         * The value of <code>leader.replication.throttled.replicas</code>,
+         * or <code>null</code> when not written
+         */
+        private String leaders;
+
+        /**
+         * The value of <code>follower.replication.throttled.replicas</code>,
+         * or <code>null</code> when not written
+         */
+        private String followers;
+
+        /**
+         * The brokers with the rate written
+         */
+        private Set<Integer> brokers = new TreeSet<>();
+
+        private long rate;
+    }
+
+    /**
+     * The version of each topic, keyed by the topic name
+     */
+    private Map<String, String> topics = new HashMap<>();
+
+    /**
+     * Keyed by the topic name
+     */
+    private Map<String, KeptThrottle> throttles = new HashMap<>();
+
+    public static Path fileFor(Path directory) {
+        return directory.resolve(JOURNAL_DIRECTORY).resolve(JOURNAL_FILE);
+    }
+
+    /**
+     * Records the version of the topic, when newer than the one recorded
+     */
+    public synchronized void checkpoint(String topic, String version) {
+        topics.merge(topic, version,
+            (recorded, actual) -> actual.compareTo(recorded) > 0 ? actual : recorded);
+    }
+
+    /**
+     * @return <code>true</code> when the topic has no migration newer than
+     * the version recorded
+     */
+    public synchronized boolean completed(String topic, MigrationIndex index) {
+        return Optional.ofNullable(topics.get(topic))
+            .map(version -> index.newer(version, topic).isEmpty())
+            .orElse(Boolean.FALSE);
+    }
+
+    /**
+     * @return The topics not completed yet
+     */
+    public Set<String> pending(Collection<String> topics, MigrationIndex index) {
+        return topics.stream()
+            .filter(topic -> !completed(topic, index))
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    /**
+     * @return An empty journal when there is no journal or it can not be
+     * read, so everything is migrated
+     */
+    public static MigrationJournal load(Path file) {
+
+        return JsonFileUtil.read(file, MigrationJournal.class)
+            .orElseGet(MigrationJournal::new);
+    }
+
+    /**
+     * @throws TopicCommandException When the journal can not be written
+     */
+    public synchronized void save(Path file) {
+
+        try{
+            JsonFileUtil.writeAtomically(file, this);
+            log.debug("Journal written to {}", file);
+
+        }catch(IOException e){
+            throw new TopicCommandException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @throws TopicCommandException When the journal can not be removed
+     */
+    public static void remove(Path file) {
+        try{
+            if(Files.deleteIfExists(file)){
+                log.debug("Journal {} removed", file);
+            }
+        }catch(IOException e){
+            throw new TopicCommandException(e.getMessage(), e);
+        }
+    }
+}
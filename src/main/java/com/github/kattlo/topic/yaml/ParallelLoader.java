@@ -0,0 +1,166 @@
+package com.github.kattlo.topic.yaml;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.github.kattlo.core.exception.LoadException;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads and maps many migration files at once, on a bounded fork-join pool
+ *
+ * @author fabiojose
+ */
+@Slf4j
+public class ParallelLoader {
+
+    /**
+     * The outcome of one file: the operation or the failure to load it
+     */
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Result {
+
+        private final Path file;
+        private final TopicOperation operation;
+        private final RuntimeException failure;
+
+        public boolean failed() {
+            return Objects.nonNull(failure);
+        }
+    }
+
+    public static final int DEFAULT_PARALLELISM =
+        Runtime.getRuntime().availableProcessors();
+
+    private final TopicOperationMapper mapper;
+    private final int parallelism;
+
+    public ParallelLoader(TopicOperationMapper mapper, int parallelism) {
+        this.mapper = Objects.requireNonNull(mapper);
+
+        if(parallelism < 1){
+            throw new IllegalArgumentException("parallelism must be greater than zero");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public ParallelLoader(TopicOperationMapper mapper) {
+        this(mapper, DEFAULT_PARALLELISM);
+    }
+
+    private Result load(Path file) {
+        try{
+            return new Result(file, mapper.map(Loader.load(file), file), null);
+
+        }catch(RuntimeException e){
+            log.debug("Failing to load {}: {}", file, e.getMessage());
+            return new Result(file, null, e);
+        }
+    }
+
+    /**
+     * @return One result per file, sorted by the file path
+     */
+    public List<Result> load(Collection<Path> files) {
+
+        var sorted = files.stream()
+            .sorted()
+            .collect(Collectors.toList());
+
+        if(parallelism == 1 || sorted.size() <= 1){
+            return sorted.stream()
+                .map(this::load)
+                .collect(Collectors.toList());
+        }
+
+        var pool = new ForkJoinPool(parallelism);
+        try{
+            // the parallel stream runs within the pool that submits it
+            return pool.submit(() ->
+                sorted.parallelStream()
+                    .map(this::load)
+                    .collect(Collectors.toList()))
+                .get();
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new LoadException(e);
+
+        }catch(ExecutionException e){
+            throw new LoadException(e.getCause());
+
+        }finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Submits each file to the pool as soon as the stream yields it, so the
+     * parsing runs along with the walk of the directory tree
+     *
+     * @return One result per file, sorted by the file path
+     */
+    public List<Result> load(Stream<Path> files) {
+
+        if(parallelism == 1){
+            return files
+                .sorted()
+                .map(this::load)
+                .collect(Collectors.toList());
+        }
+
+        var pool = new ForkJoinPool(parallelism);
+        try{
+            var pending = files
+                .map(file -> pool.submit(() -> load(file)))
+                .collect(Collectors.toList());
+
+            var results = new ArrayList<Result>(pending.size());
+            for(var task : pending){
+                results.add(task.get());
+            }
+
+            results.sort(Comparator.comparing(Result::getFile));
+            return results;
+
+        }catch(InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new LoadException(e);
+
+        }catch(ExecutionException e){
+            throw new LoadException(e.getCause());
+
+        }finally{
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @return The first failure, by file path, if any
+     */
+    public static Optional<RuntimeException> failureOf(List<Result> results) {
+        results.stream()
+            .filter(Result::failed)
+            .forEach(r -> log.debug("Failure to load {}", r));
+
+        return results.stream()
+            .filter(Result::failed)
+            .map(Result::getFailure)
+            .findFirst();
+    }
+}
@@ -144,6 +144,7 @@ public class TopicOperation {
             var contentBytes = Files.readAllBytes(getFile());
             var contentBase64 = Base64.getEncoder().encodeToString(contentBytes);
             original.setContent(contentBase64);
+            original.setHash(Original.hashOf(contentBytes));
 
             result.setOriginal(original);
 
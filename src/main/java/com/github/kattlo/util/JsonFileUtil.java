@@ -0,0 +1,80 @@
+package com.github.kattlo.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.Optional;
+
+import javax.json.bind.JsonbBuilder;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The state kept on disk as JSON, like the cache, the journal and the
+ * snapshot of the backend.
+ *
+ * @author fabiojose
+ */
+@Slf4j
+@UtilityClass
+public class JsonFileUtil {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * @return Empty when there is no file or it can not be read
+     */
+    public static <T> Optional<T> read(Path file, Class<T> type) {
+        Objects.requireNonNull(file);
+        Objects.requireNonNull(type);
+
+        if(!Files.exists(file)){
+            log.debug("There is no file at {}", file);
+            return Optional.empty();
+        }
+
+        try(var jsonb = JsonbBuilder.create();
+            var in = Files.newInputStream(file)){
+
+            return Optional.ofNullable(jsonb.fromJson(in, type));
+
+        }catch(Exception e){
+            log.warn("Ignoring the unreadable file {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes to a temporary file and then moves it over the file, so a
+     * failure never leaves the file half written
+     *
+     * @throws IOException When the file can not be written
+     */
+    public static void writeAtomically(Path file, Object value)
+            throws IOException {
+
+        Objects.requireNonNull(file);
+        Objects.requireNonNull(value);
+
+        try(var jsonb = JsonbBuilder.create()){
+            Files.createDirectories(file.getParent());
+
+            var temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+            try(var out = Files.newOutputStream(temp)){
+                jsonb.toJson(value, out);
+            }
+
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+
+        }catch(IOException e){
+            throw e;
+
+        }catch(Exception e){
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
@@ -34,6 +34,7 @@ public class NumberUtil {
     private static Pattern MINUTES_PATTERN;
     private static Pattern HOURS_PATTERN;
     private static Pattern DAYS_PATTERN;
+    private static Pattern DURATION_PATTERN;
 
     private static Pattern getSecondsPattern(){
         if(Objects.isNull(SECONDS_PATTERN)){
@@ -63,6 +64,13 @@ public class NumberUtil {
         return DAYS_PATTERN;
     }
 
+    private static Pattern getDurationPattern() {
+        if(Objects.isNull(DURATION_PATTERN)){
+            DURATION_PATTERN = Pattern.compile("([0-9]+)\\s*(ms|s|m|h)?", Pattern.CASE_INSENSITIVE);
+        }
+        return DURATION_PATTERN;
+    }
+
     private static final List<String> HUMAN_READABLE_SYMBOLS = List.of(
         "gib",
         "mib",
@@ -208,6 +216,58 @@ public class NumberUtil {
 
     }
 
+    /**
+     * Duration like <code>60s</code>, <code>5m</code>, <code>1h</code>,
+     * <code>500ms</code>, just the seconds or human readable like
+     * <code>2minutes</code>
+     */
+    public static Duration durationOf(String value) {
+        StringUtil.requireNonBlank(value);
+
+        var matcher = getDurationPattern().matcher(value.trim());
+        if(matcher.matches()){
+            var amount = Long.parseLong(matcher.group(1));
+            var unit = Objects.requireNonNullElse(matcher.group(2), "s")
+                .toLowerCase();
+
+            switch(unit){
+                case "ms":
+                    return Duration.ofMillis(amount);
+                case "m":
+                    return Duration.ofMinutes(amount);
+                case "h":
+                    return Duration.ofHours(amount);
+                default:
+                    return Duration.ofSeconds(amount);
+            }
+        }
+
+        if(isHumanReadableCandidate(value)){
+            return Duration.ofMillis(((Number)parseTime(value.trim())).longValue());
+        }
+
+        throw new IllegalArgumentException(value);
+    }
+
+    /**
+     * Bytes like <code>1048576</code> or human readable like
+     * <code>50MiB</code>
+     */
+    public static long bytesOf(String value) {
+        StringUtil.requireNonBlank(value);
+
+        var human = value.trim();
+        if(human.toLowerCase().endsWith("ib")){
+            return ((Number)fromHumanReadable(human)).longValue();
+        }
+
+        try{
+            return Long.parseLong(human);
+        }catch(NumberFormatException e){
+            throw new IllegalArgumentException(value, e);
+        }
+    }
+
     public static boolean compare(Number operand, Number value, Comparation c) {
 
         var type = operand.getClass();
@@ -1,11 +1,14 @@
 package com.github.kattlo.core.backend.kafka;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -257,4 +260,78 @@ public class KafkaBackendConfigTest {
             assertEquals(KafkaBackendConfig.TOPIC_T_DESIRED_REPLICATION_FACTOR, newTopic.replicationFactor());
         }
     }
+
+    @Test
+    public void should_resolve_the_topic_just_once() throws Exception {
+
+        var configs = new Properties();
+
+        var nodes = List.of(
+            new Node(0, "localhost", 9092)
+        );
+
+        var partition = new TopicPartitionInfo(0, nodes.get(0), nodes, nodes);
+        var topic = KafkaBackendConfig.TOPIC_T_STATE;
+        var description = new TopicDescription(topic, false, List.of(partition));
+
+        try(var mocked = mockStatic(TopicUtils.class)){
+            mocked.when(() -> TopicUtils.describe(anyString(), any()))
+                .thenReturn(Optional.of(description));
+
+            mockitoWhen();
+
+            // act
+            for(int i = 0; i < 10; i++){
+                assertEquals(topic, backendConfig.topicsStateTopicName(configs));
+            }
+
+            // assert
+            verify(kafka, times(1)).adminFor(any());
+            mocked.verify(() -> TopicUtils.describe(anyString(), any()), times(1));
+        }
+    }
+
+    @Test
+    public void should_close_the_shared_admin_client() throws Exception {
+
+        var configs = new Properties();
+
+        try(var mocked = mockStatic(TopicUtils.class)){
+            mocked.when(() -> TopicUtils.describe(anyString(), any()))
+                .thenReturn(Optional.empty());
+
+            mockitoWhen();
+
+            backendConfig.topicsStateTopicName(configs);
+            backendConfig.topicsHistoryTopicName(configs);
+
+            // act
+            backendConfig.close();
+
+            // assert
+            verify(kafka, times(1)).adminFor(any());
+            verify(admin, times(1)).close();
+        }
+    }
+
+    @Test
+    public void should_not_create_the_topic_when_checking_it_exists() throws Exception {
+
+        var configs = new Properties();
+
+        try(var mocked = mockStatic(TopicUtils.class)){
+            mocked.when(() -> TopicUtils.describe(anyString(), any()))
+                .thenReturn(Optional.empty());
+
+            when(kafka.adminFor(any()))
+                .thenReturn(admin);
+
+            // act
+            var actual = backendConfig.exists(KafkaBackendConfig.TOPIC_T_STATE, configs);
+
+            // assert
+            assertFalse(actual);
+            verify(admin, never()).createTopics(anyCollection());
+        }
+    }
 }
@@ -2,17 +2,29 @@ package com.github.kattlo.core.backend.kafka;
 
 import static org.junit.Assert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
@@ -35,6 +47,7 @@ import org.hamcrest.Matchers;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -52,11 +65,11 @@ public class KafkaBackendTest {
         new MockProducer<>(true, null, null);
 
     @Spy
-    private MockConsumer<String, ResourceCommit> consumer =
+    private MockConsumer<String, byte[]> consumer =
         new MockConsumer<>(OffsetResetStrategy.EARLIEST);
 
     @Spy
-    private MockConsumer<String, Migration> migrationConsumer =
+    private MockConsumer<String, byte[]> migrationConsumer =
         new MockConsumer<>(OffsetResetStrategy.EARLIEST);
 
     @Mock
@@ -76,28 +89,44 @@ public class KafkaBackendTest {
         producer.clear();
     }
 
+    private final BackendRecordSerializer serializer =
+        new BackendRecordSerializer();
+
+    /**
+     * The backend consumes the values as bytes
+     */
+    private <T> ConsumerRecord<String, byte[]> raw(ConsumerRecord<String, T> record) {
+        return new ConsumerRecord<>(record.topic(), record.partition(),
+            record.offset(), record.key(),
+            serializer.serialize(record.topic(), record.value()));
+    }
+
     private void setupConsumer(ConsumerRecord<String, ResourceCommit> record){
 
-        consumer.schedulePollTask(() -> {
-            var tp = new TopicPartition(KafkaBackendConfig.TOPIC_T_STATE,
-                partitioner.partition(record.value().getResourceType(),
-                    record.value().getResourceName()));
+        var tp = new TopicPartition(KafkaBackendConfig.TOPIC_T_STATE,
+            partitioner.partition(record.value().getResourceType(),
+                record.value().getResourceName()));
 
-            consumer.updateBeginningOffsets(Map.of(tp, Long.valueOf(0)));
-            consumer.addRecord(record);
+        consumer.updateBeginningOffsets(Map.of(tp, Long.valueOf(0)));
+        consumer.updateEndOffsets(Map.of(tp, record.offset() + 1));
+
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(raw(record));
         });
 
     }
 
     private void setupConsumer(ConsumerRecord<String, Migration> record, String topic){
 
-        migrationConsumer.schedulePollTask(() -> {
-            var tp = new TopicPartition(topic,
-                partitioner.partition(record.value().getResourceType(),
-                    record.value().getResourceName()));
+        var tp = new TopicPartition(topic,
+            partitioner.partition(record.value().getResourceType(),
+                record.value().getResourceName()));
+
+        migrationConsumer.updateBeginningOffsets(Map.of(tp, Long.valueOf(0)));
+        migrationConsumer.updateEndOffsets(Map.of(tp, record.offset() + 1));
 
-            migrationConsumer.updateBeginningOffsets(Map.of(tp, Long.valueOf(0)));
-            migrationConsumer.addRecord(record);
+        migrationConsumer.schedulePollTask(() -> {
+            migrationConsumer.addRecord(raw(record));
         });
 
     }
@@ -107,19 +136,14 @@ public class KafkaBackendTest {
         var tp = new TopicPartition(KafkaBackendConfig.TOPIC_T_STATE,
             partitioner.partition(type, name));
 
-        consumer.schedulePollTask(() -> {
-            //consumer.rebalance(Collections.singletonList(tp));
-            consumer.updateBeginningOffsets(Map.of(tp, Long.valueOf(0)));
-            //consumer.addRecord(record);
-            //consumer.seek(tp, 0);
-        });
+        consumer.updateBeginningOffsets(Map.of(tp, Long.valueOf(0)));
+        consumer.updateEndOffsets(Map.of(tp, Long.valueOf(0)));
 
         var tpHistory = new TopicPartition(KafkaBackendConfig.TOPIC_T_HISTORY,
             partitioner.partition(type, name));
 
-        migrationConsumer.schedulePollTask(() -> {
-            migrationConsumer.updateBeginningOffsets(Map.of(tpHistory, Long.valueOf(0)));
-        });
+        migrationConsumer.updateBeginningOffsets(Map.of(tpHistory, Long.valueOf(0)));
+        migrationConsumer.updateEndOffsets(Map.of(tpHistory, Long.valueOf(0)));
     }
 
     @Test
@@ -162,6 +186,9 @@ public class KafkaBackendTest {
             when(backendConfig.topicsHistoryTopicName(any()))
                 .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
 
+            when(backendConfig.originalsTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_ORIGINALS);
+
             setupConsumer(ResourceType.TOPIC, topic);
 
             // act
@@ -169,7 +196,7 @@ public class KafkaBackendTest {
 
             // assert
             var records = producer.history();
-            assertEquals(2, records.size());
+            assertEquals(3, records.size());
 
             var actual = records.iterator().next();
 
@@ -218,6 +245,9 @@ public class KafkaBackendTest {
             when(backendConfig.topicsHistoryTopicName(any()))
                 .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
 
+            when(backendConfig.originalsTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_ORIGINALS);
+
             setupConsumer(ResourceType.TOPIC, topic);
 
             // act
@@ -225,9 +255,9 @@ public class KafkaBackendTest {
 
             // assert
             var records = producer.history();
-            assertEquals(2, records.size());
+            assertEquals(3, records.size());
 
-            var actual = records.iterator().next();
+            var actual = records.get(1);
 
             assertEquals(KafkaBackendConfig.TOPIC_T_STATE, actual.topic());
         }
@@ -273,6 +303,9 @@ public class KafkaBackendTest {
             when(backendConfig.topicsHistoryTopicName(any()))
                 .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
 
+            when(backendConfig.originalsTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_ORIGINALS);
+
             setupConsumer(ResourceType.TOPIC, topic);
 
             // act
@@ -280,9 +313,9 @@ public class KafkaBackendTest {
 
             // assert
             var records = producer.history();
-            assertEquals(2, records.size());
+            assertEquals(3, records.size());
 
-            var record = records.iterator().next();
+            var record = records.get(1);
             var actual = (ResourceCommit)record.value();
 
             assertEquals("topic-name-1", actual.getResourceName());
@@ -346,6 +379,9 @@ public class KafkaBackendTest {
             when(backendConfig.topicsHistoryTopicName(any()))
                 .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
 
+            when(backendConfig.originalsTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_ORIGINALS);
+
             setupConsumer(ResourceType.TOPIC, topic);
 
             // act
@@ -353,9 +389,9 @@ public class KafkaBackendTest {
 
             // assert
             var records = producer.history();
-            assertEquals(2, records.size());
+            assertEquals(3, records.size());
 
-            var actual = records.get(1);
+            var actual = records.get(0);
 
             assertEquals(KafkaBackendConfig.TOPIC_T_HISTORY, actual.topic());
         }
@@ -402,6 +438,9 @@ public class KafkaBackendTest {
             when(backendConfig.topicsHistoryTopicName(any()))
                 .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
 
+            when(backendConfig.originalsTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_ORIGINALS);
+
             setupConsumer(ResourceType.TOPIC, topic);
 
             // act
@@ -409,9 +448,9 @@ public class KafkaBackendTest {
 
             // assert
             var records = producer.history();
-            assertEquals(2, records.size());
+            assertEquals(3, records.size());
 
-            var actual = records.get(1);
+            var actual = records.get(0);
 
             assertThat(actual.value(), Matchers.instanceOf(Migration.class));
 
@@ -461,6 +500,9 @@ public class KafkaBackendTest {
             when(backendConfig.topicsHistoryTopicName(any()))
                 .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
 
+            when(backendConfig.originalsTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_ORIGINALS);
+
             setupConsumer(ResourceType.TOPIC, topic);
 
             // act
@@ -468,9 +510,9 @@ public class KafkaBackendTest {
 
             // assert
             var records = producer.history();
-            assertEquals(2, records.size());
+            assertEquals(3, records.size());
 
-            var record = records.get(1);
+            var record = records.get(0);
             var actual = (Migration)record.value();
 
             assertEquals("topic-name-1", actual.getResourceName());
@@ -545,6 +587,9 @@ public class KafkaBackendTest {
             // act & assert
             assertThrows(BackendException.class, () ->
                 backend.commit(applied));
+
+            // the interrupt is kept, and cleared for the next tests
+            assertTrue(Thread.interrupted());
         }
     }
 
@@ -588,6 +633,9 @@ public class KafkaBackendTest {
             when(backendConfig.topicsHistoryTopicName(any()))
                 .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
 
+            when(backendConfig.originalsTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_ORIGINALS);
+
             setupConsumer(ResourceType.TOPIC, topic);
 
             // act
@@ -728,6 +776,9 @@ public class KafkaBackendTest {
         when(backendConfig.topicsHistoryTopicName(any()))
             .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
 
+        when(backendConfig.originalsTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_ORIGINALS);
+
         setupConsumer(v0001Record);
 
         var original = new Original();
@@ -827,14 +878,19 @@ public class KafkaBackendTest {
                 partitioner.partition(applied.getResourceType(), applied.getResourceName()),
                 0, applied.key(), applied);
 
+        when(backendConfig.topicsStateTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
         when(backendConfig.topicsHistoryTopicName(any()))
             .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
 
+        // without state, there is no index to seek
+        setupConsumer(ResourceType.TOPIC, topic);
         setupConsumer(record, KafkaBackendConfig.TOPIC_T_HISTORY);
 
         try(var mocked = mockStatic(KafkaBackend.class)){
             mocked.when(() -> KafkaBackend.consumer(any(), any()))
-                .thenReturn(migrationConsumer);
+                .thenReturn(consumer, migrationConsumer);
 
             // act
             var actualStream = backend.history(ResourceType.TOPIC, topic);
@@ -855,7 +911,10 @@ public class KafkaBackendTest {
 
         try(var mocked = mockStatic(KafkaBackend.class)){
             mocked.when(() -> KafkaBackend.consumer(any(), any()))
-                .thenReturn(migrationConsumer);
+                .thenReturn(consumer, migrationConsumer);
+
+            when(backendConfig.topicsStateTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
 
             when(backendConfig.topicsHistoryTopicName(any()))
                 .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
@@ -871,4 +930,840 @@ public class KafkaBackendTest {
 
         }
     }
+
+    @Test
+    public void should_stop_reading_the_state_when_the_end_offset_is_reached() {
+
+        // setup
+        var topic = "topic-name-1";
+
+        var applied = new Migration();
+        applied.setAttributes(Map.of("partitions", "2"));
+        applied.setOperation(OperationType.CREATE);
+        applied.setResourceName(topic);
+        applied.setResourceType(ResourceType.TOPIC);
+        applied.setTimestamp(LocalDateTime.now());
+        applied.setVersion("v0001");
+
+        var commit = ResourceCommit.from(applied);
+        commit.setAttributes(Map.copyOf(applied.getAttributes()));
+
+        var record =
+            new ConsumerRecord<>(KafkaBackendConfig.TOPIC_T_STATE,
+                partitioner.partition(applied.getResourceType(), applied.getResourceName()),
+                0, applied.key(), commit);
+
+        when(backendConfig.topicsStateTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+        setupConsumer(record);
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumer);
+
+            // act
+            var actual = backend.current(ResourceType.TOPIC, topic);
+
+            // assert
+            assertTrue(actual.isPresent());
+            verify(consumer, times(1)).poll(any(Duration.class));
+        }
+    }
+
+    @Test
+    public void should_not_poll_when_the_state_partition_is_empty() {
+
+        var topic = "not-found";
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumer);
+
+            when(backendConfig.topicsStateTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+            setupConsumer(ResourceType.TOPIC, topic);
+
+            // act
+            var actual = backend.current(ResourceType.TOPIC, topic);
+
+            // assert
+            assertTrue(actual.isEmpty());
+            verify(consumer, never()).poll(any(Duration.class));
+        }
+    }
+
+    @Test
+    public void should_return_the_current_state_of_many_topics() {
+
+        // setup
+        var topics = List.of("topic-name-1", "topic-name-2", "topic-name-3");
+
+        when(backendConfig.topicsStateTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+        var records = new ArrayList<ConsumerRecord<String, ResourceCommit>>();
+        var endOffsets = new HashMap<TopicPartition, Long>();
+        for(var topic : topics){
+            var applied = new Migration();
+            applied.setAttributes(Map.of("partitions", "1"));
+            applied.setOperation(OperationType.CREATE);
+            applied.setResourceName(topic);
+            applied.setResourceType(ResourceType.TOPIC);
+            applied.setTimestamp(LocalDateTime.now());
+            applied.setVersion("v0001");
+
+            var commit = ResourceCommit.from(applied);
+            commit.setAttributes(Map.copyOf(applied.getAttributes()));
+
+            var tp = new TopicPartition(KafkaBackendConfig.TOPIC_T_STATE,
+                partitioner.partition(ResourceType.TOPIC, topic));
+
+            var offset = endOffsets.getOrDefault(tp, 0L);
+            records.add(new ConsumerRecord<>(tp.topic(), tp.partition(),
+                offset, applied.key(), commit));
+
+            endOffsets.put(tp, offset + 1);
+        }
+
+        var beginningOffsets = new HashMap<TopicPartition, Long>();
+        for(int p = 0; p < partitioner.partitions(); p++){
+            var tp = new TopicPartition(KafkaBackendConfig.TOPIC_T_STATE, p);
+            beginningOffsets.put(tp, 0L);
+            endOffsets.putIfAbsent(tp, 0L);
+        }
+
+        consumer.updateBeginningOffsets(beginningOffsets);
+        consumer.updateEndOffsets(endOffsets);
+        consumer.schedulePollTask(() ->
+            records.stream()
+                .filter(r -> consumer.assignment().contains(
+                    new TopicPartition(r.topic(), r.partition())))
+                .map(this::raw)
+                .forEach(consumer::addRecord));
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumer);
+
+            // act
+            var actual = backend.current(ResourceType.TOPIC,
+                List.of("topic-name-1", "topic-name-3", "not-found"));
+
+            // assert
+            assertEquals(2, actual.size());
+            assertEquals("v0001", actual.get("topic-name-1").getVersion());
+            assertEquals("v0001", actual.get("topic-name-3").getVersion());
+            verify(consumer, times(1)).poll(any(Duration.class));
+        }
+    }
+
+    private Migration migrationOf(String topic, String version,
+            OperationType operation, Map<String, Object> attributes) {
+
+        var applied = new Migration();
+        applied.setAttributes(attributes);
+        applied.setNotes("some notes");
+        applied.setOperation(operation);
+        applied.setResourceName(topic);
+        applied.setResourceType(ResourceType.TOPIC);
+        applied.setTimestamp(LocalDateTime.now());
+        applied.setVersion(version);
+        applied.setKattlo(VersionUtil.appVersion());
+
+        return applied;
+    }
+
+    @Test
+    public void should_reuse_the_producer_for_many_commits() {
+
+        // setup
+        var topic = "topic-name-1";
+        var v0001 = migrationOf(topic, "v0001", OperationType.CREATE,
+            Map.of("partitions", "2", "replicationFactor", "1",
+                "config", Map.of("compression.type", "snappy")));
+
+        var v0002 = migrationOf(topic, "v0002", OperationType.PATCH,
+            Map.of("config", Map.of("retention.ms", "-1")));
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.producer(any(), any()))
+                .thenReturn(producer);
+
+            // each read closes its consumer
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenAnswer(invocation -> {
+                    var stateConsumer = new MockConsumer<String, byte[]>(
+                        OffsetResetStrategy.EARLIEST);
+                    var tp = new TopicPartition(KafkaBackendConfig.TOPIC_T_STATE,
+                        partitioner.partition(ResourceType.TOPIC, topic));
+
+                    stateConsumer.updateBeginningOffsets(Map.of(tp, 0L));
+                    stateConsumer.updateEndOffsets(Map.of(tp, 0L));
+
+                    return stateConsumer;
+                });
+
+            when(backendConfig.topicsStateTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+            when(backendConfig.topicsHistoryTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
+
+            // act
+            backend.commit(v0001);
+            backend.commit(v0002);
+
+            // assert
+            assertEquals(4, producer.history().size());
+            mocked.verify(() -> KafkaBackend.producer(any(), any()), times(1));
+        }
+    }
+
+    @Test
+    public void should_commit_many_migrations_at_once() {
+
+        // setup
+        var topic = "topic-name-1";
+        var v0001 = migrationOf(topic, "v0001", OperationType.CREATE,
+            Map.of("partitions", "2", "replicationFactor", "1",
+                "config", Map.of("compression.type", "snappy")));
+
+        var v0002 = migrationOf(topic, "v0002", OperationType.PATCH,
+            Map.of("config", Map.of("retention.ms", "-1")));
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.producer(any(), any()))
+                .thenReturn(producer);
+
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumer);
+
+            when(backendConfig.topicsStateTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+            when(backendConfig.topicsHistoryTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
+
+            setupConsumer(ResourceType.TOPIC, topic);
+
+            // act
+            var actual = backend.commitAll(List.of(v0001, v0002));
+
+            // assert
+            assertEquals(4, producer.history().size());
+            assertEquals(2, actual.size());
+
+            var newest = actual.get(1);
+            assertEquals("v0002", newest.getVersion());
+            assertEquals("2", newest.getAttributes().get("partitions"));
+            assertEquals(Map.of("compression.type", "snappy", "retention.ms", "-1"),
+                newest.getAttributes().get("config"));
+
+            // the state of the partition was read just once
+            verify(consumer, times(1)).assign(any());
+        }
+    }
+
+    @Test
+    public void should_close_the_producer() {
+
+        // setup
+        var topic = "topic-name-1";
+        var applied = migrationOf(topic, "v0001", OperationType.CREATE,
+            Map.of("partitions", "2", "replicationFactor", "1",
+                "config", Map.of("compression.type", "snappy")));
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.producer(any(), any()))
+                .thenReturn(producer);
+
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumer);
+
+            when(backendConfig.topicsStateTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+            when(backendConfig.topicsHistoryTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
+
+            setupConsumer(ResourceType.TOPIC, topic);
+            backend.commit(applied);
+
+            // act
+            backend.close();
+
+            // assert
+            assertTrue(producer.closed());
+        }
+    }
+
+    @Test
+    public void should_commit_state_and_history_within_a_transaction() {
+
+        // setup
+        var topic = "topic-name-1";
+        var applied = migrationOf(topic, "v0001", OperationType.CREATE,
+            Map.of("partitions", "2", "replicationFactor", "1",
+                "config", Map.of("compression.type", "snappy")));
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.producer(any(), any()))
+                .thenReturn(producer);
+
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumer);
+
+            when(backendConfig.topicsStateTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+            when(backendConfig.topicsHistoryTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
+
+            setupConsumer(ResourceType.TOPIC, topic);
+
+            // act
+            backend.commit(applied);
+
+            // assert
+            assertTrue(producer.transactionInitialized());
+            assertTrue(producer.transactionCommitted());
+            assertEquals(1L, producer.commitCount());
+        }
+    }
+
+    @Test
+    public void should_abort_the_transaction_when_the_commit_fails() throws Exception {
+
+        // setup
+        var topic = "topic-name-1";
+        var applied = migrationOf(topic, "v0001", OperationType.CREATE,
+            Map.of("partitions", "2", "replicationFactor", "1",
+                "config", Map.of("compression.type", "snappy")));
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.producer(any(), any()))
+                .thenReturn(producer);
+
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumer);
+
+            when(backendConfig.topicsStateTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+            when(backendConfig.topicsHistoryTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
+
+            setupConsumer(ResourceType.TOPIC, topic);
+
+            doReturn(future)
+                .when(producer).send(any());
+
+            when(future.get())
+                .thenThrow(new InterruptedException("failure"));
+
+            // act
+            assertThrows(BackendException.class, () ->
+                backend.commit(applied));
+
+            // assert
+            assertTrue(producer.transactionAborted());
+            assertTrue(producer.history().isEmpty());
+        }
+    }
+
+    @Test
+    public void should_deserialize_only_the_latest_record_of_the_wanted_key() {
+
+        // setup
+        var topic = "topic-name-1";
+        var applied = migrationOf(topic, "v0002", OperationType.PATCH,
+            Map.of("partitions", "4"));
+
+        var commit = ResourceCommit.from(applied);
+        commit.setAttributes(Map.copyOf(applied.getAttributes()));
+
+        var tp = new TopicPartition(KafkaBackendConfig.TOPIC_T_STATE,
+            partitioner.partition(ResourceType.TOPIC, topic));
+
+        // values that can not be deserialized
+        var garbage = "not a json".getBytes();
+        var otherKey = new ConsumerRecord<>(tp.topic(), tp.partition(), 0,
+            "TOPIC::another-topic", garbage);
+        var older = new ConsumerRecord<>(tp.topic(), tp.partition(), 1,
+            applied.key(), garbage);
+        var latest = raw(new ConsumerRecord<>(tp.topic(), tp.partition(), 2,
+            applied.key(), commit));
+
+        consumer.updateBeginningOffsets(Map.of(tp, 0L));
+        consumer.updateEndOffsets(Map.of(tp, 3L));
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(otherKey);
+            consumer.addRecord(older);
+            consumer.addRecord(latest);
+        });
+
+        when(backendConfig.topicsStateTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumer);
+
+            // act
+            var actual = backend.current(ResourceType.TOPIC, topic);
+
+            // assert
+            assertTrue(actual.isPresent());
+            assertEquals("v0002", actual.get().getVersion());
+        }
+    }
+
+    @Test
+    public void should_index_the_history_offsets_within_the_state() {
+
+        // setup
+        var topic = "topic-name-1";
+        var v0001 = migrationOf(topic, "v0001", OperationType.CREATE,
+            Map.of("partitions", "2"));
+
+        var v0002 = migrationOf(topic, "v0002", OperationType.PATCH,
+            Map.of("partitions", "4"));
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.producer(any(), any()))
+                .thenReturn(producer);
+
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumer);
+
+            when(backendConfig.topicsStateTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+            when(backendConfig.topicsHistoryTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
+
+            setupConsumer(ResourceType.TOPIC, topic);
+
+            // act
+            backend.commitAll(List.of(v0001, v0002));
+
+            // assert
+            var states = producer.history().stream()
+                .filter(r -> KafkaBackendConfig.TOPIC_T_STATE.equals(r.topic()))
+                .map(r -> (ResourceCommit)r.value())
+                .collect(Collectors.toList());
+
+            assertEquals(List.of(0L), states.get(0).getHistory());
+            assertEquals(List.of(0L, 1L), states.get(1).getHistory());
+        }
+    }
+
+    @Test
+    public void should_seek_to_the_indexed_history_offsets() {
+
+        // setup
+        var topic = "topic-name-1";
+        var v0001 = migrationOf(topic, "v0001", OperationType.CREATE,
+            Map.of("partitions", "2"));
+
+        var v0002 = migrationOf(topic, "v0002", OperationType.PATCH,
+            Map.of("partitions", "4"));
+
+        var commit = ResourceCommit.from(v0002);
+        commit.setAttributes(Map.copyOf(v0002.getAttributes()));
+        commit.setHistory(List.of(3L, 7L));
+
+        var partition = partitioner.partition(ResourceType.TOPIC, topic);
+        setupConsumer(new ConsumerRecord<>(KafkaBackendConfig.TOPIC_T_STATE,
+            partition, 0, v0002.key(), commit));
+
+        var tp = new TopicPartition(KafkaBackendConfig.TOPIC_T_HISTORY, partition);
+        migrationConsumer.updateBeginningOffsets(Map.of(tp, 0L));
+        migrationConsumer.updateEndOffsets(Map.of(tp, 8L));
+        migrationConsumer.schedulePollTask(() ->
+            migrationConsumer.addRecord(raw(new ConsumerRecord<>(tp.topic(),
+                tp.partition(), 3, v0001.key(), v0001))));
+        migrationConsumer.schedulePollTask(() ->
+            migrationConsumer.addRecord(raw(new ConsumerRecord<>(tp.topic(),
+                tp.partition(), 7, v0002.key(), v0002))));
+
+        when(backendConfig.topicsStateTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+        when(backendConfig.topicsHistoryTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumer, migrationConsumer);
+
+            // act
+            var actual = backend.history(ResourceType.TOPIC, topic)
+                .map(Migration::getVersion)
+                .collect(Collectors.toList());
+
+            // assert
+            assertEquals(List.of("v0001", "v0002"), actual);
+            verify(migrationConsumer).seek(tp, 3L);
+            verify(migrationConsumer).seek(tp, 7L);
+            verify(migrationConsumer, never()).seekToBeginning(any());
+        }
+    }
+
+    @Test
+    public void should_store_the_original_content_once() {
+
+        // setup
+        var topic = "topic-name-1";
+        var content = "dG9waWM6IHRvcGljLW5hbWUtMQ==";
+
+        var v0001 = migrationOf(topic, "v0001", OperationType.CREATE,
+            Map.of("partitions", "2"));
+        v0001.setOriginal(new Original("/path/to/v0001.yaml", "text/yaml",
+            content, null));
+
+        var v0002 = migrationOf(topic, "v0002", OperationType.PATCH,
+            Map.of("partitions", "4"));
+        v0002.setOriginal(new Original("/path/to/v0002.yaml", "text/yaml",
+            content, null));
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.producer(any(), any()))
+                .thenReturn(producer);
+
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumer);
+
+            when(backendConfig.topicsStateTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+            when(backendConfig.topicsHistoryTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
+
+            when(backendConfig.originalsTopicName(any()))
+                .thenReturn(KafkaBackendConfig.TOPIC_T_ORIGINALS);
+
+            setupConsumer(ResourceType.TOPIC, topic);
+
+            // act
+            backend.commitAll(List.of(v0001, v0002));
+
+            // assert
+            var hash = Original.hashOf(Base64.getDecoder().decode(content));
+
+            var originals = producer.history().stream()
+                .filter(r -> KafkaBackendConfig.TOPIC_T_ORIGINALS.equals(r.topic()))
+                .collect(Collectors.toList());
+
+            assertEquals(1, originals.size());
+            assertEquals(hash, originals.get(0).key());
+            assertEquals(content, ((Original)originals.get(0).value()).getContent());
+
+            var history = producer.history().stream()
+                .filter(r -> KafkaBackendConfig.TOPIC_T_HISTORY.equals(r.topic()))
+                .map(r -> ((Migration)r.value()).getOriginal())
+                .collect(Collectors.toList());
+
+            assertEquals(2, history.size());
+            history.forEach(original -> {
+                assertEquals(hash, original.getHash());
+                assertNull(original.getContent());
+            });
+        }
+    }
+
+    private <T> MockConsumer<String, byte[]> consumerOf(String topic,
+            int partition, List<ConsumerRecord<String, T>> records) {
+
+        var tp = new TopicPartition(topic, partition);
+        var result = new MockConsumer<String, byte[]>(OffsetResetStrategy.EARLIEST);
+
+        result.updateBeginningOffsets(Map.of(tp, 0L));
+        result.updateEndOffsets(Map.of(tp, (long)records.size()));
+
+        result.schedulePollTask(() ->
+            records.forEach(record -> result.addRecord(raw(record))));
+
+        return result;
+    }
+
+    @Test
+    public void should_return_the_original_content_stored_apart_in_the_history() {
+
+        // setup
+        var topic = "topic-name-1";
+        var content = "dG9waWM6IHRvcGljLW5hbWUtMQ==";
+        var hash = Original.hashOf(Base64.getDecoder().decode(content));
+        var partition = partitioner.partition(ResourceType.TOPIC, topic);
+
+        var applied = migrationOf(topic, "v0001", OperationType.CREATE,
+            Map.of("partitions", "2"));
+        var original = new Original("/path/to/v0001.yaml", "text/yaml",
+            content, null);
+        applied.setOriginal(original);
+
+        when(backendConfig.topicsStateTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+
+        when(backendConfig.topicsHistoryTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_HISTORY);
+
+        when(backendConfig.originalsTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_ORIGINALS);
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.producer(any(), any()))
+                .thenReturn(producer);
+
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(consumerOf(KafkaBackendConfig.TOPIC_T_STATE,
+                    partition, List.of()));
+
+            backend.commitAll(List.of(applied));
+
+            // the caller's original is left as is
+            assertNull(original.getHash());
+            assertEquals(content, applied.getOriginal().getContent());
+
+            // what the commit produced, read back by the history
+            var history = producer.history().stream()
+                .filter(r -> KafkaBackendConfig.TOPIC_T_HISTORY.equals(r.topic()))
+                .map(r -> new ConsumerRecord<>(r.topic(), partition, 0, r.key(),
+                    (Migration)r.value()))
+                .collect(Collectors.toList());
+
+            var originals = producer.history().stream()
+                .filter(r -> KafkaBackendConfig.TOPIC_T_ORIGINALS.equals(r.topic()))
+                .map(r -> new ConsumerRecord<>(r.topic(),
+                    partitioner.partition(hash), 0, r.key(), (Original)r.value()))
+                .collect(Collectors.toList());
+
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(
+                    consumerOf(KafkaBackendConfig.TOPIC_T_STATE, partition, List.of()),
+                    consumerOf(KafkaBackendConfig.TOPIC_T_HISTORY, partition, history),
+                    consumerOf(KafkaBackendConfig.TOPIC_T_ORIGINALS,
+                        partitioner.partition(hash), originals));
+
+            // act
+            var actual = backend.history(ResourceType.TOPIC, topic)
+                .collect(Collectors.toList());
+
+            // assert
+            assertEquals(1, actual.size());
+            assertEquals("/path/to/v0001.yaml", actual.get(0).getOriginal().getPath());
+            assertEquals(hash, actual.get(0).getOriginal().getHash());
+            assertEquals(content, actual.get(0).getOriginal().getContent());
+        }
+    }
+
+    @Test
+    public void should_not_read_nor_create_the_state_when_read_only() {
+
+        // setup
+        var configs = new Properties();
+        configs.put(KafkaBackendConfig.READ_ONLY_CONFIG, "true");
+        backend.init(configs);
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+
+            when(backendConfig.exists(any(), any()))
+                .thenReturn(false);
+
+            // act
+            var actual = backend.current(ResourceType.TOPIC, List.of("topic-name"));
+
+            // assert
+            assertTrue(actual.isEmpty());
+            verify(backendConfig, never()).topicsStateTopicName(any());
+            mocked.verify(() -> KafkaBackend.consumer(any(), any()), never());
+        }
+    }
+
+    @Test
+    public void should_throw_when_commit_on_read_only() {
+
+        // setup
+        var configs = new Properties();
+        configs.put(KafkaBackendConfig.READ_ONLY_CONFIG, "true");
+        backend.init(configs);
+
+        // act
+        assertThrows(BackendException.class, () ->
+            backend.commitAll(List.of(migrationOf("topic-name", "v0001",
+                OperationType.CREATE, Map.of()))));
+    }
+
+    @Test
+    public void should_use_one_transactional_id_per_run() {
+
+        // act
+        var first = new KafkaBackend(new Properties()).transactionalId();
+        var second = new KafkaBackend(new Properties()).transactionalId();
+
+        // assert
+        assertTrue(first.startsWith("kattlo-cli-"));
+        assertTrue(second.startsWith("kattlo-cli-"));
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    public void should_use_the_configured_transactional_id() {
+
+        // setup
+        var configs = new Properties();
+        configs.put(KafkaBackendConfig.TRANSACTIONAL_ID_CONFIG, "my-transactional-id");
+
+        var actual = new KafkaBackend();
+
+        // act
+        actual.init(configs);
+
+        // assert
+        assertEquals("my-transactional-id", actual.transactionalId());
+    }
+
+    /**
+     * A consumer of the whole state topic, the last partition with the given
+     * end offset and record
+     */
+    private MockConsumer<String, byte[]> stateConsumer(TopicPartition tp,
+            long endOffset, ConsumerRecord<String, ResourceCommit> record) {
+
+        var stateConsumer = new MockConsumer<String, byte[]>(
+            OffsetResetStrategy.EARLIEST);
+
+        var beginning = new HashMap<TopicPartition, Long>();
+        var end = new HashMap<TopicPartition, Long>();
+        for(int partition = 0; partition < partitioner.partitions(); partition++){
+            var other = new TopicPartition(KafkaBackendConfig.TOPIC_T_STATE, partition);
+            beginning.put(other, 0L);
+            end.put(other, other.equals(tp) ? endOffset : 0L);
+        }
+
+        stateConsumer.updateBeginningOffsets(beginning);
+        stateConsumer.updateEndOffsets(end);
+        stateConsumer.schedulePollTask(() -> stateConsumer.addRecord(raw(record)));
+
+        return stateConsumer;
+    }
+
+    @Test
+    public void should_catch_up_the_snapshot_with_the_new_commits(@TempDir Path directory) {
+
+        // setup
+        var topic = "topic-name-1";
+        var tp = new TopicPartition(KafkaBackendConfig.TOPIC_T_STATE,
+            partitioner.partition(ResourceType.TOPIC, topic));
+
+        var first = ResourceCommit.from(migrationOf(topic, "v0001",
+            OperationType.CREATE, Map.of("partitions", "1")));
+        first.setAttributes(Map.of("partitions", "1"));
+
+        var second = ResourceCommit.from(migrationOf(topic, "v0002",
+            OperationType.PATCH, Map.of("partitions", "2")));
+        second.setAttributes(Map.of("partitions", "2"));
+
+        var key = Migration.keyFor(ResourceType.TOPIC, topic);
+        var beforeRefresh = stateConsumer(tp, 1, new ConsumerRecord<>(
+            KafkaBackendConfig.TOPIC_T_STATE, tp.partition(), 0, key, first));
+
+        // committed by another run, after the snapshot was loaded. The first
+        // poll reads the record before the offset, to check its fingerprint
+        var afterRefresh = stateConsumer(tp, 2, new ConsumerRecord<>(
+            KafkaBackendConfig.TOPIC_T_STATE, tp.partition(), 0, key, first));
+        afterRefresh.schedulePollTask(() -> afterRefresh.addRecord(raw(new ConsumerRecord<>(
+            KafkaBackendConfig.TOPIC_T_STATE, tp.partition(), 1, key, second))));
+
+        var configs = new Properties();
+        configs.put(KafkaBackendConfig.SNAPSHOT_DIRECTORY_CONFIG, directory.toString());
+        backend.init(configs);
+
+        when(backendConfig.topicsStateTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+        when(backendConfig.clusterId(any()))
+            .thenReturn("cluster-id");
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(beforeRefresh, afterRefresh);
+
+            // act
+            var loaded = backend.current(ResourceType.TOPIC, topic);
+            var refreshed = backend.current(ResourceType.TOPIC, topic);
+
+            // assert
+            assertEquals("v0001", loaded.orElseThrow().getVersion());
+            assertEquals("v0002", refreshed.orElseThrow().getVersion());
+
+            var saved = StateSnapshot.load(StateSnapshot.fileFor(directory, "cluster-id"));
+            assertEquals("v0002", saved.orElseThrow().getCommits().get(key).getVersion());
+        }
+    }
+
+    @Test
+    public void should_rebuild_the_snapshot_of_a_topic_recreated_and_grown_past(
+            @TempDir Path directory) {
+
+        // setup
+        var topic = "topic-name-1";
+        var other = "topic-name-2";
+        var tp = new TopicPartition(KafkaBackendConfig.TOPIC_T_STATE,
+            partitioner.partition(ResourceType.TOPIC, topic));
+
+        var commit = ResourceCommit.from(migrationOf(topic, "v0001",
+            OperationType.CREATE, Map.of("partitions", "1")));
+        commit.setAttributes(Map.of("partitions", "1"));
+
+        var key = Migration.keyFor(ResourceType.TOPIC, topic);
+        var beforeRecreation = stateConsumer(tp, 1, new ConsumerRecord<>(
+            KafkaBackendConfig.TOPIC_T_STATE, tp.partition(), 0, key, commit));
+
+        // recreated without the topic, with more records than before
+        var otherKey = Migration.keyFor(ResourceType.TOPIC, other);
+        var first = ResourceCommit.from(migrationOf(other, "v0001",
+            OperationType.CREATE, Map.of("partitions", "1")));
+        first.setAttributes(Map.of("partitions", "1"));
+        var second = ResourceCommit.from(migrationOf(other, "v0002",
+            OperationType.PATCH, Map.of("partitions", "2")));
+        second.setAttributes(Map.of("partitions", "2"));
+
+        // the first poll checks the fingerprint, the second rebuilds the snapshot
+        var afterRecreation = stateConsumer(tp, 2, new ConsumerRecord<>(
+            KafkaBackendConfig.TOPIC_T_STATE, tp.partition(), 0, otherKey, first));
+        afterRecreation.schedulePollTask(() -> {
+            afterRecreation.addRecord(raw(new ConsumerRecord<>(
+                KafkaBackendConfig.TOPIC_T_STATE, tp.partition(), 0, otherKey, first)));
+            afterRecreation.addRecord(raw(new ConsumerRecord<>(
+                KafkaBackendConfig.TOPIC_T_STATE, tp.partition(), 1, otherKey, second)));
+        });
+
+        var configs = new Properties();
+        configs.put(KafkaBackendConfig.SNAPSHOT_DIRECTORY_CONFIG, directory.toString());
+        backend.init(configs);
+
+        when(backendConfig.topicsStateTopicName(any()))
+            .thenReturn(KafkaBackendConfig.TOPIC_T_STATE);
+        when(backendConfig.clusterId(any()))
+            .thenReturn("cluster-id");
+
+        try(var mocked = mockStatic(KafkaBackend.class)){
+            mocked.when(() -> KafkaBackend.consumer(any(), any()))
+                .thenReturn(beforeRecreation, afterRecreation);
+
+            // act
+            var loaded = backend.current(ResourceType.TOPIC, topic);
+            var recreatedTopic = backend.current(ResourceType.TOPIC, topic);
+
+            // assert
+            assertEquals("v0001", loaded.orElseThrow().getVersion());
+            assertTrue(recreatedTopic.isEmpty());
+
+            var saved = StateSnapshot.load(StateSnapshot.fileFor(directory, "cluster-id"))
+                .orElseThrow();
+            assertEquals(Set.of(otherKey), saved.getCommits().keySet());
+            assertEquals("v0002", saved.getCommits().get(otherKey).getVersion());
+        }
+    }
 }
@@ -0,0 +1,136 @@
+package com.github.kattlo.core.backend.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import javax.json.bind.JsonbBuilder;
+
+import com.github.kattlo.core.backend.Migration;
+import com.github.kattlo.core.backend.OperationType;
+import com.github.kattlo.core.backend.Original;
+import com.github.kattlo.core.backend.ResourceType;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+public class RecordCodecTest {
+
+    private static final String TOPIC = "__kattlo-topics-history";
+
+    private Migration migration() {
+        var original = new Original();
+        original.setContentType("text/yaml");
+        original.setContent("tYmFzZTY0RmlsZUNvbnRlbnQ=");//base64FileContent
+        original.setPath("/path/to/original.yaml");
+
+        var migration = new Migration();
+        migration.setAttributes(Map.of(
+            "partitions", "2",
+            "replicationFactor", "1",
+            "config", Map.of(
+                "compression.type", "snappy",
+                "retention.ms", 604800000L,
+                "min.insync.replicas", 2)
+        ));
+        migration.setNotes("some notes");
+        migration.setOperation(OperationType.CREATE);
+        migration.setOriginal(original);
+        migration.setResourceName("topic-name-1");
+        migration.setResourceType(ResourceType.TOPIC);
+        migration.setTimestamp(LocalDateTime.now());
+        migration.setVersion("v0001");
+        migration.setKattlo("0.0.0");
+
+        return migration;
+    }
+
+    @Test
+    public void should_decode_the_encoded_migration() {
+
+        // setup
+        var expected = migration();
+
+        // act
+        var actual = new MigrationDeserializer()
+            .deserialize(TOPIC, new BackendRecordSerializer().serialize(TOPIC, expected));
+
+        // assert
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void should_decode_the_encoded_resource_commit() {
+
+        // setup
+        var migration = migration();
+        var expected = ResourceCommit.from(migration);
+        expected.setAttributes(migration.getAttributes());
+        expected.setHistory(List.of(0L, 42L));
+
+        // act
+        var actual = RecordCodec.decodeCommit(RecordCodec.encode(expected));
+
+        // assert
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getOperation(), actual.getOperation());
+        assertEquals(expected.getTimestamp(), actual.getTimestamp());
+        assertEquals(expected.getAttributes(), actual.getAttributes());
+        assertEquals(expected.getHistory(), actual.getHistory());
+        assertNull(actual.getKattlo());
+    }
+
+    @Test
+    public void should_read_the_json_records() throws Exception {
+
+        // setup
+        var expected = migration();
+        byte[] json;
+        try(var jsonb = JsonbBuilder.create()){
+            json = jsonb.toJson(expected).getBytes();
+        }
+
+        // act
+        var actual = new MigrationDeserializer().deserialize(TOPIC, json);
+
+        // assert
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getResourceName(), actual.getResourceName());
+        assertEquals(expected.getOriginal(), actual.getOriginal());
+    }
+
+    @Test
+    public void should_be_smaller_than_json() throws Exception {
+
+        // setup
+        var migration = migration();
+        byte[] json;
+        try(var jsonb = JsonbBuilder.create()){
+            json = jsonb.toJson(migration).getBytes();
+        }
+
+        // act
+        var actual = RecordCodec.encode(migration);
+
+        // assert
+        assertTrue(actual.length < json.length,
+            actual.length + " bytes against " + json.length + " of json");
+    }
+
+    @Test
+    public void should_throw_when_the_version_is_unknown() {
+
+        // setup
+        var encoded = RecordCodec.encode(migration());
+        encoded[1] = 99;
+
+        // act & assert
+        assertThrows(SerializationException.class, () ->
+            RecordCodec.decodeMigration(encoded));
+    }
+}
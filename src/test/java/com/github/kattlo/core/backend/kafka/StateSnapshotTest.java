@@ -0,0 +1,99 @@
+package com.github.kattlo.core.backend.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import com.github.kattlo.core.backend.ResourceType;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StateSnapshotTest {
+
+    private static final String TOPIC = "__kattlo-topics-state";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void should_load_the_saved_snapshot() {
+
+        // setup
+        var commit = new ResourceCommit();
+        commit.setVersion("v0001");
+        commit.setResourceType(ResourceType.TOPIC);
+        commit.setResourceName("topic-name");
+
+        var snapshot = new StateSnapshot("cluster-id", TOPIC);
+        snapshot.position(7, 42L);
+        snapshot.fingerprint(7, new StateSnapshot.Fingerprint(1000L, "TOPIC::topic-name"));
+        snapshot.apply("TOPIC::topic-name", commit);
+
+        var file = StateSnapshot.fileFor(directory, "cluster-id");
+
+        // act
+        snapshot.save(file);
+        var actual = StateSnapshot.load(file);
+
+        // assert
+        assertTrue(actual.isPresent());
+        assertEquals(TOPIC, actual.get().getTopic());
+        assertEquals(42L, actual.get().offsetOf(7).get());
+        assertEquals(new StateSnapshot.Fingerprint(1000L, "TOPIC::topic-name"),
+            actual.get().fingerprintOf(7).get());
+        assertEquals("v0001", actual.get().getCommits()
+            .get("TOPIC::topic-name").getVersion());
+    }
+
+    @Test
+    public void should_ignore_an_unreadable_snapshot() throws Exception {
+
+        // setup
+        var file = StateSnapshot.fileFor(directory, "cluster-id");
+        Files.writeString(file, "not json");
+
+        // act
+        var actual = StateSnapshot.load(file);
+
+        // assert
+        assertFalse(actual.isPresent());
+    }
+
+    @Test
+    public void should_be_invalid_when_the_topic_was_recreated() {
+
+        // setup
+        var snapshot = new StateSnapshot("cluster-id", TOPIC);
+        snapshot.position(0, 10L);
+
+        var tp = new TopicPartition(TOPIC, 0);
+
+        // act
+        var actual = snapshot.validFor(Map.of(tp, 0L), Map.of(tp, 3L));
+
+        // assert
+        assertFalse(actual);
+    }
+
+    @Test
+    public void should_be_valid_when_the_offsets_are_within_the_partition() {
+
+        // setup
+        var snapshot = new StateSnapshot("cluster-id", TOPIC);
+        snapshot.position(0, 10L);
+
+        var tp = new TopicPartition(TOPIC, 0);
+
+        // act
+        var actual = snapshot.validFor(Map.of(tp, 0L), Map.of(tp, 15L));
+
+        // assert
+        assertTrue(actual);
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.kattlo.core.kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.common.errors.NotControllerException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author fabiojose
+ */
+public class RetryTest {
+
+    private final List<Duration> slept = new ArrayList<>();
+
+    private Retry retryOf(int retries) {
+        return new Retry(retries, Duration.ofMillis(100), Duration.ofMillis(300),
+                new Random(7)){
+
+            @Override
+            void sleep(Duration backoff) {
+                slept.add(backoff);
+            }
+        };
+    }
+
+    private static RuntimeException wrapped(Throwable cause) {
+        return new RuntimeException("failing", new ExecutionException(cause));
+    }
+
+    @Test
+    public void should_find_the_retriable_cause() {
+
+        assertTrue(Retry.retriable(wrapped(new TimeoutException("timed out"))));
+        assertTrue(Retry.retriable(wrapped(new NotControllerException("moved"))));
+        assertFalse(Retry.retriable(wrapped(new TopicExistsException("exists"))));
+        assertFalse(Retry.retriable(null));
+    }
+
+    @Test
+    public void should_retry_with_exponential_backoff_and_jitter() {
+
+        // setup
+        var calls = new AtomicInteger();
+        var retry = retryOf(3);
+
+        // act
+        var actual = retry.call("test", () -> {
+            if(calls.incrementAndGet() < 4){
+                throw wrapped(new TimeoutException("timed out"));
+            }
+            return "done";
+        });
+
+        // assert
+        assertEquals("done", actual);
+        assertEquals(4, calls.get());
+        assertEquals(3, slept.size());
+
+        // half fixed, half random, up to the maximum
+        assertTrue(slept.get(0).toMillis() >= 50 && slept.get(0).toMillis() <= 100);
+        assertTrue(slept.get(1).toMillis() >= 100 && slept.get(1).toMillis() <= 200);
+        assertTrue(slept.get(2).toMillis() >= 150 && slept.get(2).toMillis() <= 300);
+    }
+
+    @Test
+    public void should_throw_the_last_failure_when_out_of_retries() {
+
+        // setup
+        var calls = new AtomicInteger();
+        var retry = retryOf(2);
+
+        // act
+        assertThrows(RuntimeException.class, () ->
+            retry.run("test", () -> {
+                calls.incrementAndGet();
+                throw wrapped(new NotControllerException("moved"));
+            }));
+
+        // assert
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    public void should_not_retry_what_is_not_retriable() {
+
+        // setup
+        var calls = new AtomicInteger();
+        var retry = retryOf(3);
+
+        // act
+        assertThrows(RuntimeException.class, () ->
+            retry.run("test", () -> {
+                calls.incrementAndGet();
+                throw wrapped(new TopicExistsException("exists"));
+            }));
+
+        // assert
+        assertEquals(1, calls.get());
+        assertTrue(slept.isEmpty());
+    }
+
+    @Test
+    public void should_not_run_again_what_was_found_applied() {
+
+        // setup
+        var calls = new AtomicInteger();
+        var retry = retryOf(3);
+
+        // act
+        retry.run("test", () -> {
+                calls.incrementAndGet();
+                throw wrapped(new TimeoutException("timed out"));
+            }, () -> true);
+
+        // assert
+        assertEquals(1, calls.get());
+        assertEquals(1, slept.size());
+    }
+}
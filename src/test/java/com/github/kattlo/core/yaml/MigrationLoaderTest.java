@@ -5,9 +5,13 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class MigrationLoaderTest {
 
@@ -76,4 +80,64 @@ public class MigrationLoaderTest {
         assertEquals(5, actual);
 
     }
+
+    private List<String> walk(Path directory, int depth, List<String> includes,
+            List<String> excludes) throws Exception {
+
+        try(var walked = MigrationLoader.walk(directory, depth, includes, excludes)){
+            return walked
+                .map(directory::relativize)
+                .map(Path::toString)
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private void tree(Path directory) throws Exception {
+        for(var team : List.of("payments", "orders", "orders/legacy", ".kattlo")){
+            var dir = Files.createDirectories(directory.resolve(team));
+            Files.writeString(dir.resolve("v0001_create.yaml"), "operation: create");
+            Files.writeString(dir.resolve("README.md"), "not a migration");
+        }
+        Files.writeString(directory.resolve("v0001_root.yml"), "operation: create");
+    }
+
+    @Test
+    public void should_walk_the_whole_tree_but_hidden_directories(@TempDir Path directory)
+            throws Exception {
+
+        tree(directory);
+
+        var actual = walk(directory, Integer.MAX_VALUE, List.of(), List.of());
+
+        assertEquals(List.of(
+            Path.of("orders", "legacy", "v0001_create.yaml").toString(),
+            Path.of("orders", "v0001_create.yaml").toString(),
+            Path.of("payments", "v0001_create.yaml").toString(),
+            "v0001_root.yml"), actual);
+    }
+
+    @Test
+    public void should_walk_just_the_directory_with_depth_one(@TempDir Path directory)
+            throws Exception {
+
+        tree(directory);
+
+        var actual = walk(directory, 1, List.of(), List.of());
+
+        assertEquals(List.of("v0001_root.yml"), actual);
+    }
+
+    @Test
+    public void should_walk_with_include_and_exclude_globs(@TempDir Path directory)
+            throws Exception {
+
+        tree(directory);
+
+        var actual = walk(directory, Integer.MAX_VALUE,
+            List.of("orders/**"), List.of("**/legacy/**"));
+
+        assertEquals(List.of(Path.of("orders", "v0001_create.yaml").toString()),
+            actual);
+    }
 }
@@ -1,13 +1,21 @@
 package com.github.kattlo.topic;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -15,14 +23,26 @@ import static org.mockito.Mockito.when;
 import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.github.kattlo.EntryCommand;
 import com.github.kattlo.core.backend.Backend;
+import com.github.kattlo.core.backend.BackendException;
+import com.github.kattlo.core.backend.Migration;
 import com.github.kattlo.core.backend.Resource;
 import com.github.kattlo.core.kafka.Kafka;
+import com.github.kattlo.topic.migration.BatchExecutor;
+import com.github.kattlo.topic.migration.ReplicationThrottle;
 import com.github.kattlo.topic.migration.Strategy;
+import com.github.kattlo.topic.migration.TopicRemoveException;
+import com.github.kattlo.topic.yaml.MigrationJournal;
 import com.github.kattlo.topic.yaml.TopicOperation;
 import com.github.kattlo.topic.yaml.TopicOperationMapper;
 
@@ -30,6 +50,7 @@ import org.apache.kafka.clients.admin.AdminClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mapstruct.factory.Mappers;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -90,8 +111,8 @@ public class TopicCommandTest {
 
     private void mockitoWhen() throws Exception {
 
-        when(backend.current(any(), anyString()))
-            .thenReturn(Optional.empty());
+        when(backend.current(any(), anyCollection()))
+            .thenReturn(Map.of());
 
         when(kafka.adminFor(any()))
             .thenReturn(admin);
@@ -139,7 +160,7 @@ public class TopicCommandTest {
         command.setDirectory(directory);
 
         try(var mocked = mockStatic(Strategy.class)){
-            mocked.when(() -> Strategy.of(any()))
+            mocked.when(() -> Strategy.of(any(), any(), any(), any(), any()))
                 .thenReturn(strategy);
 
             // act
@@ -167,7 +188,7 @@ public class TopicCommandTest {
         command.setDirectory(directory);
 
         try(var mocked = mockStatic(Strategy.class)){
-            mocked.when(() -> Strategy.of(any()))
+            mocked.when(() -> Strategy.of(any(), any(), any(), any(), any()))
                 .thenReturn(strategy);
 
             // act
@@ -203,7 +224,7 @@ public class TopicCommandTest {
         command.setDirectory(directory);
 
         try(var mocked = mockStatic(Strategy.class)){
-            mocked.when(() -> Strategy.of(any()))
+            mocked.when(() -> Strategy.of(any(), any(), any(), any(), any()))
                 .thenReturn(strategy);
 
             // act
@@ -240,7 +261,7 @@ public class TopicCommandTest {
         command.setDirectory(directory);
 
         try(var mocked = mockStatic(Strategy.class)){
-            mocked.when(() -> Strategy.of(any()))
+            mocked.when(() -> Strategy.of(any(), any(), any(), any(), any()))
                 .thenReturn(strategy);
 
             // act
@@ -282,8 +303,8 @@ public class TopicCommandTest {
         final var applied = new Resource();
         applied.setVersion("v0002");
 
-        when(backend.current(any(), anyString()))
-            .thenReturn(Optional.of(applied));
+        when(backend.current(any(), anyCollection()))
+            .thenReturn(Map.of(topic, applied));
 
         when(kafka.adminFor(any()))
             .thenReturn(admin);
@@ -294,7 +315,7 @@ public class TopicCommandTest {
         command.setDirectory(directory);
 
         try(var mocked = mockStatic(Strategy.class)){
-            mocked.when(() -> Strategy.of(any()))
+            mocked.when(() -> Strategy.of(any(), any(), any(), any(), any()))
                 .thenReturn(strategy);
 
             // act
@@ -319,8 +340,8 @@ public class TopicCommandTest {
         // setup
         final File directory = new File("./src/test/resources/topics/09_fail_topic_name");
 
-        when(backend.current(any(), anyString()))
-            .thenReturn(Optional.empty());
+        when(backend.current(any(), anyCollection()))
+            .thenReturn(Map.of());
 
         when(kafka.adminFor(any()))
             .thenReturn(admin);
@@ -334,7 +355,7 @@ public class TopicCommandTest {
         command.setDirectory(directory);
 
         try(var mocked = mockStatic(Strategy.class)){
-            mocked.when(() -> Strategy.of(any()))
+            mocked.when(() -> Strategy.of(any(), any(), any(), any(), any()))
                 .thenReturn(strategy);
 
             // act
@@ -343,4 +364,323 @@ public class TopicCommandTest {
 
         }
     }
+
+    @Test
+    public void should_resolve_the_current_versions_in_one_backend_call() throws Exception {
+
+        // setup
+        final File directory = new File("./src/test/resources/topics/08_try_to_create_patch_remove/");
+
+        mockitoWhen();
+
+        command.setDirectory(directory);
+
+        try(var mocked = mockStatic(Strategy.class)){
+            mocked.when(() -> Strategy.of(any(), any(), any(), any(), any()))
+                .thenReturn(strategy);
+
+            // act
+            command.run();
+
+            // assert
+            verify(backend, times(1)).current(any(), anyCollection());
+            verify(backend, never()).current(any(), anyString());
+        }
+    }
+
+    @Test
+    public void should_apply_many_topics_in_parallel(@TempDir Path directory)
+            throws Exception {
+
+        // setup
+        for(int i = 0; i < 6; i++){
+            Files.writeString(directory.resolve("v0001_create-topic-" + i + ".yaml"),
+                "operation: create\ntopic: topic-" + i + "\npartitions: 1\n");
+            Files.writeString(directory.resolve("v0002_remove-topic-" + i + ".yaml"),
+                "operation: remove\ntopic: topic-" + i + "\n");
+        }
+
+        mockitoWhen();
+
+        command.setDirectory(directory.toFile());
+        command.setParallelism(4);
+
+        // static mocks do not reach the worker threads
+        doReturn(strategy).when(command).strategyOf(any());
+
+        ArgumentCaptor<List<Migration>> committed = ArgumentCaptor.forClass(List.class);
+
+        // act
+        command.run();
+
+        // assert
+        verify(command, times(12)).strategyOf(any());
+        verify(strategy, times(12)).execute(admin);
+
+        // committed topic by topic, as each one is done
+        verify(backend, times(6)).commitAll(committed.capture());
+
+        var actual = committed.getAllValues().stream()
+            .map(chain -> chain.stream()
+                .map(m -> m.getResourceName() + "@" + m.getVersion())
+                .collect(Collectors.toList()))
+            .collect(Collectors.toMap(chain -> chain.get(0).split("@")[0],
+                chain -> chain));
+
+        // each chain in version order
+        assertEquals(6, actual.size());
+        for(int i = 0; i < 6; i++){
+            assertEquals(List.of("topic-" + i + "@v0001", "topic-" + i + "@v0002"),
+                actual.get("topic-" + i));
+        }
+    }
+
+    @Test
+    public void should_skip_the_chain_of_a_topic_after_its_failure(@TempDir Path directory)
+            throws Exception {
+
+        // setup
+        Files.writeString(directory.resolve("v0001_create-a.yaml"),
+            "operation: create\ntopic: topic-a\n");
+        Files.writeString(directory.resolve("v0002_remove-a.yaml"),
+            "operation: remove\ntopic: topic-a\n");
+        Files.writeString(directory.resolve("v0001_create-b.yaml"),
+            "operation: create\ntopic: topic-b\n");
+
+        mockitoWhen();
+
+        command.setDirectory(directory.toFile());
+        command.setParallelism(2);
+
+        var failing = mock(Strategy.class);
+        doThrow(new TopicRemoveException("failure"))
+            .when(failing).execute(any());
+
+        doReturn(strategy).when(command).strategyOf(any());
+        doReturn(failing).when(command).strategyOf(argThat(o ->
+            "topic-a".equals(o.getTopic()) && "v0002".equals(o.getVersion())));
+
+        ArgumentCaptor<List<Migration>> committed = ArgumentCaptor.forClass(List.class);
+
+        // act
+        assertThrows(TopicRemoveException.class, () -> command.run());
+
+        // assert
+        verify(backend, atLeastOnce()).commitAll(committed.capture());
+
+        var actual = committed.getAllValues().stream()
+            .flatMap(List::stream)
+            .map(m -> m.getResourceName() + "@" + m.getVersion())
+            .collect(Collectors.toList());
+
+        assertTrue(actual.contains("topic-a@v0001"));
+        assertFalse(actual.contains("topic-a@v0002"));
+    }
+
+    @Test
+    public void should_keep_the_migration_failure_when_the_commit_fails(@TempDir Path directory)
+            throws Exception {
+
+        // setup
+        Files.writeString(directory.resolve("v0001_create-a.yaml"),
+            "operation: create\ntopic: topic-a\n");
+        Files.writeString(directory.resolve("v0002_remove-a.yaml"),
+            "operation: remove\ntopic: topic-a\n");
+
+        mockitoWhen();
+
+        command.setDirectory(directory.toFile());
+
+        var failing = mock(Strategy.class);
+        doThrow(new TopicRemoveException("failure"))
+            .when(failing).execute(any());
+
+        doReturn(strategy).when(command).strategyOf(any());
+        doReturn(failing).when(command).strategyOf(argThat(o ->
+            "v0002".equals(o.getVersion())));
+
+        when(backend.commitAll(any()))
+            .thenThrow(new BackendException("unavailable"));
+
+        // act
+        var actual = assertThrows(TopicRemoveException.class, () -> command.run());
+
+        // assert
+        assertEquals(1, actual.getSuppressed().length);
+        assertTrue(actual.getSuppressed()[0] instanceof BackendException);
+    }
+
+    @Test
+    public void should_keep_the_committed_topics_in_the_journal(@TempDir Path directory)
+            throws Exception {
+
+        // setup
+        Files.writeString(directory.resolve("v0001_create-a.yaml"),
+            "operation: create\ntopic: topic-a\n");
+        Files.writeString(directory.resolve("v0002_remove-a.yaml"),
+            "operation: remove\ntopic: topic-a\n");
+
+        mockitoWhen();
+
+        command.setDirectory(directory.toFile());
+        command.setResume(true);
+
+        var failing = mock(Strategy.class);
+        doThrow(new TopicRemoveException("failure"))
+            .when(failing).execute(any());
+
+        doReturn(strategy).when(command).strategyOf(any());
+        doReturn(failing).when(command).strategyOf(argThat(o ->
+            "v0002".equals(o.getVersion())));
+
+        when(backend.commitAll(any()))
+            .thenAnswer(invocation -> {
+                List<Migration> applied = invocation.getArgument(0);
+                return applied.stream()
+                    .map(migration -> {
+                        var current = new Resource();
+                        current.setResourceName(migration.getResourceName());
+                        current.setVersion(migration.getVersion());
+                        return current;
+                    })
+                    .collect(Collectors.toList());
+            });
+
+        // act
+        assertThrows(TopicRemoveException.class, () -> command.run());
+
+        // assert
+        var journal = MigrationJournal.load(MigrationJournal.fileFor(directory));
+        assertEquals(Map.of("topic-a", "v0001"), journal.getTopics());
+    }
+
+    @Test
+    public void should_keep_the_throttles_in_the_journal_without_resume(
+            @TempDir Path directory) throws Exception {
+
+        // setup
+        Files.writeString(directory.resolve("v0001_create-a.yaml"),
+            "operation: create\ntopic: topic-a\n");
+
+        mockitoWhen();
+
+        command.setDirectory(directory.toFile());
+
+        var kept = new MigrationJournal.KeptThrottle("0:1", "0:3", Set.of(1, 3), 1024);
+        var throttle = ReplicationThrottle.none();
+        throttle.restore(Map.of("topic-b", kept));
+
+        doReturn(throttle).when(command).throttleOf();
+        doReturn(strategy).when(command).strategyOf(any());
+
+        when(backend.commitAll(any()))
+            .thenReturn(List.of());
+
+        // act
+        command.run();
+
+        // assert
+        var journal = MigrationJournal.load(MigrationJournal.fileFor(directory));
+        assertEquals(Map.of("topic-b", kept), journal.getThrottles());
+    }
+
+    @Test
+    public void should_apply_the_migrations_in_waves_with_batch(@TempDir Path directory)
+            throws Exception {
+
+        // setup
+        for(int i = 0; i < 3; i++){
+            Files.writeString(directory.resolve("v0001_create-topic-" + i + ".yaml"),
+                "operation: create\ntopic: topic-" + i + "\n");
+        }
+        Files.writeString(directory.resolve("v0002_remove-topic-0.yaml"),
+            "operation: remove\ntopic: topic-0\n");
+
+        mockitoWhen();
+
+        command.setDirectory(directory.toFile());
+        command.setBatch(true);
+
+        var batch = mock(BatchExecutor.class);
+        when(batch.execute(anyCollection()))
+            .thenReturn(Map.of());
+
+        doReturn(batch).when(command).batchOf(any());
+
+        ArgumentCaptor<Collection<TopicOperation>> waves =
+            ArgumentCaptor.forClass(Collection.class);
+
+        // act
+        command.run();
+
+        // assert
+        verify(batch, times(2)).execute(waves.capture());
+        assertEquals(3, waves.getAllValues().get(0).size());
+        assertEquals(1, waves.getAllValues().get(1).size());
+
+        verify(command, never()).strategyOf(any());
+
+        // committed wave by wave
+        verify(backend).commitAll(argThat(l -> l.size() == 3));
+        verify(backend).commitAll(argThat(l -> l.size() == 1));
+    }
+
+    @Test
+    public void should_plan_without_touching_the_cluster() throws Exception {
+
+        // setup
+        final File directory = new File("./src/test/resources/topics/08_try_to_create_patch_remove/");
+
+        var readOnly = new Properties();
+        readOnly.put("kattlo.backend.read.only", "true");
+
+        mockitoWhen();
+
+        when(parent.getReadOnlyBackendConfiguration())
+            .thenReturn(readOnly);
+
+        command.setDirectory(directory);
+        command.setPlan(true);
+
+        // act
+        command.run();
+
+        // assert
+        verify(backend).init(readOnly);
+        verify(backend, times(1)).current(any(), anyCollection());
+        verify(backend, never()).commitAll(any());
+        verify(kafka, never()).adminFor(any());
+        verify(command, never()).strategyOf(any());
+    }
+
+    @Test
+    public void should_skip_the_clean_topics_with_cache(@TempDir Path directory)
+            throws Exception {
+
+        // setup
+        Files.writeString(directory.resolve("v0001_create-topic.yaml"),
+            "operation: create\ntopic: topic-0\n");
+
+        mockitoWhen();
+
+        when(backend.watermarks(any(), anyCollection()))
+            .thenReturn(Map.of("topic-0", 7L));
+
+        command.setDirectory(directory.toFile());
+        command.setCache(true);
+
+        try(var mocked = mockStatic(Strategy.class)){
+            mocked.when(() -> Strategy.of(any(), any(), any(), any(), any()))
+                .thenReturn(strategy);
+
+            // act
+            command.run();
+            command.run();
+
+            // assert
+            verify(command, times(1)).strategyOf(any());
+            verify(backend).current(any(), argThat((Collection<String> c) -> c.isEmpty()));
+            assertTrue(Files.exists(directory.resolve(".kattlo").resolve("cache")));
+        }
+    }
 }
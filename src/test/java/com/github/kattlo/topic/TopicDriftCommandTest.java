@@ -0,0 +1,149 @@
+package com.github.kattlo.topic;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.github.kattlo.EntryCommand;
+import com.github.kattlo.core.backend.Backend;
+import com.github.kattlo.core.backend.Resource;
+import com.github.kattlo.core.backend.ResourceStatus;
+import com.github.kattlo.core.backend.ResourceType;
+import com.github.kattlo.core.exception.TopicDescriptionException;
+import com.github.kattlo.core.kafka.Kafka;
+import com.github.kattlo.topic.drift.DriftDetector;
+import com.github.kattlo.topic.drift.TopicDrift;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Model.CommandSpec;
+
+/**
+ * @author fabiojose
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class TopicDriftCommandTest {
+
+    @Mock
+    private Backend backend;
+
+    @Mock
+    private EntryCommand parentParent;
+
+    @Mock
+    private TopicCommand parent;
+
+    @Mock
+    private Kafka kafka;
+
+    @Mock
+    private AdminClient admin;
+
+    @Mock
+    private CommandSpec spec;
+
+    @Mock
+    private DriftDetector detector;
+
+    @InjectMocks
+    @Spy
+    private TopicDriftCommand command;
+
+    private void mockitoWhen() {
+
+        when(kafka.adminFor(any()))
+            .thenReturn(admin);
+
+        when(parent.getParent())
+            .thenReturn(parentParent);
+
+        when(parentParent.getKafkaConfiguration())
+            .thenReturn(new Properties());
+
+        var readOnly = new Properties();
+        readOnly.put("read.only", "true");
+        when(parentParent.getReadOnlyBackendConfiguration())
+            .thenReturn(readOnly);
+
+        doReturn(detector).when(command).detectorOf(any());
+    }
+
+    @Test
+    public void should_detect_the_drift_of_every_managed_topic() {
+
+        // setup
+        mockitoWhen();
+
+        var state = new Resource("v0002", ResourceStatus.AVAILABLE,
+            ResourceType.TOPIC, "topic-a", LocalDateTime.now(),
+            Map.of("partitions", "3"));
+
+        when(backend.currentAll(ResourceType.TOPIC))
+            .thenReturn(Map.of("topic-a", state));
+
+        when(detector.detect(anyCollection()))
+            .thenReturn(List.of(new TopicDrift("topic-a", "v0002")));
+
+        // act
+        command.run();
+
+        // assert
+        verify(backend).init(parentParent.getReadOnlyBackendConfiguration());
+        verify(detector).detect(argThat(states ->
+            states.size() == 1 && states.contains(state)));
+    }
+
+    @Test
+    public void should_fail_when_the_topics_can_not_be_described() {
+
+        // setup
+        mockitoWhen();
+
+        when(backend.currentAll(ResourceType.TOPIC))
+            .thenReturn(Map.of());
+
+        when(detector.detect(anyCollection()))
+            .thenThrow(new TopicDescriptionException("timeout", null));
+
+        when(spec.commandLine())
+            .thenReturn(new CommandLine(command));
+
+        // act
+        assertThrows(CommandLine.ExecutionException.class, () ->
+            command.run());
+    }
+
+    @Test
+    public void should_fail_when_the_chunk_size_is_not_positive() {
+
+        // setup
+        mockitoWhen();
+        command.setChunkSize(0);
+
+        when(spec.commandLine())
+            .thenReturn(new CommandLine(command));
+
+        // act
+        assertThrows(CommandLine.ParameterException.class, () ->
+            command.run());
+    }
+}
@@ -82,6 +82,9 @@ public class TopicImportCommandTest {
         when(parentParent.getKafkaConfiguration())
             .thenReturn(new Properties());
 
+        when(parentParent.getBackendConfiguration())
+            .thenReturn(new Properties());
+
     }
 
     @Test
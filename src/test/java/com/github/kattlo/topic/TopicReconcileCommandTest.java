@@ -0,0 +1,220 @@
+package com.github.kattlo.topic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.github.kattlo.core.backend.Backend;
+import com.github.kattlo.core.backend.Resource;
+import com.github.kattlo.core.backend.ResourceStatus;
+import com.github.kattlo.core.backend.ResourceType;
+import com.github.kattlo.topic.drift.DriftCorrector;
+import com.github.kattlo.topic.drift.DriftDetector;
+import com.github.kattlo.topic.drift.TopicDrift;
+import com.github.kattlo.topic.yaml.MigrationIndex;
+import com.github.kattlo.topic.yaml.ParallelLoader;
+import com.github.kattlo.topic.yaml.TopicOperation;
+import com.github.kattlo.topic.yaml.TopicOperationMapper;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mapstruct.factory.Mappers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+/**
+ * @author fabiojose
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class TopicReconcileCommandTest {
+
+    @Mock
+    private Backend backend;
+
+    @Mock
+    private TopicCommand parent;
+
+    @Mock
+    private AdminClient admin;
+
+    @Mock
+    private DriftDetector detector;
+
+    @Mock
+    private DriftCorrector corrector;
+
+    @InjectMocks
+    @Spy
+    private TopicReconcileCommand command;
+
+    private static TopicOperation operation(String topic, String version) {
+        return TopicOperation.builder()
+            .file(Path.of(version + "_" + topic + ".yaml"))
+            .version(version)
+            .operation(version.equals("v0001") ? "create" : "patch")
+            .topic(topic)
+            .build();
+    }
+
+    private static Resource state(String topic, String version) {
+        return new Resource(version, ResourceStatus.AVAILABLE,
+            ResourceType.TOPIC, topic, LocalDateTime.now(), Map.of());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_apply_just_the_pending_topics_and_keep_their_state() {
+
+        // setup
+        command.getStates().put("topic-a", state("topic-a", "v0002"));
+
+        var index = MigrationIndex.of(List.of(
+            operation("topic-a", "v0001"),
+            operation("topic-a", "v0002"),
+            operation("topic-b", "v0001")));
+
+        var created = state("topic-b", "v0001");
+        doAnswer(invocation -> {
+            ((Consumer<Resource>)invocation.getArgument(4)).accept(created);
+            return List.of();
+        }).when(parent).migrateAndCommit(anyCollection(), any(), any(), any(), any());
+
+        // act
+        command.apply(index, admin);
+
+        // assert
+        verify(parent).migrateAndCommit(
+            argThat((Collection<String> topics) -> topics.equals(Set.of("topic-b"))),
+            any(), any(), any(), any());
+
+        assertEquals(created, command.getStates().get("topic-b"));
+    }
+
+    @Test
+    public void should_not_migrate_when_everything_is_applied() {
+
+        // setup
+        command.getStates().put("topic-a", state("topic-a", "v0001"));
+
+        var index = MigrationIndex.of(List.of(
+            operation("topic-a", "v0001")));
+
+        // act
+        command.apply(index, admin);
+
+        // assert
+        verify(parent, never()).migrateAndCommit(anyCollection(), any(), any(),
+            any(), any());
+    }
+
+    @Test
+    public void should_parse_just_the_changed_and_the_new_files(@TempDir Path directory)
+            throws Exception {
+
+        // setup
+        var first = directory.resolve("v0001_create-a.yaml");
+        var second = directory.resolve("v0001_create-b.yaml");
+        Files.writeString(first, "operation: create\ntopic: topic-a\n");
+        Files.writeString(second, "operation: create\ntopic: topic-b\n");
+
+        var loader = spy(new ParallelLoader(
+            Mappers.getMapper(TopicOperationMapper.class)));
+
+        when(parent.filesOf(directory))
+            .thenReturn(List.of(first, second));
+        when(parent.loaderOf())
+            .thenReturn(loader);
+
+        command.refresh(directory, null);
+
+        var third = directory.resolve("v0002_patch-a.yaml");
+        Files.writeString(third, "operation: patch\ntopic: topic-a\npartitions: 2\n");
+
+        when(parent.filesOf(directory))
+            .thenReturn(List.of(first, second, third));
+
+        // act
+        var actual = command.refresh(directory, Set.of(third));
+
+        // assert
+        verify(loader).load(argThat((Collection<Path> files) ->
+            files.equals(List.of(third))));
+
+        assertEquals(2, actual.all("topic-a").size());
+        assertEquals(1, actual.all("topic-b").size());
+    }
+
+    @Test
+    public void should_correct_the_drifted_topics_when_asked() {
+
+        // setup
+        command.setCorrect(true);
+        command.getStates().put("topic-a", state("topic-a", "v0001"));
+
+        var drift = new TopicDrift("topic-a", "v0001");
+        drift.getDifferences().add(new TopicDrift.Difference(
+            "config.retention.ms", "1000", "2000"));
+
+        doReturn(detector).when(command).detectorOf(any());
+        doReturn(corrector).when(command).correctorOf(any());
+
+        when(detector.detect(anyCollection()))
+            .thenReturn(List.of(drift));
+        when(corrector.correct(anyCollection()))
+            .thenReturn(Map.of());
+
+        // act
+        var actual = command.check(admin);
+
+        // assert
+        assertTrue(actual.get(0).drifted());
+        verify(corrector).correct(List.of(drift));
+    }
+
+    @Test
+    public void should_just_report_the_drift_by_default() {
+
+        // setup
+        command.getStates().put("topic-a", state("topic-a", "v0001"));
+
+        var drift = new TopicDrift("topic-a", "v0001");
+        drift.getDifferences().add(new TopicDrift.Difference(
+            "partitions", "3", "6"));
+
+        doReturn(detector).when(command).detectorOf(any());
+        doReturn(corrector).when(command).correctorOf(any());
+
+        when(detector.detect(anyCollection()))
+            .thenReturn(List.of(drift));
+
+        // act
+        command.check(admin);
+
+        // assert
+        verify(corrector, never()).correct(anyCollection());
+    }
+}
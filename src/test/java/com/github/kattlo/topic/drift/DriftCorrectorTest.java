@@ -0,0 +1,172 @@
+package com.github.kattlo.topic.drift;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.github.kattlo.topic.migration.TopicPatchException;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.AlterConfigOp.OpType;
+import org.apache.kafka.clients.admin.AlterConfigsResult;
+import org.apache.kafka.clients.admin.CreatePartitionsResult;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.ConfigResource.Type;
+import org.apache.kafka.common.errors.PolicyViolationException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * @author fabiojose
+ */
+@ExtendWith(MockitoExtension.class)
+public class DriftCorrectorTest {
+
+    @Mock
+    AdminClient admin;
+
+    @Mock
+    AlterConfigsResult configsResult;
+
+    @Mock
+    CreatePartitionsResult partitionsResult;
+
+    @Captor
+    ArgumentCaptor<Map<ConfigResource, Collection<AlterConfigOp>>> configsCaptor;
+
+    @Captor
+    ArgumentCaptor<Map<String, NewPartitions>> partitionsCaptor;
+
+    private static TopicDrift drift(String topic, TopicDrift.Difference... differences) {
+        var drift = new TopicDrift(topic, "v0001");
+        drift.getDifferences().addAll(List.of(differences));
+
+        return drift;
+    }
+
+    @Test
+    public void should_correct_the_configs_and_partitions_in_one_request_each() {
+
+        // setup
+        var drifts = List.of(
+            drift("topic-a",
+                new TopicDrift.Difference("config.retention.bytes", "1GiB", "1000"),
+                new TopicDrift.Difference("config.compression.type", "$default", "lz4")),
+            drift("topic-b",
+                new TopicDrift.Difference("partitions", "6", "3")));
+
+        var resourceA = new ConfigResource(Type.TOPIC, "topic-a");
+
+        when(admin.incrementalAlterConfigs(anyMap()))
+            .thenReturn(configsResult);
+        when(configsResult.values())
+            .thenReturn(Map.of(resourceA, KafkaFuture.completedFuture(null)));
+
+        when(admin.createPartitions(anyMap()))
+            .thenReturn(partitionsResult);
+        when(partitionsResult.values())
+            .thenReturn(Map.of("topic-b", KafkaFuture.completedFuture(null)));
+
+        var corrector = new DriftCorrector(admin);
+
+        // act
+        var actual = corrector.correct(drifts);
+
+        // assert
+        assertTrue(actual.isEmpty());
+
+        verify(admin, times(1)).incrementalAlterConfigs(configsCaptor.capture());
+        var ops = configsCaptor.getValue().get(resourceA);
+        assertEquals(2, ops.size());
+        assertTrue(ops.stream().anyMatch(op -> OpType.SET.equals(op.opType())
+            && "1073741824".equals(op.configEntry().value())));
+        assertTrue(ops.stream().anyMatch(op -> OpType.DELETE.equals(op.opType())
+            && "compression.type".equals(op.configEntry().name())));
+
+        verify(admin, times(1)).createPartitions(partitionsCaptor.capture());
+        assertEquals(6, partitionsCaptor.getValue().get("topic-b").totalCount());
+    }
+
+    @Test
+    public void should_not_correct_the_replicas_nor_fewer_partitions() {
+
+        // setup
+        var drifts = List.of(
+            drift("topic-a",
+                new TopicDrift.Difference("replicationFactor", "3", "2"),
+                new TopicDrift.Difference("partitions", "3", "6")));
+
+        var corrector = new DriftCorrector(admin);
+
+        // act
+        var actual = corrector.correct(drifts);
+
+        // assert
+        assertTrue(actual.isEmpty());
+        verify(admin, never()).incrementalAlterConfigs(anyMap());
+        verify(admin, never()).createPartitions(anyMap());
+    }
+
+    @Test
+    public void should_not_correct_a_default_with_a_broker_value() {
+
+        // setup
+        var drifts = List.of(
+            drift("topic-a",
+                new TopicDrift.Difference("config.retention.ms", "$default",
+                    "86400000", "DYNAMIC_BROKER_CONFIG"),
+                new TopicDrift.Difference("config.compression.type", "$default",
+                    "lz4", "STATIC_BROKER_CONFIG")));
+
+        var corrector = new DriftCorrector(admin);
+
+        // act
+        var actual = corrector.correct(drifts);
+
+        // assert
+        assertTrue(actual.isEmpty());
+        verify(admin, never()).incrementalAlterConfigs(anyMap());
+        verify(admin, never()).createPartitions(anyMap());
+    }
+
+    @Test
+    public void should_map_the_failure_back_to_its_topic() {
+
+        // setup
+        var drifts = List.of(
+            drift("topic-a",
+                new TopicDrift.Difference("config.retention.ms", "1000", "2000")));
+
+        var failed = new KafkaFutureImpl<Void>();
+        failed.completeExceptionally(new PolicyViolationException("denied"));
+
+        when(admin.incrementalAlterConfigs(anyMap()))
+            .thenReturn(configsResult);
+        when(configsResult.values())
+            .thenReturn(Map.of(new ConfigResource(Type.TOPIC, "topic-a"), failed));
+
+        var corrector = new DriftCorrector(admin);
+
+        // act
+        var actual = corrector.correct(drifts);
+
+        // assert
+        assertTrue(actual.get("topic-a") instanceof TopicPatchException);
+    }
+}
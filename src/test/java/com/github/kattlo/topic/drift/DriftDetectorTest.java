@@ -0,0 +1,309 @@
+package com.github.kattlo.topic.drift;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.github.kattlo.core.backend.Resource;
+import com.github.kattlo.core.backend.ResourceStatus;
+import com.github.kattlo.core.backend.ResourceType;
+import com.github.kattlo.core.exception.TopicDescriptionException;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.DescribeConfigsResult;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.ConfigResource.Type;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.apache.kafka.common.errors.UnknownTopicOrPartitionException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * @author fabiojose
+ */
+@ExtendWith(MockitoExtension.class)
+public class DriftDetectorTest {
+
+    private static final List<Node> NODES = List.of(
+        new Node(1, "localhost", 19092),
+        new Node(2, "localhost", 29092),
+        new Node(3, "localhost", 39092));
+
+    @Mock
+    AdminClient admin;
+
+    @Mock
+    DescribeTopicsResult describeResult;
+
+    @Mock
+    DescribeConfigsResult configsResult;
+
+    private static Resource state(String topic, ResourceStatus status,
+            Map<String, Object> attributes) {
+
+        return new Resource("v0001", status, ResourceType.TOPIC, topic,
+            LocalDateTime.now(), attributes);
+    }
+
+    private static TopicDescription description(String topic, int partitions,
+            int replicationFactor) {
+
+        var replicas = NODES.subList(0, replicationFactor);
+
+        return new TopicDescription(topic, false,
+            IntStream.range(0, partitions)
+                .mapToObj(p -> new TopicPartitionInfo(p, replicas.get(0),
+                    replicas, replicas))
+                .collect(Collectors.toList()));
+    }
+
+    private static <T> KafkaFuture<T> failed(Throwable cause) {
+        var future = new KafkaFutureImpl<T>();
+        future.completeExceptionally(cause);
+
+        return future;
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void should_report_no_difference_when_the_cluster_matches() {
+
+        // setup
+        var state = state("topic-a", ResourceStatus.AVAILABLE, Map.of(
+            "partitions", "3",
+            "replicationFactor", "2",
+            "config", Map.of(
+                "retention.bytes", "1GiB",
+                "min.insync.replicas", 2,
+                "compression.type", "$default")));
+
+        var config = new Config(List.of(
+            new ConfigEntry("retention.bytes", "1073741824"),
+            new ConfigEntry("min.insync.replicas", "2"),
+            // a default value
+            new ConfigEntry("compression.type", "producer", true, false, false)));
+
+        // act
+        var actual = DriftDetector.diff(state, description("topic-a", 3, 2),
+            config);
+
+        // assert
+        assertFalse(actual.drifted(), actual.toString());
+    }
+
+    private static ConfigEntry entry(String name, String value,
+            ConfigEntry.ConfigSource source) {
+
+        var entry = mock(ConfigEntry.class);
+        when(entry.name()).thenReturn(name);
+        when(entry.value()).thenReturn(value);
+        when(entry.source()).thenReturn(source);
+
+        return entry;
+    }
+
+    @Test
+    public void should_not_report_a_broker_value_as_a_difference_of_default() {
+
+        // setup
+        var state = state("topic-a", ResourceStatus.AVAILABLE, Map.of(
+            "config", Map.of(
+                "retention.ms", "$default",
+                "compression.type", "$default")));
+
+        var config = new Config(List.of(
+            // set on the brokers, not on the topic
+            entry("retention.ms", "86400000",
+                ConfigEntry.ConfigSource.DYNAMIC_BROKER_CONFIG),
+            entry("compression.type", "lz4",
+                ConfigEntry.ConfigSource.STATIC_BROKER_CONFIG)));
+
+        // act
+        var actual = DriftDetector.diff(state, description("topic-a", 1, 1),
+            config);
+
+        // assert
+        assertFalse(actual.drifted(), actual.toString());
+    }
+
+    @Test
+    public void should_report_a_topic_value_as_a_difference_of_default() {
+
+        // setup
+        var state = state("topic-a", ResourceStatus.AVAILABLE, Map.of(
+            "config", Map.of(
+                "retention.ms", "$default")));
+
+        var config = new Config(List.of(
+            entry("retention.ms", "1000",
+                ConfigEntry.ConfigSource.DYNAMIC_TOPIC_CONFIG)));
+
+        // act
+        var actual = DriftDetector.diff(state, description("topic-a", 1, 1),
+            config);
+
+        // assert
+        assertEquals(1, actual.getDifferences().size());
+        assertEquals("$default", actual.getDifferences().get(0).getExpected());
+        assertEquals("1000", actual.getDifferences().get(0).getActual());
+    }
+
+    @Test
+    public void should_report_the_differences_of_partitions_replication_and_config() {
+
+        // setup
+        var state = state("topic-a", ResourceStatus.AVAILABLE, Map.of(
+            "partitions", "3",
+            "replicationFactor", "2",
+            "config", Map.of(
+                "retention.ms", "1000",
+                "cleanup.policy", "compact")));
+
+        var config = new Config(List.of(
+            new ConfigEntry("retention.ms", "2000")));
+
+        // act
+        var actual = DriftDetector.diff(state, description("topic-a", 6, 3),
+            config);
+
+        // assert
+        assertEquals(4, actual.getDifferences().size());
+
+        var byAttribute = actual.getDifferences().stream()
+            .collect(Collectors.toMap(TopicDrift.Difference::getAttribute,
+                d -> d));
+
+        assertEquals("6", byAttribute.get("partitions").getActual());
+        assertEquals("3", byAttribute.get("replicationFactor").getActual());
+        assertEquals("2000", byAttribute.get("config.retention.ms").getActual());
+        assertNull(byAttribute.get("config.cleanup.policy").getActual());
+    }
+
+    @Test
+    public void should_report_the_missing_and_the_resurrected_topics() {
+
+        // setup
+        var missing = state("topic-a", ResourceStatus.AVAILABLE, Map.of());
+        var removed = state("topic-b", ResourceStatus.DELETED, Map.of());
+
+        // act
+        var actualMissing = DriftDetector.diff(missing, null, null);
+        var actualRemoved = DriftDetector.diff(removed,
+            description("topic-b", 1, 1), null);
+
+        // assert
+        assertTrue(actualMissing.drifted());
+        assertEquals("present", actualMissing.getDifferences().get(0).getExpected());
+
+        assertTrue(actualRemoved.drifted());
+        assertEquals("present", actualRemoved.getDifferences().get(0).getActual());
+    }
+
+    @Test
+    public void should_describe_the_topics_in_chunks() {
+
+        // setup
+        var states = IntStream.range(0, 5)
+            .mapToObj(i -> state("topic-" + i, ResourceStatus.AVAILABLE,
+                Map.of("partitions", "1")))
+            .collect(Collectors.toList());
+
+        var descriptions = states.stream()
+            .collect(Collectors.toMap(Resource::getResourceName,
+                s -> KafkaFuture.completedFuture(
+                    description(s.getResourceName(), 1, 1))));
+
+        var configs = states.stream()
+            .collect(Collectors.toMap(
+                s -> new ConfigResource(Type.TOPIC, s.getResourceName()),
+                s -> KafkaFuture.completedFuture(new Config(List.of()))));
+
+        when(admin.describeTopics(anyCollection()))
+            .thenReturn(describeResult);
+        when(describeResult.values())
+            .thenReturn(descriptions);
+
+        when(admin.describeConfigs(anyCollection()))
+            .thenReturn(configsResult);
+        when(configsResult.values())
+            .thenReturn(configs);
+
+        var detector = new DriftDetector(admin, 2);
+
+        // act
+        var actual = detector.detect(states);
+
+        // assert
+        assertEquals(5, actual.size());
+        assertTrue(actual.stream().noneMatch(TopicDrift::drifted));
+
+        verify(admin, times(3)).describeTopics(anyCollection());
+        verify(admin, times(3)).describeConfigs(anyCollection());
+    }
+
+    @Test
+    public void should_not_describe_the_configs_of_missing_topics() {
+
+        // setup
+        var states = List.of(
+            state("topic-a", ResourceStatus.AVAILABLE, Map.of()));
+
+        when(admin.describeTopics(anyCollection()))
+            .thenReturn(describeResult);
+        when(describeResult.values())
+            .thenReturn(Map.of("topic-a",
+                failed(new UnknownTopicOrPartitionException("topic-a"))));
+
+        var detector = new DriftDetector(admin);
+
+        // act
+        var actual = detector.detect(states);
+
+        // assert
+        assertTrue(actual.get(0).drifted());
+        verify(admin, times(0)).describeConfigs(anyCollection());
+    }
+
+    @Test
+    public void should_throw_when_a_topic_can_not_be_described() {
+
+        // setup
+        var states = List.of(
+            state("topic-a", ResourceStatus.AVAILABLE, Map.of()));
+
+        when(admin.describeTopics(anyCollection()))
+            .thenReturn(describeResult);
+        when(describeResult.values())
+            .thenReturn(Map.of("topic-a",
+                failed(new TimeoutException("timeout"))));
+
+        var detector = new DriftDetector(admin);
+
+        // act
+        assertThrows(TopicDescriptionException.class, () ->
+            detector.detect(states));
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.kattlo.topic.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.github.kattlo.topic.yaml.TopicOperation;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.AlterConfigsResult;
+import org.apache.kafka.clients.admin.CreatePartitionsResult;
+import org.apache.kafka.clients.admin.CreateTopicsResult;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.ConfigResource.Type;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * @author fabiojose
+ */
+@ExtendWith(MockitoExtension.class)
+public class BatchExecutorTest {
+
+    @Mock
+    AdminClient admin;
+
+    @Mock
+    CreateTopicsResult createResult;
+
+    @Mock
+    DescribeTopicsResult describeResult;
+
+    @Mock
+    CreatePartitionsResult partitionsResult;
+
+    @Mock
+    AlterConfigsResult configsResult;
+
+    @Captor
+    ArgumentCaptor<Collection<NewTopic>> newTopicsCaptor;
+
+    @Captor
+    ArgumentCaptor<Map<String, NewPartitions>> partitionsCaptor;
+
+    @Captor
+    ArgumentCaptor<Map<ConfigResource, Collection<AlterConfigOp>>> configsCaptor;
+
+    private static TopicOperation operation(String operation, String topic) {
+        return TopicOperation.builder()
+            .file(Path.of("first"))
+            .version("v0001")
+            .operation(operation)
+            .topic(topic)
+            .build();
+    }
+
+    private static KafkaFuture<Void> done() {
+        return KafkaFuture.completedFuture(null);
+    }
+
+    @Test
+    public void should_create_all_the_topics_in_one_request() {
+
+        // setup
+        var operations = List.of(
+            operation("create", "topic-a"),
+            operation("create", "topic-b"),
+            operation("create", "topic-c"));
+
+        when(admin.createTopics(anyCollection()))
+            .thenReturn(createResult);
+
+        when(createResult.values())
+            .thenReturn(Map.of("topic-a", done(), "topic-b", done(),
+                "topic-c", done()));
+
+        var executor = new BatchExecutor(admin);
+
+        // act
+        var actual = executor.execute(operations);
+
+        // assert
+        assertTrue(actual.isEmpty());
+
+        verify(admin, times(1)).createTopics(newTopicsCaptor.capture());
+        assertEquals(3, newTopicsCaptor.getValue().size());
+    }
+
+    @Test
+    public void should_map_the_failure_back_to_its_topic() {
+
+        // setup
+        var operations = List.of(
+            operation("create", "topic-a"),
+            operation("create", "topic-b"));
+
+        var failed = new KafkaFutureImpl<Void>();
+        failed.completeExceptionally(new TopicExistsException("topic-b exists"));
+
+        when(admin.createTopics(anyCollection()))
+            .thenReturn(createResult);
+
+        when(createResult.values())
+            .thenReturn(Map.of("topic-a", done(), "topic-b", failed));
+
+        var executor = new BatchExecutor(admin);
+
+        // act
+        var actual = executor.execute(operations);
+
+        // assert
+        assertEquals(1, actual.size());
+        assertTrue(actual.get("topic-b") instanceof TopicCreateException);
+    }
+
+    @Test
+    public void should_patch_partitions_and_configs_in_one_request_each() {
+
+        // setup
+        var operations = List.of(
+            operation("patch", "topic-a").toBuilder()
+                .partitions(3)
+                .config(Map.of("retention.ms", "1000"))
+                .build(),
+            operation("patch", "topic-b").toBuilder()
+                .partitions(6)
+                .config(Map.of("compression.type", "lz4"))
+                .build());
+
+        when(admin.describeTopics(anyCollection()))
+            .thenReturn(describeResult);
+
+        when(describeResult.values())
+            .thenReturn(Map.of(
+                "topic-a", KafkaFuture.completedFuture(
+                    new TopicDescription("topic-a", false, List.of())),
+                "topic-b", KafkaFuture.completedFuture(
+                    new TopicDescription("topic-b", false, List.of()))));
+
+        when(admin.createPartitions(anyMap()))
+            .thenReturn(partitionsResult);
+
+        when(partitionsResult.values())
+            .thenReturn(Map.of("topic-a", done(), "topic-b", done()));
+
+        when(admin.incrementalAlterConfigs(anyMap()))
+            .thenReturn(configsResult);
+
+        when(configsResult.values())
+            .thenReturn(Map.of(
+                new ConfigResource(Type.TOPIC, "topic-a"), done(),
+                new ConfigResource(Type.TOPIC, "topic-b"), done()));
+
+        var executor = new BatchExecutor(admin);
+
+        // act
+        var actual = executor.execute(operations);
+
+        // assert
+        assertTrue(actual.isEmpty());
+
+        verify(admin, times(1)).describeTopics(anyCollection());
+
+        verify(admin, times(1)).createPartitions(partitionsCaptor.capture());
+        assertEquals(3, partitionsCaptor.getValue().get("topic-a").totalCount());
+        assertEquals(6, partitionsCaptor.getValue().get("topic-b").totalCount());
+
+        verify(admin, times(1)).incrementalAlterConfigs(configsCaptor.capture());
+        assertEquals(2, configsCaptor.getValue().size());
+    }
+
+    @Test
+    public void should_throw_when_there_are_two_operations_for_the_same_topic() {
+
+        // setup
+        var operations = List.of(
+            operation("create", "topic-a"),
+            operation("remove", "topic-a"));
+
+        var executor = new BatchExecutor(admin);
+
+        // act
+        assertThrows(IllegalArgumentException.class, () ->
+            executor.execute(operations));
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.kattlo.topic.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeLogDirsResult;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.ListTopicsResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse.LogDirInfo;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse.ReplicaInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * @author fabiojose
+ */
+@ExtendWith(MockitoExtension.class)
+public class ClusterLoadTest {
+
+    @Mock
+    AdminClient admin;
+
+    @Mock
+    DescribeLogDirsResult dirs;
+
+    @Mock
+    ListTopicsResult listed;
+
+    @Mock
+    DescribeTopicsResult described;
+
+    private static final Node N1 = new Node(1, "node1", 9092);
+    private static final Node N2 = new Node(2, "node2", 9092);
+    private static final Node N3 = new Node(3, "node3", 9092);
+    private static final List<Node> NODES = List.of(N1, N2, N3);
+
+    private static TopicDescription topic(String name) {
+        return new TopicDescription(name, false, List.of(
+            new TopicPartitionInfo(0, N1, List.of(N1), List.of(N1))));
+    }
+
+    @Test
+    public void should_describe_the_cluster_once_for_every_topic() throws Exception {
+
+        // setup
+        var first = topic("first");
+        var second = topic("second");
+
+        when(admin.describeLogDirs(anyCollection()))
+            .thenReturn(dirs);
+        when(dirs.all())
+            .thenReturn(KafkaFuture.completedFuture(Map.of(
+                1, Map.of("/data", new LogDirInfo(Errors.NONE, Map.of(
+                    new TopicPartition("first", 0), new ReplicaInfo(10, 0, false),
+                    new TopicPartition("second", 0), new ReplicaInfo(10, 0, false)))))));
+
+        when(admin.listTopics(any(ListTopicsOptions.class)))
+            .thenReturn(listed);
+        when(listed.names())
+            .thenReturn(KafkaFuture.completedFuture(Set.of("first", "second")));
+        when(admin.describeTopics(anyCollection()))
+            .thenReturn(described);
+        when(described.all())
+            .thenReturn(KafkaFuture.completedFuture(Map.of(
+                "first", first, "second", second)));
+
+        var load = new ClusterLoad();
+
+        // act
+        var placedFirst = load.assignmentsOf(admin, NODES, first, 2);
+        var placedSecond = load.assignmentsOf(admin, NODES, second, 2);
+
+        // assert
+        verify(admin, times(1)).describeLogDirs(anyCollection());
+        verify(admin, times(1)).listTopics(any(ListTopicsOptions.class));
+        verify(admin, times(1)).describeTopics(anyCollection());
+
+        var firstReplicas = placedFirst.get(new TopicPartition("first", 0))
+            .get().targetReplicas();
+        var secondReplicas = placedSecond.get(new TopicPartition("second", 0))
+            .get().targetReplicas();
+
+        assertEquals(1, firstReplicas.get(0));
+        assertEquals(1, secondReplicas.get(0));
+        assertEquals(Set.of(2, 3),
+            Set.of(firstReplicas.get(1), secondReplicas.get(1)));
+    }
+}
@@ -4,19 +4,29 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
+import com.github.kattlo.core.kafka.Retry;
 import com.github.kattlo.topic.yaml.TopicOperation;
 
 import org.apache.kafka.clients.admin.AdminClient;
 import org.apache.kafka.clients.admin.CreateTopicsResult;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.TopicDescription;
 import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -39,6 +49,9 @@ public class CreateStrategyTest {
     @Mock
     KafkaFuture<Void> future;
 
+    @Mock
+    DescribeTopicsResult describeResult;
+
     @Captor
     private ArgumentCaptor<Collection<NewTopic>> newTopicCaptor;
 
@@ -254,4 +267,48 @@ public class CreateStrategyTest {
             create.execute(admin));
 
     }
+
+    @Test
+    public void should_take_the_timed_out_creation_as_done_when_the_topic_exists()
+            throws Exception {
+
+        // setup
+        var operation = TopicOperation.builder()
+            .file(Path.of("first"))
+            .version("v0001")
+            .operation("create")
+            .topic("topic")
+            .partitions(1)
+            .replicationFactor(1)
+            .build();
+
+        var retry = new Retry(3, Duration.ofMillis(1), Duration.ofMillis(1));
+        var create = Strategy.of(operation, ReassignmentTracker.defaults(),
+            ReplicationThrottle.none(), new ClusterLoad(), retry);
+
+        when(admin.createTopics(anyCollection()))
+            .thenReturn(result);
+
+        when(result.all())
+            .thenReturn(future);
+
+        when(future.get())
+            .thenThrow(new ExecutionException(new TimeoutException("timed out")));
+
+        // the broker created it anyway
+        var node = new Node(1, "nodeA", 9092);
+        when(admin.describeTopics(anyCollection()))
+            .thenReturn(describeResult);
+
+        when(describeResult.all())
+            .thenReturn(KafkaFuture.completedFuture(Map.of("topic",
+                new TopicDescription("topic", false, List.of(
+                    new TopicPartitionInfo(0, node, List.of(node), List.of(node)))))));
+
+        // act
+        create.execute(admin);
+
+        // assert
+        verify(admin, times(1)).createTopics(anyCollection());
+    }
 }
@@ -0,0 +1,173 @@
+package com.github.kattlo.topic.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ElectLeadersResult;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.ElectionType;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.errors.ElectionNotNeededException;
+import org.apache.kafka.common.errors.PreferredLeaderNotAvailableException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * @author fabiojose
+ */
+@ExtendWith(MockitoExtension.class)
+public class LeaderElectionTest {
+
+    @Mock
+    AdminClient admin;
+
+    @Mock
+    DescribeTopicsResult describeResult;
+
+    @Mock
+    ElectLeadersResult electResult;
+
+    @Captor
+    ArgumentCaptor<Set<TopicPartition>> captor;
+
+    private static final List<Node> NODES = List.of(
+        new Node(1, "nodeA", 9092),
+        new Node(2, "nodeB", 9092),
+        new Node(3, "nodeC", 9092));
+
+    /**
+     * The partition 0 is led by its preferred replica, the others are not
+     */
+    private static TopicDescription description() {
+        return new TopicDescription("topic", false, List.of(
+            new TopicPartitionInfo(0, NODES.get(0), NODES, NODES),
+            new TopicPartitionInfo(1, NODES.get(2), NODES, NODES),
+            new TopicPartitionInfo(2, NODES.get(1), NODES, NODES)));
+    }
+
+    private static TopicPartition partition(int partition) {
+        return new TopicPartition("topic", partition);
+    }
+
+    private void describeMockitoWhen() {
+        when(admin.describeTopics(anyCollection()))
+            .thenReturn(describeResult);
+        when(describeResult.all())
+            .thenReturn(KafkaFuture.completedFuture(Map.of("topic", description())));
+    }
+
+    @Test
+    public void should_elect_just_the_partitions_without_the_preferred_leader() {
+
+        // setup
+        describeMockitoWhen();
+        when(admin.electLeaders(eq(ElectionType.PREFERRED), anySet()))
+            .thenReturn(electResult);
+        when(electResult.partitions())
+            .thenReturn(KafkaFuture.completedFuture(Map.of(
+                partition(1), Optional.empty(),
+                partition(2), Optional.of(new PreferredLeaderNotAvailableException("down")))));
+
+        var election = new LeaderElection(admin);
+
+        // act
+        var actual = election.elect(Set.of(partition(0), partition(1), partition(2)));
+
+        // assert
+        verify(admin).electLeaders(eq(ElectionType.PREFERRED), captor.capture());
+        assertEquals(Set.of(partition(1), partition(2)), captor.getValue());
+
+        assertEquals(2, actual.size());
+
+        assertEquals(1, actual.get(0).getPartition());
+        assertEquals(Integer.valueOf(3), actual.get(0).getFrom());
+        assertEquals(Integer.valueOf(1), actual.get(0).getTo());
+        assertFalse(actual.get(0).failed());
+
+        assertEquals(2, actual.get(1).getPartition());
+        assertTrue(actual.get(1).failed());
+    }
+
+    @Test
+    public void should_not_report_when_the_election_was_not_needed() {
+
+        // setup
+        describeMockitoWhen();
+        when(admin.electLeaders(eq(ElectionType.PREFERRED), anySet()))
+            .thenReturn(electResult);
+        when(electResult.partitions())
+            .thenReturn(KafkaFuture.completedFuture(Map.of(
+                partition(1), Optional.of(new ElectionNotNeededException("led")))));
+
+        var election = new LeaderElection(admin);
+
+        // act
+        var actual = election.elect(Set.of(partition(1)));
+
+        // assert
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    public void should_elect_in_batches() {
+
+        // setup
+        describeMockitoWhen();
+        when(admin.electLeaders(eq(ElectionType.PREFERRED), anySet()))
+            .thenReturn(electResult);
+        when(electResult.partitions())
+            .thenReturn(
+                KafkaFuture.completedFuture(Map.of(partition(1), Optional.empty())),
+                KafkaFuture.completedFuture(Map.of(partition(2), Optional.empty())));
+
+        var election = new LeaderElection(admin, 1);
+
+        // act
+        var actual = election.elect(List.of(partition(2), partition(1)));
+
+        // assert
+        verify(admin, times(2)).describeTopics(anyCollection());
+        verify(admin, times(2)).electLeaders(eq(ElectionType.PREFERRED), captor.capture());
+        assertEquals(List.of(Set.of(partition(1)), Set.of(partition(2))),
+            captor.getAllValues());
+
+        assertEquals(2, actual.size());
+    }
+
+    @Test
+    public void should_not_call_the_cluster_without_partitions() {
+
+        var election = new LeaderElection(admin);
+
+        // act
+        var actual = election.elect(Set.of());
+
+        // assert
+        assertTrue(actual.isEmpty());
+        verify(admin, never()).describeTopics(anyCollection());
+        verify(admin, never()).electLeaders(any(), anySet());
+    }
+}
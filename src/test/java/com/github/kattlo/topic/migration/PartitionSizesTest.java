@@ -0,0 +1,89 @@
+package com.github.kattlo.topic.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.DescribeLogDirsResult;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.ClusterAuthorizationException;
+import org.apache.kafka.common.internals.KafkaFutureImpl;
+import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse.LogDirInfo;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse.ReplicaInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * @author fabiojose
+ */
+@ExtendWith(MockitoExtension.class)
+public class PartitionSizesTest {
+
+    @Mock
+    AdminClient admin;
+
+    @Mock
+    DescribeLogDirsResult result;
+
+    private static final TopicPartition P0 = new TopicPartition("topic", 0);
+    private static final TopicPartition P1 = new TopicPartition("topic", 1);
+
+    @Test
+    public void should_take_the_largest_replica_as_the_partition_size() {
+
+        // setup
+        var dirs = Map.of(
+            1, Map.of("/data", new LogDirInfo(Errors.NONE, Map.of(
+                P0, new ReplicaInfo(100, 0, false),
+                P1, new ReplicaInfo(30, 0, false)))),
+            2, Map.of("/data", new LogDirInfo(Errors.NONE, Map.of(
+                P0, new ReplicaInfo(80, 20, false))),
+                "/other", new LogDirInfo(Errors.NONE, Map.of(
+                P1, new ReplicaInfo(10, 0, true)))));
+
+        when(admin.describeLogDirs(anyCollection()))
+            .thenReturn(result);
+        when(result.all())
+            .thenReturn(KafkaFuture.completedFuture(dirs));
+
+        // act
+        var actual = PartitionSizes.of(admin, List.of(1, 2));
+
+        // assert
+        assertTrue(actual.isKnown());
+        assertEquals(100, actual.sizeOf(P0));
+        assertEquals(80, actual.sizeOf(P0, 2));
+        assertEquals(0, actual.sizeOf(P1, 2));
+        assertEquals(Map.of(1, 130l, 2, 80l), actual.bytesPerBroker());
+    }
+
+    @Test
+    public void should_be_unknown_when_the_log_dirs_can_not_be_described() {
+
+        // setup
+        var failed = new KafkaFutureImpl<Map<Integer, Map<String, LogDirInfo>>>();
+        failed.completeExceptionally(new ClusterAuthorizationException("denied"));
+
+        when(admin.describeLogDirs(anyCollection()))
+            .thenReturn(result);
+        when(result.all())
+            .thenReturn(failed);
+
+        // act
+        var actual = PartitionSizes.of(admin, List.of(1, 2));
+
+        // assert
+        assertFalse(actual.isKnown());
+        assertEquals(0, actual.sizeOf(P0));
+    }
+}
@@ -10,29 +10,50 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import com.github.kattlo.core.kafka.Retry;
+import com.github.kattlo.topic.yaml.MigrationJournal.KeptThrottle;
 import com.github.kattlo.topic.yaml.TopicOperation;
 
 import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.AlterConfigsResult;
 import org.apache.kafka.clients.admin.AlterPartitionReassignmentsResult;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.ConfigEntry.ConfigSource;
+import org.apache.kafka.clients.admin.DescribeConfigsResult;
 import org.apache.kafka.clients.admin.DescribeClusterResult;
+import org.apache.kafka.clients.admin.DescribeLogDirsResult;
 import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ListPartitionReassignmentsResult;
+import org.apache.kafka.clients.admin.ListTopicsOptions;
+import org.apache.kafka.clients.admin.ListTopicsResult;
 import org.apache.kafka.clients.admin.NewPartitionReassignment;
+import org.apache.kafka.clients.admin.PartitionReassignment;
 import org.apache.kafka.clients.admin.TopicDescription;
 import org.apache.kafka.common.KafkaFuture;
 import org.apache.kafka.common.Node;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
 
 /**
  * @author fabiojose
@@ -61,9 +82,27 @@ public class PatchStrategyReplicationFactorTest {
     @Mock
     private KafkaFuture<Map<String,TopicDescription>> describeTopicsResultFuture;
 
+    @Mock
+    private ListPartitionReassignmentsResult listReassignmentsResult;
+
+    @Mock
+    private ListTopicsResult listTopicsResult;
+
+    @Mock
+    private DescribeLogDirsResult describeLogDirsResult;
+
+    @Mock
+    private DescribeConfigsResult describeConfigsResult;
+
+    @Mock
+    private AlterConfigsResult alterConfigsResult;
+
     @Captor
     private ArgumentCaptor<Map<TopicPartition,Optional<NewPartitionReassignment>>> captor;
 
+    @Captor
+    private ArgumentCaptor<Map<ConfigResource, Collection<AlterConfigOp>>> configsCaptor;
+
     @Mock
     private Node broker;
 
@@ -92,6 +131,58 @@ public class PatchStrategyReplicationFactorTest {
             .thenReturn(Map.of("topic", description));
     }
 
+    /**
+     * @param entries The configs of the topic
+     */
+    private void describeConfigsMockitoWhen(ConfigEntry... entries) {
+
+        when(admin.describeConfigs(anyCollection()))
+            .thenReturn(describeConfigsResult);
+
+        when(describeConfigsResult.all())
+            .thenReturn(KafkaFuture.completedFuture(Map.of(
+                new ConfigResource(ConfigResource.Type.TOPIC, "topic"),
+                new Config(List.of(entries)))));
+    }
+
+    private static ConfigEntry throttled(String name, String value) {
+        var entry = mock(ConfigEntry.class);
+        when(entry.name()).thenReturn(name);
+        when(entry.value()).thenReturn(value);
+        when(entry.source()).thenReturn(ConfigSource.DYNAMIC_TOPIC_CONFIG);
+
+        return entry;
+    }
+
+    private void reassignmentsMockitoWhen() throws Exception {
+
+        // the sizes of the partitions are unknown
+        when(admin.describeLogDirs(anyCollection()))
+            .thenReturn(describeLogDirsResult);
+
+        when(describeLogDirsResult.all())
+            .thenReturn(KafkaFuture.completedFuture(Map.of()));
+
+        // the cluster has just the topic being patched
+        when(admin.listTopics(any(ListTopicsOptions.class)))
+            .thenReturn(listTopicsResult);
+
+        when(listTopicsResult.names())
+            .thenReturn(KafkaFuture.completedFuture(Set.of("topic")));
+
+        when(admin.listPartitionReassignments(anySet()))
+            .thenReturn(listReassignmentsResult);
+
+        when(listReassignmentsResult.reassignments())
+            .thenReturn(KafkaFuture.completedFuture(Map.of()));
+
+        when(admin.alterPartitionReassignments(anyMap()))
+            .thenReturn(replicationFactorResult);
+
+        when(replicationFactorResult.all())
+            .thenReturn(KafkaFuture.completedFuture(null));
+    }
+
     @Test
     public void should_throws_when_replication_is_greater_than_number_of_brokers()
             throws Exception {
@@ -240,6 +331,8 @@ public class PatchStrategyReplicationFactorTest {
         when(describeTopicsResultFuture.get())
             .thenReturn(Map.of("topic", description));
 
+        reassignmentsMockitoWhen();
+
         // act
         patch.execute(admin);
 
@@ -301,6 +394,8 @@ public class PatchStrategyReplicationFactorTest {
         when(describeTopicsResultFuture.get())
             .thenReturn(Map.of("topic", description));
 
+        reassignmentsMockitoWhen();
+
         // act
         patch.execute(admin);
 
@@ -365,6 +460,7 @@ public class PatchStrategyReplicationFactorTest {
         when(describeTopicsResultFuture.get())
             .thenReturn(Map.of("topic", description));
 
+
         // act
         var actual =
         assertThrows(TopicPatchException.class, () ->
@@ -373,4 +469,158 @@ public class PatchStrategyReplicationFactorTest {
         assertTrue(actual.getMessage().contains("already set"));
     }
 
+    @Test
+    public void should_settle_the_moves_left_running_by_a_previous_run() throws Exception {
+        // setup
+        var operation = TopicOperation.builder()
+            .file(Path.of("first"))
+            .version("v0002")
+            .operation("patch")
+            .notes("notes")
+            .topic("topic")
+            .replicationFactor(3)
+            .build();
+
+        var throttle = ReplicationThrottle.none();
+        throttle.restore(Map.of("topic",
+            new KeptThrottle("0:9,0:5", "0:7", Set.of(9, 5, 7), 1024)));
+
+        var patch = Strategy.of(operation, ReassignmentTracker.defaults(), throttle,
+            new ClusterLoad(), Retry.none());
+
+        var nodes = List.of(
+            new Node(9, "nodeA", 9092),
+            new Node(5, "nodeB", 9092),
+            new Node(7, "nodeC", 9092));
+
+        when(admin.describeCluster())
+            .thenReturn(describeClusterResult);
+
+        when(describeClusterResult.nodes())
+            .thenReturn(describeClusterResultFuture);
+
+        when(describeClusterResultFuture.get())
+            .thenReturn(nodes);
+
+        describeTopicsMockitoWhen();
+
+        describeConfigsMockitoWhen(
+            throttled(ReplicationThrottle.LEADER_REPLICAS, "0:9,0:5"),
+            throttled(ReplicationThrottle.FOLLOWER_REPLICAS, "0:7"));
+
+        // the moves finished
+        when(admin.listPartitionReassignments())
+            .thenReturn(listReassignmentsResult);
+
+        when(listReassignmentsResult.reassignments())
+            .thenReturn(KafkaFuture.completedFuture(Map.of()));
+
+        when(admin.incrementalAlterConfigs(anyMap()))
+            .thenReturn(alterConfigsResult);
+
+        when(alterConfigsResult.all())
+            .thenReturn(KafkaFuture.completedFuture(null));
+
+        // act
+        patch.execute(admin);
+
+        // assert
+        verify(admin).incrementalAlterConfigs(configsCaptor.capture());
+        var actual = configsCaptor.getValue();
+
+        // the rates of the brokers were not found, so they are not touched
+        assertEquals(Set.of(new ConfigResource(ConfigResource.Type.TOPIC, "topic")),
+            actual.keySet());
+        assertEquals(2, actual.values().stream()
+            .flatMap(Collection::stream)
+            .filter(op -> AlterConfigOp.OpType.DELETE.equals(op.opType()))
+            .count());
+        assertTrue(throttle.kept().isEmpty());
+    }
+
+    @Test
+    public void should_fail_while_the_last_wave_is_still_running() throws Exception {
+        // setup
+        var operation = TopicOperation.builder()
+            .file(Path.of("first"))
+            .version("v0002")
+            .operation("patch")
+            .notes("notes")
+            .topic("topic")
+            .replicationFactor(3)
+            .build();
+
+        var tracker = new ReassignmentTracker(Duration.ZERO,
+            (topic, status, progress, estimate) -> {});
+
+        var throttle = ReplicationThrottle.none();
+        var patch = Strategy.of(operation, tracker, throttle,
+            new ClusterLoad(), Retry.none());
+
+        var nodes = new ArrayList<Node>();
+        nodes.add(new Node(9, "nodeA", 9092));
+        nodes.add(new Node(5, "nodeB", 9092));
+        nodes.add(new Node(7, "nodeC", 9092));
+
+        when(admin.describeCluster())
+            .thenReturn(describeClusterResult);
+
+        when(describeClusterResult.nodes())
+            .thenReturn(describeClusterResultFuture);
+
+        when(describeClusterResultFuture.get())
+            .thenReturn(nodes);
+
+        when(admin.describeTopics(anyCollection()))
+            .thenReturn(describeTopicsResult);
+
+        when(describeTopicsResult.all())
+            .thenReturn(describeTopicsResultFuture);
+
+        var tp0 = new TopicPartitionInfo(0, nodes.get(0), nodes.subList(0, 2), nodes.subList(0, 2));
+
+        when(describeTopicsResultFuture.get())
+            .thenReturn(Map.of("topic", new TopicDescription("topic", false, List.of(tp0))));
+
+
+        when(admin.describeLogDirs(anyCollection()))
+            .thenReturn(describeLogDirsResult);
+
+        when(describeLogDirsResult.all())
+            .thenReturn(KafkaFuture.completedFuture(Map.of()));
+
+        when(admin.listTopics(any(ListTopicsOptions.class)))
+            .thenReturn(listTopicsResult);
+
+        when(listTopicsResult.names())
+            .thenReturn(KafkaFuture.completedFuture(Set.of("topic")));
+
+        // idle before, still running after the submit
+        when(admin.listPartitionReassignments(anySet()))
+            .thenReturn(listReassignmentsResult);
+
+        when(listReassignmentsResult.reassignments())
+            .thenReturn(
+                KafkaFuture.completedFuture(Map.of()),
+                KafkaFuture.completedFuture(Map.of(new TopicPartition("topic", 0),
+                    new PartitionReassignment(List.of(9, 5, 7), List.of(7), List.of()))));
+
+        when(admin.alterPartitionReassignments(anyMap()))
+            .thenReturn(replicationFactorResult);
+
+        when(replicationFactorResult.all())
+            .thenReturn(KafkaFuture.completedFuture(null));
+
+        // act
+        var actual =
+            assertThrows(TopicPatchException.class, () -> patch.execute(admin));
+
+        // assert
+        assertTrue(actual.getMessage().contains("to commit the migration"));
+
+        // the moves are recorded for the next run, without touching the topic
+        assertTrue(throttle.kept().containsKey("topic"));
+        verify(admin, never()).incrementalAlterConfigs(anyMap());
+    }
+
 }
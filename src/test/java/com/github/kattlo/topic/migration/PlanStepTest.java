@@ -0,0 +1,59 @@
+package com.github.kattlo.topic.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import com.github.kattlo.core.backend.OperationType;
+import com.github.kattlo.topic.yaml.TopicOperation;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author fabiojose
+ */
+public class PlanStepTest {
+
+    @Test
+    public void should_plan_the_admin_calls_of_a_patch() {
+
+        // setup
+        var operation = TopicOperation.builder()
+            .file(Path.of("./src/test/resources/topics/08_try_to_create_patch_remove/v0002_patch-config.yaml"))
+            .version("v0002")
+            .operation("patch")
+            .topic("topic")
+            .partitions(3)
+            .config(Map.of("compression.type", "lz4"))
+            .build();
+
+        // act
+        var actual = PlanStep.of(operation);
+
+        // assert
+        assertEquals("topic", actual.getTopic());
+        assertEquals(OperationType.PATCH, actual.getOperation());
+        assertEquals(List.of("describeTopics", "createPartitions",
+            "incrementalAlterConfigs"), actual.getCalls());
+    }
+
+    @Test
+    public void should_plan_the_admin_calls_of_a_remove() {
+
+        // setup
+        var operation = TopicOperation.builder()
+            .file(Path.of("./src/test/resources/topics/08_try_to_create_patch_remove/v0003_remove-topic.yaml"))
+            .version("v0003")
+            .operation("remove")
+            .topic("topic")
+            .build();
+
+        // act
+        var actual = PlanStep.of(operation);
+
+        // assert
+        assertEquals(List.of("describeTopics", "deleteTopics"), actual.getCalls());
+    }
+}
@@ -0,0 +1,255 @@
+package com.github.kattlo.topic.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterPartitionReassignmentsResult;
+import org.apache.kafka.clients.admin.DescribeLogDirsResult;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.ListPartitionReassignmentsResult;
+import org.apache.kafka.clients.admin.PartitionReassignment;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.protocol.Errors;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse.LogDirInfo;
+import org.apache.kafka.common.requests.DescribeLogDirsResponse.ReplicaInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+/**
+ * @author fabiojose
+ */
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class ReassignmentTrackerTest {
+
+    @Mock
+    AdminClient admin;
+
+    @Mock
+    AlterPartitionReassignmentsResult alterResult;
+
+    @Mock
+    ListPartitionReassignmentsResult listResult;
+
+    @Mock
+    DescribeTopicsResult describeResult;
+
+    @Mock
+    DescribeLogDirsResult logDirsResult;
+
+    private final List<ReassignmentStatus> notified = new ArrayList<>();
+    private final List<Duration> slept = new ArrayList<>();
+
+    private static final TopicPartition PARTITION =
+        new TopicPartition("topic", 0);
+
+    private static Map<TopicPartition, PartitionReassignment> ongoing() {
+        return Map.of(PARTITION,
+            new PartitionReassignment(List.of(1, 2, 3), List.of(3), List.of()));
+    }
+
+    private ReassignmentTracker trackerOf(Duration timeout) {
+        return new ReassignmentTracker(timeout,
+                (topic, status, progress, estimate) -> notified.add(status),
+                Duration.ofMillis(1), Duration.ofMillis(4)){
+
+            @Override
+            void sleep(Duration backoff) {
+                slept.add(backoff);
+            }
+        };
+    }
+
+    private void describeMockitoWhen() {
+        var nodes = List.of(new Node(1, "nodeA", 9092),
+            new Node(2, "nodeB", 9092), new Node(3, "nodeC", 9092));
+
+        var description = new TopicDescription("topic", false, List.of(
+            new TopicPartitionInfo(0, nodes.get(0), nodes, nodes.subList(0, 2))));
+
+        when(admin.describeTopics(anyCollection()))
+            .thenReturn(describeResult);
+        when(describeResult.all())
+            .thenReturn(KafkaFuture.completedFuture(Map.of("topic", description)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_poll_with_backoff_until_completed() {
+
+        // setup
+        when(alterResult.all())
+            .thenReturn(KafkaFuture.completedFuture(null));
+        when(admin.listPartitionReassignments(anySet()))
+            .thenReturn(listResult);
+        when(listResult.reassignments())
+            .thenReturn(
+                KafkaFuture.completedFuture(ongoing()),
+                KafkaFuture.completedFuture(ongoing()),
+                KafkaFuture.completedFuture(ongoing()),
+                KafkaFuture.completedFuture(ongoing()),
+                KafkaFuture.completedFuture(Map.of()));
+
+        describeMockitoWhen();
+
+        var tracker = trackerOf(Duration.ofHours(1));
+
+        // act
+        var actual = tracker.await(admin, "topic", alterResult, Set.of(PARTITION));
+
+        // assert
+        assertEquals(ReassignmentStatus.COMPLETED, actual);
+        assertEquals(List.of(Duration.ofMillis(1), Duration.ofMillis(2),
+            Duration.ofMillis(4), Duration.ofMillis(4)), slept);
+        assertEquals(ReassignmentStatus.IN_PROGRESS, notified.get(0));
+        assertEquals(ReassignmentStatus.COMPLETED, notified.get(notified.size() - 1));
+
+        assertEquals(Set.of(PARTITION), tracker.drainCompleted());
+        assertTrue(tracker.drainCompleted().isEmpty());
+    }
+
+    @Test
+    public void should_leave_it_submitted_when_the_timeout_elapses() {
+
+        // setup
+        when(alterResult.all())
+            .thenReturn(KafkaFuture.completedFuture(null));
+        when(admin.listPartitionReassignments(anySet()))
+            .thenReturn(listResult);
+        when(listResult.reassignments())
+            .thenReturn(KafkaFuture.completedFuture(ongoing()));
+
+        describeMockitoWhen();
+
+        var tracker = trackerOf(Duration.ZERO);
+
+        // act
+        var actual = tracker.await(admin, "topic", alterResult, Set.of(PARTITION));
+
+        // assert
+        assertEquals(ReassignmentStatus.SUBMITTED, actual);
+        assertEquals(List.of(ReassignmentStatus.SUBMITTED), notified);
+        assertTrue(slept.isEmpty());
+        assertTrue(tracker.drainCompleted().isEmpty());
+    }
+
+    @Test
+    public void should_throw_when_a_reassignment_is_in_progress() {
+
+        // setup
+        when(admin.listPartitionReassignments(anySet()))
+            .thenReturn(listResult);
+        when(listResult.reassignments())
+            .thenReturn(KafkaFuture.completedFuture(ongoing()));
+
+        var tracker = trackerOf(Duration.ofHours(1));
+
+        // act
+        var actual = assertThrows(TopicPatchException.class, () ->
+            tracker.ensureIdle(admin, "topic", Set.of(PARTITION)));
+
+        // assert
+        assertTrue(actual.getMessage().contains("reassignment in progress"));
+        verify(admin, never()).alterPartitionReassignments(anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_count_the_bytes_copied_by_the_new_replicas() {
+
+        // setup
+        when(alterResult.all())
+            .thenReturn(KafkaFuture.completedFuture(null));
+        when(admin.listPartitionReassignments(anySet()))
+            .thenReturn(listResult);
+        when(listResult.reassignments())
+            .thenReturn(
+                KafkaFuture.completedFuture(ongoing()),
+                KafkaFuture.completedFuture(ongoing()),
+                KafkaFuture.completedFuture(Map.of()));
+
+        describeMockitoWhen();
+
+        // the new replica at broker 3 is not in sync yet
+        when(admin.describeLogDirs(anyCollection()))
+            .thenReturn(logDirsResult);
+        when(logDirsResult.all())
+            .thenReturn(KafkaFuture.completedFuture(Map.of(
+                3, Map.of("/data", new LogDirInfo(Errors.NONE, Map.of(
+                    PARTITION, new ReplicaInfo(400, 0, false)))))));
+
+        var sizes = new PartitionSizes(Map.of(1, Map.of(PARTITION, 1000l)));
+
+        var copied = new ArrayList<Long>();
+        var tracker = new ReassignmentTracker(Duration.ofHours(1),
+                (topic, status, progress, estimate) ->
+                    progress.forEach(p -> copied.add(p.getCopied())),
+                Duration.ofMillis(1), Duration.ofMillis(4), Duration.ofHours(1)){
+
+            @Override
+            void sleep(Duration backoff) {
+            }
+        };
+
+        // act
+        var actual = tracker.await(admin, "topic", alterResult, Set.of(PARTITION), sizes);
+
+        // assert
+        assertEquals(ReassignmentStatus.COMPLETED, actual);
+        assertEquals(List.of(400l, 400l), copied);
+
+        // once per interval, just at the brokers of the new replicas
+        verify(admin, times(1)).describeLogDirs(Set.of(3));
+    }
+
+    @Test
+    public void should_estimate_the_remaining_bytes_and_the_eta() {
+
+        // setup
+        var estimator = new ReassignmentTracker.Estimator();
+
+        var first = List.of(
+            new ReassignmentProgress(0, List.of(1, 2), List.of(2), List.of(), 0, 1000, 0),
+            new ReassignmentProgress(1, List.of(1, 3), List.of(3), List.of(), 0, 1000, 500));
+
+        // the partition 1 finished between the polls
+        var second = List.of(
+            new ReassignmentProgress(0, List.of(1, 2), List.of(2), List.of(), 0, 1000, 500));
+
+        // act
+        var baseline = estimator.estimate(first, 0);
+        var actual = estimator.estimate(second, Duration.ofSeconds(10).toNanos());
+
+        // assert
+        assertEquals(1500, baseline.getRemaining());
+        assertEquals(null, baseline.getEta());
+
+        assertEquals(2000, actual.getBytes());
+        assertEquals(500, actual.getRemaining());
+        assertEquals(100, actual.getThroughput());
+        assertEquals(Duration.ofSeconds(5), actual.getEta());
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.kattlo.topic.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.NewPartitionReassignment;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author fabiojose
+ */
+public class ReplicaPlacementTest {
+
+    private static List<Node> nodes(String... racks) {
+        var nodes = new ArrayList<Node>();
+        for(int id = 1; id <= racks.length; id++){
+            nodes.add(new Node(id, "node" + id, 9092, racks[id - 1]));
+        }
+
+        return nodes;
+    }
+
+    private static TopicPartitionInfo partition(int partition, List<Node> nodes,
+            Integer... replicas) {
+
+        var assigned = List.of(replicas).stream()
+            .map(id -> nodes.get(id - 1))
+            .collect(Collectors.toList());
+
+        return new TopicPartitionInfo(partition, assigned.get(0), assigned, assigned);
+    }
+
+    private static List<Integer> replicasOf(
+            Map<TopicPartition, Optional<NewPartitionReassignment>> assignments,
+            int partition) {
+
+        return assignments.get(new TopicPartition("topic", partition))
+            .get()
+            .targetReplicas();
+    }
+
+    @Test
+    public void should_spread_the_new_replicas_to_the_less_loaded_brokers() {
+
+        // setup
+        var nodes = nodes(null, null, null, null);
+        var topic = new TopicDescription("topic", false, List.of(
+            partition(0, nodes, 1),
+            partition(1, nodes, 2)));
+
+        var placement = new ReplicaPlacement(nodes, List.of(topic));
+
+        // act
+        var actual = placement.assignmentsOf(topic, 2);
+
+        // assert
+        assertEquals(List.of(1, 3), replicasOf(actual, 0));
+        assertEquals(List.of(2, 4), replicasOf(actual, 1));
+    }
+
+    @Test
+    public void should_prefer_a_new_rack_over_a_less_loaded_broker() {
+
+        // setup
+        var nodes = nodes("rack-a", "rack-a", "rack-b");
+        var topic = new TopicDescription("topic", false, List.of(
+            partition(0, nodes, 1)));
+        var other = new TopicDescription("other", false, List.of(
+            partition(0, nodes, 3),
+            partition(1, nodes, 3)));
+
+        var placement = new ReplicaPlacement(nodes, List.of(topic, other));
+
+        // act
+        var actual = placement.assignmentsOf(topic, 2);
+
+        // assert
+        assertEquals(List.of(1, 3), replicasOf(actual, 0));
+    }
+
+    @Test
+    public void should_drop_the_replica_of_the_most_loaded_broker_but_the_leader() {
+
+        // setup
+        var nodes = nodes(null, null, null);
+        var topic = new TopicDescription("topic", false, List.of(
+            partition(0, nodes, 1, 2, 3)));
+        var other = new TopicDescription("other", false, List.of(
+            partition(0, nodes, 2),
+            partition(1, nodes, 1)));
+
+        var placement = new ReplicaPlacement(nodes, List.of(topic, other));
+
+        // act
+        var actual = placement.assignmentsOf(topic, 2);
+
+        // assert
+        assertEquals(List.of(1, 3), replicasOf(actual, 0));
+    }
+
+    @Test
+    public void should_drop_the_replica_sharing_the_rack_first() {
+
+        // setup
+        var nodes = nodes("rack-a", "rack-b", "rack-a");
+        var topic = new TopicDescription("topic", false, List.of(
+            partition(0, nodes, 1, 2, 3)));
+        var other = new TopicDescription("other", false, List.of(
+            partition(0, nodes, 2),
+            partition(1, nodes, 2)));
+
+        var placement = new ReplicaPlacement(nodes, List.of(topic, other));
+
+        // act
+        var actual = placement.assignmentsOf(topic, 2);
+
+        // assert
+        assertEquals(List.of(1, 2), replicasOf(actual, 0));
+    }
+
+    @Test
+    public void should_throw_when_not_enough_brokers() {
+
+        // setup
+        var nodes = nodes(null, null);
+        var topic = new TopicDescription("topic", false, List.of(
+            partition(0, nodes, 1)));
+
+        var placement = new ReplicaPlacement(nodes.subList(0, 1), List.of(topic));
+
+        // act
+        assertThrows(TopicPatchException.class, () ->
+            placement.assignmentsOf(topic, 2));
+    }
+}
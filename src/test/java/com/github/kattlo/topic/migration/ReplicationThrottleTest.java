@@ -0,0 +1,417 @@
+package com.github.kattlo.topic.migration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import com.github.kattlo.topic.yaml.MigrationJournal.KeptThrottle;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AlterConfigOp;
+import org.apache.kafka.clients.admin.AlterConfigOp.OpType;
+import org.apache.kafka.clients.admin.AlterConfigsResult;
+import org.apache.kafka.clients.admin.Config;
+import org.apache.kafka.clients.admin.ConfigEntry;
+import org.apache.kafka.clients.admin.ConfigEntry.ConfigSource;
+import org.apache.kafka.clients.admin.DescribeConfigsResult;
+import org.apache.kafka.clients.admin.ListPartitionReassignmentsResult;
+import org.apache.kafka.clients.admin.NewPartitionReassignment;
+import org.apache.kafka.clients.admin.PartitionReassignment;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.apache.kafka.common.config.ConfigResource;
+import org.apache.kafka.common.config.ConfigResource.Type;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * @author fabiojose
+ */
+@ExtendWith(MockitoExtension.class)
+public class ReplicationThrottleTest {
+
+    @Mock
+    AdminClient admin;
+
+    @Mock
+    AlterConfigsResult alterResult;
+
+    @Mock
+    DescribeConfigsResult describeConfigsResult;
+
+    @Mock
+    ListPartitionReassignmentsResult listResult;
+
+    @Captor
+    ArgumentCaptor<Map<ConfigResource, Collection<AlterConfigOp>>> captor;
+
+    private static final List<Node> NODES = List.of(
+        new Node(1, "nodeA", 9092),
+        new Node(2, "nodeB", 9092),
+        new Node(3, "nodeC", 9092));
+
+    /**
+     * Three partitions with one replica each, at brokers 1, 2 and 1
+     */
+    private static TopicDescription description() {
+        return new TopicDescription("topic", false, List.of(
+            new TopicPartitionInfo(0, NODES.get(0), List.of(NODES.get(0)), List.of(NODES.get(0))),
+            new TopicPartitionInfo(1, NODES.get(1), List.of(NODES.get(1)), List.of(NODES.get(1))),
+            new TopicPartitionInfo(2, NODES.get(0), List.of(NODES.get(0)), List.of(NODES.get(0)))));
+    }
+
+    /**
+     * Every partition gets a replica at broker 3
+     */
+    private static Map<TopicPartition, Optional<NewPartitionReassignment>> assignments() {
+        var assignments = new LinkedHashMap<TopicPartition, Optional<NewPartitionReassignment>>();
+        assignments.put(new TopicPartition("topic", 0),
+            Optional.of(new NewPartitionReassignment(List.of(1, 3))));
+        assignments.put(new TopicPartition("topic", 1),
+            Optional.of(new NewPartitionReassignment(List.of(2, 3))));
+        assignments.put(new TopicPartition("topic", 2),
+            Optional.of(new NewPartitionReassignment(List.of(1, 3))));
+
+        return assignments;
+    }
+
+    @Test
+    public void should_move_everything_at_once_when_unbounded() {
+
+        var throttle = ReplicationThrottle.none();
+
+        // act
+        var actual = throttle.wavesOf(description(), assignments());
+
+        // assert
+        assertEquals(1, actual.size());
+        assertEquals(3, actual.get(0).size());
+    }
+
+    @Test
+    public void should_bound_the_moves_per_broker() {
+
+        var throttle = new ReplicationThrottle(ReplicationThrottle.NO_RATE, 2);
+
+        // act
+        var actual = throttle.wavesOf(description(), assignments());
+
+        // assert
+        assertEquals(2, actual.size());
+        assertEquals(Set.of(new TopicPartition("topic", 0), new TopicPartition("topic", 1)),
+            actual.get(0).keySet());
+        assertEquals(Set.of(new TopicPartition("topic", 2)),
+            actual.get(1).keySet());
+    }
+
+    @Test
+    public void should_move_the_smaller_partitions_first() {
+
+        var throttle = new ReplicationThrottle(ReplicationThrottle.NO_RATE, 2);
+
+        var sizes = new PartitionSizes(Map.of(1, Map.of(
+            new TopicPartition("topic", 0), 900l,
+            new TopicPartition("topic", 2), 100l)));
+
+        // act
+        var actual = throttle.wavesOf(description(), assignments(), sizes);
+
+        // assert
+        assertEquals(2, actual.size());
+        assertEquals(Set.of(new TopicPartition("topic", 1), new TopicPartition("topic", 2)),
+            actual.get(0).keySet());
+        assertEquals(Set.of(new TopicPartition("topic", 0)),
+            actual.get(1).keySet());
+    }
+
+    /**
+     * One partition at broker 2 getting a replica at broker 3
+     */
+    private static TopicDescription other() {
+        return new TopicDescription("other", false, List.of(
+            new TopicPartitionInfo(0, NODES.get(1), List.of(NODES.get(1)), List.of(NODES.get(1)))));
+    }
+
+    private static Map<TopicPartition, Optional<NewPartitionReassignment>> otherWave() {
+        return Map.of(new TopicPartition("other", 0),
+            Optional.of(new NewPartitionReassignment(List.of(2, 3))));
+    }
+
+    @Test
+    public void should_bound_the_moves_per_broker_across_the_topics() throws Exception {
+
+        var throttle = new ReplicationThrottle(ReplicationThrottle.NO_RATE, 2);
+        var first = throttle.wavesOf(description(), assignments()).get(0);
+
+        var moves = throttle.acquireMoves(description(), first, Duration.ZERO);
+        assertEquals(Map.of(1, 1, 2, 1, 3, 2), moves);
+
+        var acquired = new CompletableFuture<Map<Integer, Integer>>();
+        var waiting = new Thread(() -> acquired.complete(
+            throttle.acquireMoves(other(), otherWave(), Duration.ofSeconds(10))));
+
+        // act
+        waiting.start();
+        Thread.sleep(100);
+
+        // assert
+        assertFalse(acquired.isDone());
+
+        throttle.releaseMoves(moves);
+        assertEquals(Map.of(2, 1, 3, 1), acquired.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void should_throw_when_the_brokers_are_busy_at_the_timeout() {
+
+        var throttle = new ReplicationThrottle(ReplicationThrottle.NO_RATE, 2);
+        var first = throttle.wavesOf(description(), assignments()).get(0);
+        throttle.acquireMoves(description(), first, Duration.ZERO);
+
+        // act
+        var actual = assertThrows(TopicPatchException.class, () ->
+            throttle.acquireMoves(other(), otherWave(), Duration.ofMillis(50)));
+
+        // assert
+        assertTrue(actual.getMessage().contains("still waiting for the brokers"));
+    }
+
+    @Test
+    public void should_not_touch_the_configs_without_rate() {
+
+        var throttle = new ReplicationThrottle(ReplicationThrottle.NO_RATE, 1);
+
+        // act
+        var actual = throttle.throttle(admin, description(), assignments());
+        throttle.release(admin, "topic", actual);
+
+        // assert
+        assertTrue(actual.isEmpty());
+        verify(admin, never()).incrementalAlterConfigs(anyMap());
+    }
+
+    @Test
+    public void should_throttle_the_replicas_and_the_brokers_of_the_wave() {
+
+        // setup
+        when(admin.incrementalAlterConfigs(anyMap()))
+            .thenReturn(alterResult);
+        when(alterResult.all())
+            .thenReturn(KafkaFuture.completedFuture(null));
+
+        var throttle = new ReplicationThrottle(1024, ReplicationThrottle.UNBOUNDED);
+
+        // act
+        var actual = throttle.throttle(admin, description(), assignments());
+
+        // assert
+        assertEquals(Set.of(1, 2, 3), actual);
+
+        verify(admin).incrementalAlterConfigs(captor.capture());
+        var configs = captor.getValue();
+
+        var topic = configs.get(new ConfigResource(Type.TOPIC, "topic"));
+        assertTrue(topic.stream().anyMatch(op ->
+            ReplicationThrottle.LEADER_REPLICAS.equals(op.configEntry().name())
+                && "0:1,1:2,2:1".equals(op.configEntry().value())));
+        assertTrue(topic.stream().anyMatch(op ->
+            ReplicationThrottle.FOLLOWER_REPLICAS.equals(op.configEntry().name())
+                && "0:3,1:3,2:3".equals(op.configEntry().value())));
+
+        var broker = configs.get(new ConfigResource(Type.BROKER, "3"));
+        assertTrue(broker.stream().allMatch(op -> OpType.SET.equals(op.opType())
+            && "1024".equals(op.configEntry().value())));
+    }
+
+    @Test
+    public void should_remove_the_rate_when_the_last_wave_finishes() {
+
+        // setup
+        when(admin.incrementalAlterConfigs(anyMap()))
+            .thenReturn(alterResult);
+        when(alterResult.all())
+            .thenReturn(KafkaFuture.completedFuture(null));
+
+        var throttle = new ReplicationThrottle(1024, ReplicationThrottle.UNBOUNDED);
+
+        var first = throttle.throttle(admin, description(), assignments());
+        var second = throttle.throttle(admin, description(), assignments());
+
+        // act
+        throttle.release(admin, "topic", first);
+        throttle.release(admin, "topic", second);
+
+        // assert
+        verify(admin, times(4)).incrementalAlterConfigs(captor.capture());
+        var calls = captor.getAllValues();
+
+        // the second wave did not set the rate again
+        assertEquals(1, calls.get(1).size());
+
+        // the brokers were still in use by the second wave
+        assertEquals(1, calls.get(2).size());
+
+        var last = calls.get(3);
+        assertEquals(4, last.size());
+        assertTrue(last.get(new ConfigResource(Type.BROKER, "1")).stream()
+            .allMatch(op -> OpType.DELETE.equals(op.opType())));
+    }
+
+    @Test
+    public void should_keep_the_rate_of_the_brokers_with_moves_still_running() {
+
+        // setup
+        when(admin.incrementalAlterConfigs(anyMap()))
+            .thenReturn(alterResult);
+        when(alterResult.all())
+            .thenReturn(KafkaFuture.completedFuture(null));
+
+        var throttle = new ReplicationThrottle(1024, ReplicationThrottle.UNBOUNDED);
+
+        var running = throttle.throttle(admin, description(), assignments());
+        var finished = throttle.throttle(admin, other(), otherWave());
+
+        // act
+        throttle.keep(description(), assignments(), running);
+        throttle.release(admin, "other", finished);
+
+        // assert
+        verify(admin, times(3)).incrementalAlterConfigs(captor.capture());
+        var last = captor.getAllValues().get(2);
+
+        // just the throttled replicas of the finished topic
+        assertEquals(Set.of(new ConfigResource(Type.TOPIC, "other")), last.keySet());
+    }
+
+    private static ConfigEntry entry(String name, String value, ConfigSource source) {
+        var entry = mock(ConfigEntry.class);
+        when(entry.name()).thenReturn(name);
+        when(entry.value()).thenReturn(value);
+        when(entry.source()).thenReturn(source);
+
+        return entry;
+    }
+
+    private static Map<String, KeptThrottle> kept() {
+        return Map.of("topic", new KeptThrottle("0:1", "0:3", Set.of(1, 3), 1024));
+    }
+
+    @Test
+    public void should_not_settle_without_a_kept_throttle() {
+
+        var throttle = new ReplicationThrottle(1024, ReplicationThrottle.UNBOUNDED);
+
+        // act
+        var actual = throttle.settle(admin, "topic");
+
+        // assert
+        assertFalse(actual);
+        verifyNoInteractions(admin);
+    }
+
+    @Test
+    public void should_not_settle_while_the_topic_is_moving() {
+
+        // setup
+        when(admin.listPartitionReassignments())
+            .thenReturn(listResult);
+        when(listResult.reassignments())
+            .thenReturn(KafkaFuture.completedFuture(Map.of(
+                new TopicPartition("topic", 0),
+                new PartitionReassignment(List.of(1, 3), List.of(3), List.of()))));
+
+        var throttle = new ReplicationThrottle(1024, ReplicationThrottle.UNBOUNDED);
+        throttle.restore(kept());
+
+        // act
+        var actual = throttle.settle(admin, "topic");
+
+        // assert
+        assertFalse(actual);
+        assertEquals(kept(), throttle.kept());
+        verify(admin, never()).incrementalAlterConfigs(anyMap());
+    }
+
+    @Test
+    public void should_settle_just_the_throttle_written_by_the_kept_wave() {
+
+        // setup
+        when(admin.listPartitionReassignments())
+            .thenReturn(listResult);
+        when(listResult.reassignments())
+            .thenReturn(KafkaFuture.completedFuture(Map.of()));
+
+        // the followers and the rate of broker 3 were changed by someone else
+        when(admin.describeConfigs(anyCollection()))
+            .thenReturn(describeConfigsResult);
+        when(describeConfigsResult.all())
+            .thenReturn(KafkaFuture.completedFuture(Map.of(
+                new ConfigResource(Type.TOPIC, "topic"), new Config(List.of(
+                    entry(ReplicationThrottle.LEADER_REPLICAS, "0:1",
+                        ConfigSource.DYNAMIC_TOPIC_CONFIG),
+                    entry(ReplicationThrottle.FOLLOWER_REPLICAS, "0:3,1:3",
+                        ConfigSource.DYNAMIC_TOPIC_CONFIG))),
+                new ConfigResource(Type.BROKER, "1"), new Config(List.of(
+                    entry(ReplicationThrottle.LEADER_RATE, "1024",
+                        ConfigSource.DYNAMIC_BROKER_CONFIG),
+                    entry(ReplicationThrottle.FOLLOWER_RATE, "1024",
+                        ConfigSource.DYNAMIC_BROKER_CONFIG))),
+                new ConfigResource(Type.BROKER, "3"), new Config(List.of(
+                    entry(ReplicationThrottle.LEADER_RATE, "2048",
+                        ConfigSource.DYNAMIC_BROKER_CONFIG),
+                    entry(ReplicationThrottle.FOLLOWER_RATE, "2048",
+                        ConfigSource.DYNAMIC_BROKER_CONFIG))))));
+
+        when(admin.incrementalAlterConfigs(anyMap()))
+            .thenReturn(alterResult);
+        when(alterResult.all())
+            .thenReturn(KafkaFuture.completedFuture(null));
+
+        var throttle = new ReplicationThrottle(1024, ReplicationThrottle.UNBOUNDED);
+        throttle.restore(kept());
+
+        // act
+        var actual = throttle.settle(admin, "topic");
+
+        // assert
+        assertTrue(actual);
+        assertTrue(throttle.kept().isEmpty());
+
+        verify(admin).incrementalAlterConfigs(captor.capture());
+        var configs = captor.getValue();
+
+        assertEquals(Set.of(new ConfigResource(Type.TOPIC, "topic"),
+            new ConfigResource(Type.BROKER, "1")), configs.keySet());
+        assertEquals(List.of(ReplicationThrottle.LEADER_REPLICAS),
+            configs.get(new ConfigResource(Type.TOPIC, "topic")).stream()
+                .map(op -> op.configEntry().name())
+                .collect(Collectors.toList()));
+    }
+}
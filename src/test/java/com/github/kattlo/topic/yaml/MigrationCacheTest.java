@@ -0,0 +1,113 @@
+package com.github.kattlo.topic.yaml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author fabiojose
+ */
+public class MigrationCacheTest {
+
+    @TempDir
+    Path directory;
+
+    private TopicOperation create(Path file, String topic) throws Exception {
+        Files.writeString(file, "operation: create\ntopic: " + topic + "\n");
+
+        return TopicOperation.builder()
+            .file(file)
+            .version("v0001")
+            .operation("create")
+            .topic(topic)
+            .build();
+    }
+
+    @Test
+    public void should_be_clean_when_nothing_changed() throws Exception {
+
+        // setup
+        var file = directory.resolve("v0001_create-topic.yaml");
+        var operation = create(file, "topic");
+
+        var cache = new MigrationCache();
+        cache.confirm("topic", "v0001", 10L, List.of(operation));
+
+        var cacheFile = MigrationCache.fileFor(directory);
+        cache.save(cacheFile);
+
+        // act
+        var actual = MigrationCache.load(cacheFile);
+
+        // assert
+        assertFalse(actual.changed(file));
+        assertEquals(Set.of("topic"), actual.unchangedTopics(List.of(file), List.of()));
+        assertTrue(actual.clean("topic", 10L));
+    }
+
+    @Test
+    public void should_not_be_clean_when_the_watermark_moved() throws Exception {
+
+        // setup
+        var file = directory.resolve("v0001_create-topic.yaml");
+        var operation = create(file, "topic");
+
+        var cache = new MigrationCache();
+        cache.confirm("topic", "v0001", 10L, List.of(operation));
+
+        // act
+        var actual = cache.clean("topic", 11L);
+
+        // assert
+        assertFalse(actual);
+    }
+
+    @Test
+    public void should_use_the_hash_when_just_the_modified_time_changed() throws Exception {
+
+        // setup
+        var file = directory.resolve("v0001_create-topic.yaml");
+        var operation = create(file, "topic");
+
+        var cache = new MigrationCache();
+        cache.confirm("topic", "v0001", 10L, List.of(operation));
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(0));
+        var touched = cache.changed(file);
+
+        Files.writeString(file, "operation: create\ntopic: other\n");
+        var rewritten = cache.changed(file);
+
+        // assert
+        assertFalse(touched);
+        assertTrue(rewritten);
+    }
+
+    @Test
+    public void should_be_dirty_when_a_file_of_the_topic_was_removed() throws Exception {
+
+        // setup
+        var first = directory.resolve("v0001_create-topic.yaml");
+        var second = directory.resolve("v0002_patch-topic.yaml");
+
+        var cache = new MigrationCache();
+        cache.confirm("topic", "v0002", 10L, List.of(
+            create(first, "topic"),
+            create(second, "topic").toBuilder().version("v0002").build()));
+
+        // act
+        var actual = cache.unchangedTopics(List.of(first), List.of());
+
+        // assert
+        assertTrue(actual.isEmpty());
+    }
+}
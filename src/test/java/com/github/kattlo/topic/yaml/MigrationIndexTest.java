@@ -0,0 +1,125 @@
+package com.github.kattlo.topic.yaml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.github.kattlo.core.exception.LoadException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mapstruct.factory.Mappers;
+
+public class MigrationIndexTest {
+
+    private final TopicOperationMapper mapper =
+        Mappers.getMapper(TopicOperationMapper.class);
+
+    private List<String> versions(List<TopicOperation> operations) {
+        return operations.stream()
+            .map(TopicOperation::getVersion)
+            .collect(Collectors.toList());
+    }
+
+    private MigrationIndex indexOf(Path directory) throws Exception {
+        return MigrationIndex.of(directory, false, List.of(), List.of(),
+            new ParallelLoader(mapper));
+    }
+
+    @Test
+    public void should_group_the_migrations_by_topic_sorted_by_version() throws Exception {
+
+        // setup
+        final Path directory = Path.of("./src/test/resources/topics/many_migrations_0/");
+
+        // act
+        var actual = indexOf(directory);
+
+        // assert
+        assertEquals(Set.of("payments"), actual.topics());
+        assertEquals(List.of("v0001", "v0002", "v0003", "v0004", "v0005"),
+            versions(actual.all("payments")));
+    }
+
+    @Test
+    public void should_result_the_newer_versions() throws Exception {
+
+        // setup
+        final Path directory = Path.of("./src/test/resources/topics/many_migrations_0/");
+
+        // act
+        var actual = indexOf(directory)
+            .newer("v0003", "payments");
+
+        // assert
+        assertEquals(List.of("v0004", "v0005"), versions(actual));
+    }
+
+    @Test
+    public void should_result_empty_when_the_topic_is_unknown() throws Exception {
+
+        // setup
+        final Path directory = Path.of("./src/test/resources/topics/many_migrations_0/");
+
+        // act
+        var actual = indexOf(directory)
+            .newer("v0000", "undefined");
+
+        // assert
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    public void should_throw_when_the_same_version_is_in_two_files() {
+
+        // setup
+        var first = TopicOperation.builder()
+            .file(Path.of("team-a", "v0001_create.yaml"))
+            .version("v0001")
+            .operation("create")
+            .topic("payments")
+            .build();
+
+        var second = first.toBuilder()
+            .file(Path.of("team-b", "v0001_create.yaml"))
+            .build();
+
+        // act
+        assertThrows(LoadException.class, () ->
+            MigrationIndex.of(List.of(first, second)));
+    }
+
+    private static void write(Path file, String topic) throws Exception {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file,
+            "operation: create\n"
+            + "notes: 'Create the topic " + topic + "'\n"
+            + "topic: " + topic + "\n"
+            + "partitions: 1\n"
+            + "replicationFactor: 1\n");
+    }
+
+    @Test
+    public void should_index_the_files_parsed_while_walking_the_tree(
+            @TempDir Path directory) throws Exception {
+
+        // setup
+        write(directory.resolve("team-a/v0001_create-orders.yaml"), "orders");
+        write(directory.resolve("team-b/v0001_create-payments.yaml"), "payments");
+        write(directory.resolve("legacy/v0001_create-legacy.yaml"), "legacy");
+
+        // act
+        var actual = MigrationIndex.of(directory, true, List.of(),
+            List.of("legacy/**"), new ParallelLoader(mapper, 2));
+
+        // assert
+        assertEquals(Set.of("orders", "payments"), actual.topics());
+        assertEquals(List.of("v0001"), versions(actual.all("orders")));
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.kattlo.topic.yaml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author fabiojose
+ */
+public class MigrationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private static TopicOperation operation(String topic, String version) {
+        return TopicOperation.builder()
+            .file(Path.of(version + "_" + topic + ".yaml"))
+            .version(version)
+            .operation("create")
+            .topic(topic)
+            .build();
+    }
+
+    private static MigrationIndex index() {
+        return MigrationIndex.of(List.of(
+            operation("topic-a", "v0001"),
+            operation("topic-a", "v0002"),
+            operation("topic-b", "v0001")));
+    }
+
+    @Test
+    public void should_skip_just_the_completed_topics() {
+
+        // setup
+        var journal = new MigrationJournal();
+        journal.checkpoint("topic-a", "v0001");
+        journal.checkpoint("topic-b", "v0001");
+
+        var index = index();
+
+        // act
+        var actual = journal.pending(index.topics(), index);
+
+        // assert
+        assertEquals(Set.of("topic-a"), actual);
+        assertTrue(journal.completed("topic-b", index));
+    }
+
+    @Test
+    public void should_keep_the_newer_version() {
+
+        // setup
+        var journal = new MigrationJournal();
+
+        // act
+        journal.checkpoint("topic-a", "v0002");
+        journal.checkpoint("topic-a", "v0001");
+
+        // assert
+        assertEquals("v0002", journal.getTopics().get("topic-a"));
+    }
+
+    @Test
+    public void should_load_the_saved_journal() {
+
+        // setup
+        var journal = new MigrationJournal();
+        journal.checkpoint("topic-a", "v0002");
+
+        var file = MigrationJournal.fileFor(directory);
+        journal.save(file);
+
+        // act
+        var actual = MigrationJournal.load(file);
+
+        // assert
+        assertTrue(actual.completed("topic-a", index()));
+        assertFalse(actual.completed("topic-b", index()));
+    }
+
+    @Test
+    public void should_load_the_saved_throttles() {
+
+        // setup
+        var kept = new MigrationJournal.KeptThrottle("0:1", "0:3", Set.of(1, 3), 1024);
+
+        var journal = new MigrationJournal();
+        journal.setThrottles(Map.of("topic-a", kept));
+
+        var file = MigrationJournal.fileFor(directory);
+        journal.save(file);
+
+        // act
+        var actual = MigrationJournal.load(file);
+
+        // assert
+        assertEquals(Map.of("topic-a", kept), actual.getThrottles());
+    }
+
+    @Test
+    public void should_resume_from_scratch_without_journal() throws Exception {
+
+        // setup
+        var file = MigrationJournal.fileFor(directory);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "not json");
+
+        // act
+        var unreadable = MigrationJournal.load(file);
+        MigrationJournal.remove(file);
+        var absent = MigrationJournal.load(file);
+
+        // assert
+        assertTrue(unreadable.getTopics().isEmpty());
+        assertTrue(absent.getTopics().isEmpty());
+        assertFalse(Files.exists(file));
+    }
+}
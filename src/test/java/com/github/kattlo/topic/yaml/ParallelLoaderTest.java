@@ -0,0 +1,110 @@
+package com.github.kattlo.topic.yaml;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mapstruct.factory.Mappers;
+
+public class ParallelLoaderTest {
+
+    private final TopicOperationMapper mapper =
+        Mappers.getMapper(TopicOperationMapper.class);
+
+    @TempDir
+    Path directory;
+
+    private List<Path> write(int count) throws Exception {
+        var files = new ArrayList<Path>();
+        for(int i = 0; i < count; i++){
+            var file = directory.resolve(String.format("v%04d_create-topic-%d.yaml", i + 1, i));
+            Files.writeString(file,
+                "operation: create\n"
+                + "notes: 'Create the topic " + i + "'\n"
+                + "topic: topic-" + i + "\n"
+                + "partitions: 1\n"
+                + "replicationFactor: 1\n");
+
+            files.add(file);
+        }
+
+        return files;
+    }
+
+    private List<String> topics(List<ParallelLoader.Result> results) {
+        return results.stream()
+            .map(r -> r.getOperation().getTopic())
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    public void should_load_like_the_sequential_loading() throws Exception {
+
+        for(var count : List.of(1, 50, 500)){
+
+            // setup
+            var files = write(count);
+
+            // act
+            var sequential = new ParallelLoader(mapper, 1).load(files);
+            var actual = new ParallelLoader(mapper, 4).load(files);
+
+            // assert
+            assertEquals(count, actual.size());
+            assertEquals(topics(sequential), topics(actual));
+            assertTrue(ParallelLoader.failureOf(actual).isEmpty());
+        }
+    }
+
+    @Test
+    public void should_keep_the_failure_per_file() throws Exception {
+
+        // setup
+        var files = write(10);
+        var invalid = directory.resolve("v0100_invalid.yaml");
+        Files.writeString(invalid, "operation: [create\n");
+        files.add(invalid);
+
+        // act
+        var actual = new ParallelLoader(mapper, 4).load(files);
+
+        // assert
+        assertEquals(11, actual.size());
+
+        var failed = actual.stream()
+            .filter(ParallelLoader.Result::failed)
+            .collect(Collectors.toList());
+
+        assertEquals(1, failed.size());
+        assertEquals(invalid, failed.get(0).getFile());
+        assertFalse(ParallelLoader.failureOf(actual).isEmpty());
+    }
+
+    @Test
+    public void should_load_the_streamed_files_sorted_by_path() throws Exception {
+
+        // setup
+        var files = write(50);
+        var sequential = new ParallelLoader(mapper, 1).load(files);
+
+        var shuffled = new ArrayList<>(files);
+        Collections.shuffle(shuffled);
+
+        // act
+        var actual = new ParallelLoader(mapper, 4).load(shuffled.stream());
+
+        // assert
+        assertEquals(50, actual.size());
+        assertEquals(topics(sequential), topics(actual));
+        assertTrue(ParallelLoader.failureOf(actual).isEmpty());
+    }
+}
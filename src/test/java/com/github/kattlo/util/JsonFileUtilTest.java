@@ -0,0 +1,68 @@
+package com.github.kattlo.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+public class JsonFileUtilTest {
+
+    @Data
+    @NoArgsConstructor
+    public static class Value {
+        private String name;
+        private long size;
+    }
+
+    @Test
+    public void should_read_the_value_written(@TempDir Path directory) throws Exception {
+
+        // setup
+        var file = directory.resolve(".kattlo").resolve("value");
+
+        var expected = new Value();
+        expected.setName("payments");
+        expected.setSize(10);
+
+        // act
+        JsonFileUtil.writeAtomically(file, expected);
+        var actual = JsonFileUtil.read(file, Value.class);
+
+        // assert
+        assertEquals(expected, actual.get());
+        assertFalse(Files.exists(file.resolveSibling("value.tmp")));
+    }
+
+    @Test
+    public void should_result_empty_when_there_is_no_file(@TempDir Path directory) {
+
+        // act
+        var actual = JsonFileUtil.read(directory.resolve("value"), Value.class);
+
+        // assert
+        assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    public void should_result_empty_when_the_file_is_unreadable(
+            @TempDir Path directory) throws Exception {
+
+        // setup
+        var file = directory.resolve("value");
+        Files.writeString(file, "{not json");
+
+        // act
+        var actual = JsonFileUtil.read(file, Value.class);
+
+        // assert
+        assertTrue(actual.isEmpty());
+    }
+}
@@ -3,6 +3,8 @@ package com.github.kattlo.util;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.time.Duration;
+
 import org.junit.jupiter.api.Test;
 
 public class NumberUtilTest {
@@ -170,4 +172,31 @@ public class NumberUtilTest {
 
         assertEquals(expected, actual);
     }
+
+    @Test
+    public void should_parse_the_duration() {
+
+        assertEquals(Duration.ofSeconds(60), NumberUtil.durationOf("60"));
+        assertEquals(Duration.ofSeconds(30), NumberUtil.durationOf("30s"));
+        assertEquals(Duration.ofMinutes(5), NumberUtil.durationOf("5m"));
+        assertEquals(Duration.ofHours(1), NumberUtil.durationOf("1h"));
+        assertEquals(Duration.ofMillis(500), NumberUtil.durationOf("500ms"));
+        assertEquals(Duration.ZERO, NumberUtil.durationOf("0"));
+    }
+
+    @Test
+    public void should_throw_when_not_a_duration() {
+
+        assertThrows(IllegalArgumentException.class,
+            () -> NumberUtil.durationOf("soon"));
+    }
+
+    @Test
+    public void should_parse_the_bytes() {
+
+        assertEquals(1024l, NumberUtil.bytesOf("1024"));
+        assertEquals(50l * 1024 * 1024, NumberUtil.bytesOf("50MiB"));
+        assertThrows(IllegalArgumentException.class,
+            () -> NumberUtil.bytesOf("fast"));
+    }
 }